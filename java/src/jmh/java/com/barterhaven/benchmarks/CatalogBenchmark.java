@@ -0,0 +1,64 @@
+package com.barterhaven.benchmarks;
+
+import com.barterhaven.algorithms.ItemsWithinRadiusFilter;
+import com.barterhaven.operations.MatchCandidateIndex;
+import com.barterhaven.operations.MatchingEngine;
+import com.barterhaven.testdata.MarketplaceDataGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/** Whole-catalog queries at 1k to 1M items: radius filtering and top-K matching, exhaustive and indexed. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class CatalogBenchmark {
+    private static final int SOURCES = 64;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int catalogSize;
+
+    private List<MatchingEngine.Item> catalog;
+    private List<ItemsWithinRadiusFilter.GeoItem> geoItems;
+    private MatchCandidateIndex index;
+    private MatchingEngine.Item[] sources;
+    private double[][] origins;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MarketplaceDataGenerator gen = new MarketplaceDataGenerator(42);
+        catalog = gen.items(catalogSize, Math.max(10, catalogSize / 5));
+        geoItems = new ArrayList<>(catalogSize);
+        index = new MatchCandidateIndex();
+        for (MatchingEngine.Item it : catalog) { geoItems.add(MarketplaceDataGenerator.geoItem(it)); index.save(it); }
+        sources = new MatchingEngine.Item[SOURCES];
+        origins = new double[SOURCES][];
+        for (int s = 0; s < SOURCES; s++) { sources[s] = catalog.get((int) ((long) s * catalogSize / SOURCES)); origins[s] = gen.location(); }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int i;
+        int next() { return i = (i + 1) % SOURCES; }
+    }
+
+    @Benchmark
+    public List<ItemsWithinRadiusFilter.GeoItem> itemsWithinRadius20Km(Cursor c) {
+        double[] o = origins[c.next()];
+        return ItemsWithinRadiusFilter.filter(geoItems, o[0], o[1], 20.0);
+    }
+
+    @Benchmark
+    public List<MatchingEngine.MatchResult> findPotentialMatches(Cursor c) {
+        return MatchingEngine.findPotentialMatches(sources[c.next()], catalog, 0.3, 20, null);
+    }
+
+    @Benchmark
+    public List<MatchingEngine.MatchResult> indexedFindMatches(Cursor c) {
+        return index.findMatches(sources[c.next()], 0.3, 20, null);
+    }
+}
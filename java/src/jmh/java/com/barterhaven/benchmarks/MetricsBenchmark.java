@@ -0,0 +1,72 @@
+package com.barterhaven.benchmarks;
+
+import com.barterhaven.algorithms.Metrics;
+import com.barterhaven.operations.MatchCandidateIndex;
+import com.barterhaven.operations.MatchingEngine;
+import com.barterhaven.testdata.MarketplaceDataGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of instrumentation: the instrumented ranking paths over a 100k-item catalog, and one bare timer plus counter,
+ * with {@link Metrics} switched off and on. Compare the two {@code metrics} rows of each benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class MetricsBenchmark {
+    private static final int CATALOG_SIZE = 100_000, SOURCES = 64;
+    private static final Metrics.Timer TIMER = Metrics.timer("benchmark.timer");
+    private static final Metrics.Counter COUNTER = Metrics.counter("benchmark.counter");
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private List<MatchingEngine.Item> catalog;
+    private MatchCandidateIndex index;
+    private MatchingEngine.Item[] sources;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = new MarketplaceDataGenerator(42).items(CATALOG_SIZE, CATALOG_SIZE / 5);
+        index = new MatchCandidateIndex();
+        for (MatchingEngine.Item it : catalog) index.save(it);
+        sources = new MatchingEngine.Item[SOURCES];
+        for (int s = 0; s < SOURCES; s++) sources[s] = catalog.get(s * (CATALOG_SIZE / SOURCES));
+        Metrics.setEnabled(metrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Metrics.reset();
+        Metrics.setEnabled(false);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int i;
+        int next() { return i = (i + 1) % SOURCES; }
+    }
+
+    @Benchmark
+    public List<MatchingEngine.MatchResult> findPotentialMatches(Cursor c) {
+        return MatchingEngine.findPotentialMatches(sources[c.next()], catalog, 0.3, 50, null);
+    }
+
+    @Benchmark
+    public List<MatchingEngine.MatchResult> indexedFindMatches(Cursor c) {
+        return index.findMatches(sources[c.next()], 0.3, 50, null);
+    }
+
+    @Benchmark
+    public void timerAndCounter() {
+        long t = TIMER.start();
+        COUNTER.increment();
+        TIMER.stop(t);
+    }
+}
@@ -0,0 +1,90 @@
+package com.barterhaven.benchmarks;
+
+import com.barterhaven.operations.ChatOperations;
+import com.barterhaven.operations.NotificationOperations;
+import com.barterhaven.operations.PostNegotiationOperations;
+import com.barterhaven.testdata.MarketplaceDataGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of the chat, notification and trade repositories over generated histories, comparing the scanning
+ * in-memory repositories with the indexed ones on the same queries. Queries read the busiest users, where scans
+ * hurt most.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class RepositoryBenchmark {
+    private static final int USERS = 10_000;
+    private static final String HOT = "user-0", PARTNER = "user-1";
+
+    @Param({"1000", "100000", "1000000"})
+    public int historySize;
+
+    private ChatOperations.InMemoryMessageRepo scanningMessages;
+    private ChatOperations.IndexedMessageRepo indexedMessages;
+    private NotificationOperations.InMemoryNotifRepo notifications;
+    private NotificationOperations.InMemoryMsgRepo badgeMessages;
+    private PostNegotiationOperations.InMemoryTradeRepo scanningTrades;
+    private PostNegotiationOperations.IndexedTradeRepo indexedTrades;
+    private java.time.Instant rangeStart, rangeEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MarketplaceDataGenerator gen = new MarketplaceDataGenerator(42);
+        scanningMessages = new ChatOperations.InMemoryMessageRepo();
+        indexedMessages = new ChatOperations.IndexedMessageRepo();
+        for (ChatOperations.Message m : gen.messages(historySize, USERS)) { scanningMessages.save(m); indexedMessages.save(m); }
+        notifications = new NotificationOperations.InMemoryNotifRepo();
+        for (NotificationOperations.Notification n : gen.notifications(historySize, USERS)) notifications.save(n);
+        badgeMessages = new NotificationOperations.InMemoryMsgRepo();
+        scanningTrades = new PostNegotiationOperations.InMemoryTradeRepo();
+        indexedTrades = new PostNegotiationOperations.IndexedTradeRepo();
+        // restore, not save: save would stamp every trade's updatedAt with the setup time.
+        for (PostNegotiationOperations.Trade t : gen.trades(historySize, USERS)) { scanningTrades.restore(t); indexedTrades.restore(t); }
+        rangeStart = MarketplaceDataGenerator.EPOCH.plus(java.time.Duration.ofDays(30));
+        rangeEnd = rangeStart.plus(java.time.Duration.ofDays(7));
+    }
+
+    @Benchmark
+    public List<ChatOperations.Message> chatFindConversationScanning() { return scanningMessages.findConversation(HOT, PARTNER); }
+
+    @Benchmark
+    public List<ChatOperations.Message> chatFindConversationIndexed() { return indexedMessages.findConversation(HOT, PARTNER); }
+
+    @Benchmark
+    public List<ChatOperations.Message> chatLatestPageScanning() { return scanningMessages.findConversationBefore(HOT, PARTNER, null, 50); }
+
+    @Benchmark
+    public List<ChatOperations.Message> chatLatestPageIndexed() { return indexedMessages.findConversationBefore(HOT, PARTNER, null, 50); }
+
+    @Benchmark
+    public long chatUnreadCount() { return ChatOperations.getUnreadCount(indexedMessages, HOT); }
+
+    @Benchmark
+    public List<NotificationOperations.Notification> notificationFirstPage() { return notifications.findByUser(HOT, 20, 0); }
+
+    @Benchmark
+    public List<NotificationOperations.Notification> notificationKeysetPage() { return notifications.findByUser(HOT, (NotificationOperations.Cursor) null, 20); }
+
+    @Benchmark
+    public int notificationBadgeCount() { return NotificationOperations.updateBadgeCount(HOT, notifications, badgeMessages); }
+
+    @Benchmark
+    public Map<String, Object> tradeStatsScanning() { return PostNegotiationOperations.getTradeStats(scanningTrades, HOT); }
+
+    @Benchmark
+    public Map<String, Object> tradeStatsIndexed() { return PostNegotiationOperations.getTradeStats(indexedTrades, HOT); }
+
+    @Benchmark
+    public List<PostNegotiationOperations.Trade> tradeHistoryWeekScanning() { return PostNegotiationOperations.getTradeHistory(scanningTrades, HOT, null, rangeStart, rangeEnd); }
+
+    @Benchmark
+    public List<PostNegotiationOperations.Trade> tradeHistoryWeekIndexed() { return PostNegotiationOperations.getTradeHistory(indexedTrades, HOT, null, rangeStart, rangeEnd); }
+}
@@ -0,0 +1,72 @@
+package com.barterhaven.benchmarks;
+
+import com.barterhaven.algorithms.BasicMatchScorer;
+import com.barterhaven.algorithms.EnhancedMatchScorer;
+import com.barterhaven.algorithms.HaversineDistanceCalculator;
+import com.barterhaven.operations.MatchingEngine;
+import com.barterhaven.testdata.MarketplaceDataGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/** Per-pair costs: one distance, one basic score, one enhanced score with and without reasons. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringBenchmark {
+    private static final int PAIRS = 4_096;
+
+    private BasicMatchScorer.Item[] basicA, basicB;
+    private EnhancedMatchScorer.Item[] enhancedA, enhancedB;
+    private double[] lat1, lon1, lat2, lon2;
+    private EnhancedMatchScorer.UserTradeStats stats;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<MatchingEngine.Item> items = new MarketplaceDataGenerator(42).items(2 * PAIRS, 1_000);
+        basicA = new BasicMatchScorer.Item[PAIRS]; basicB = new BasicMatchScorer.Item[PAIRS];
+        enhancedA = new EnhancedMatchScorer.Item[PAIRS]; enhancedB = new EnhancedMatchScorer.Item[PAIRS];
+        lat1 = new double[PAIRS]; lon1 = new double[PAIRS]; lat2 = new double[PAIRS]; lon2 = new double[PAIRS];
+        for (int p = 0; p < PAIRS; p++) {
+            MatchingEngine.Item a = items.get(2 * p), b = items.get(2 * p + 1);
+            basicA[p] = MarketplaceDataGenerator.basicItem(a); basicB[p] = MarketplaceDataGenerator.basicItem(b);
+            enhancedA[p] = MarketplaceDataGenerator.enhancedItem(a); enhancedB[p] = MarketplaceDataGenerator.enhancedItem(b);
+            lat1[p] = a.lat != null ? a.lat : 0; lon1[p] = a.lon != null ? a.lon : 0;
+            lat2[p] = b.lat != null ? b.lat : 0; lon2[p] = b.lon != null ? b.lon : 0;
+        }
+        stats = new EnhancedMatchScorer.UserTradeStats();
+        stats.categoryPreferences.put("Electronics", 3);
+        stats.categoryPreferences.put("Books", 1);
+    }
+
+    private int next() { return i = (i + 1) & (PAIRS - 1); }
+
+    @Benchmark
+    public double haversineDistanceKm() {
+        int p = next();
+        return HaversineDistanceCalculator.distanceKm(lat1[p], lon1[p], lat2[p], lon2[p]);
+    }
+
+    @Benchmark
+    public double basicScore() {
+        int p = next();
+        return BasicMatchScorer.score(basicA[p], basicB[p]);
+    }
+
+    @Benchmark
+    public EnhancedMatchScorer.ScoreWithReasons enhancedScore() {
+        int p = next();
+        return EnhancedMatchScorer.score(enhancedA[p], enhancedB[p], stats);
+    }
+
+    @Benchmark
+    public double enhancedScoreOnly() {
+        int p = next();
+        return EnhancedMatchScorer.scoreOnly(enhancedA[p], enhancedB[p], stats);
+    }
+}
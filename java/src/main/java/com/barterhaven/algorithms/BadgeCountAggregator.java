@@ -14,10 +14,18 @@ public final class BadgeCountAggregator {
         return unreadNotifications + unreadMessages;
     }
 
+    /** O(1) variant over counters maintained by the notification and message stores. */
+    public static int count(String userId, UnreadCounter notifications, UnreadCounter messages) {
+        return Math.toIntExact(notifications.get(userId) + messages.get(userId));
+    }
+
     public static void main(String[] args) {
         List<Notification> notifs = Arrays.asList(new Notification(false), new Notification(true));
         List<Message> msgs = Arrays.asList(new Message("u1", false, false), new Message("u1", true, false));
         System.out.println(count("u1", notifs, msgs));
+        UnreadCounter n = new UnreadCounter(), m = new UnreadCounter();
+        n.increment("u1"); m.increment("u1");
+        System.out.println(count("u1", n, m));
     }
 }
 
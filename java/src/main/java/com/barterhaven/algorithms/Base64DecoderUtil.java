@@ -1,20 +1,175 @@
 package com.barterhaven.algorithms;
 
-import java.util.Base64;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
 
+/**
+ * Decodes {@code data:image/<subtype>;base64,<payload>} URIs. The header is optional (a bare Base64 payload decodes as
+ * is) and is parsed by hand. The streaming overloads decode the payload in fixed-size chunks straight to the target,
+ * so memory use does not grow with the image; the decoded size is computed from the payload length and checked
+ * against {@code maxBytes} before anything is written.
+ */
 public final class Base64DecoderUtil {
+    private static final String PREFIX = "data:image/", MARKER = ";base64,";
+    private static final int CHUNK_CHARS = 16 * 1024; // multiple of 4, so only the last chunk can carry padding
+
+    public static final class DecodedImage {
+        public final String mimeType; public final long bytes;
+        public DecodedImage(String mimeType, long bytes) { this.mimeType = mimeType; this.bytes = bytes; }
+    }
+
+    private interface Sink { void write(byte[] buf, int len) throws IOException; }
+
     private Base64DecoderUtil() {}
 
     public static byte[] decodeImageDataUri(String dataUri) {
         if (dataUri == null) return new byte[0];
-        String base64 = dataUri.replaceFirst("^data:image/[a-zA-Z0-9.+-]+;base64,", "");
-        return Base64.getDecoder().decode(base64);
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE - 8, Math.max(0, decodedLength(dataUri, payloadStart(dataUri)))));
+        try {
+            decode(dataUri, Integer.MAX_VALUE - 8, (buf, len) -> out.write(buf, 0, len));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // ByteArrayOutputStream does not throw
+        }
+        return out.toByteArray();
     }
 
-    public static void main(String[] args) {
-        String data = "data:image/png;base64," + Base64.getEncoder().encodeToString("hello".getBytes());
-        System.out.println(decodeImageDataUri(data).length);
+    /** Decodes into {@code out}; throws IllegalArgumentException for malformed Base64 or a payload over {@code maxBytes}. */
+    public static DecodedImage decodeImageDataUri(CharSequence dataUri, OutputStream out, long maxBytes) throws IOException {
+        return decode(dataUri, maxBytes, (buf, len) -> out.write(buf, 0, len));
+    }
+
+    public static DecodedImage decodeImageDataUri(CharSequence dataUri, WritableByteChannel out, long maxBytes) throws IOException {
+        return decode(dataUri, maxBytes, (buf, len) -> {
+            ByteBuffer bb = ByteBuffer.wrap(buf, 0, len);
+            while (bb.hasRemaining()) out.write(bb);
+        });
+    }
+
+    /** Decodes into {@code file}, replacing it; a partially written file is deleted when decoding fails. */
+    public static DecodedImage decodeImageDataUri(CharSequence dataUri, Path file, long maxBytes) throws IOException {
+        checkSize(decodedLength(dataUri, payloadStart(dataUri)), maxBytes);
+        boolean ok = false;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DecodedImage img = decodeImageDataUri(dataUri, ch, maxBytes);
+            ok = true;
+            return img;
+        } finally {
+            if (!ok) Files.deleteIfExists(file);
+        }
+    }
+
+    /** {@code image/<subtype>} from the data-URI header, or null when there is none. */
+    public static String mimeType(CharSequence dataUri) {
+        int start = payloadStart(dataUri);
+        return start == 0 ? null : dataUri.subSequence(PREFIX.length() - "image/".length(), start - MARKER.length()).toString();
+    }
+
+    private static DecodedImage decode(CharSequence s, long maxBytes, Sink sink) throws IOException {
+        int start = payloadStart(s);
+        long expected = decodedLength(s, start);
+        checkSize(expected, maxBytes);
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] in = new byte[Math.min(CHUNK_CHARS, s.length() - start)];
+        byte[] out = new byte[in.length / 4 * 3 + 3];
+        long total = 0;
+        for (int from = start; from < s.length(); from += CHUNK_CHARS) {
+            int len = Math.min(CHUNK_CHARS, s.length() - from);
+            boolean last = from + len == s.length();
+            for (int i = 0; i < len; i++) {
+                char c = s.charAt(from + i);
+                if (c > 0x7f) throw new IllegalArgumentException("Illegal base64 character " + Integer.toString(c, 16));
+                in[i] = (byte) c;
+            }
+            // Padding ends the data, so it may only appear in the final chunk.
+            if (!last && in[len - 1] == '=') throw new IllegalArgumentException("Input byte array has incorrect ending byte at " + (from + len - start - 1));
+            int n = decoder.decode(len == in.length ? in : Arrays.copyOf(in, len), out);
+            total += n;
+            if (total > maxBytes) throw new IllegalArgumentException("decoded image exceeds " + maxBytes + " bytes");
+            sink.write(out, n);
+        }
+        return new DecodedImage(mimeType(s), total);
     }
-}
 
+    // Offset of the Base64 payload: just past a valid "data:image/<subtype>;base64," header, else 0.
+    private static int payloadStart(CharSequence s) {
+        if (!startsWith(s, 0, PREFIX)) return 0;
+        int i = PREFIX.length();
+        while (i < s.length() && isSubtypeChar(s.charAt(i))) i++;
+        if (i == PREFIX.length() || !startsWith(s, i, MARKER)) return 0;
+        return i + MARKER.length();
+    }
+
+    private static boolean isSubtypeChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '+' || c == '-';
+    }
+
+    private static boolean startsWith(CharSequence s, int at, String prefix) {
+        if (s.length() - at < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) if (s.charAt(at + i) != prefix.charAt(i)) return false;
+        return true;
+    }
+
+    // Upper bound on the decoded size implied by the payload length; exact for well-formed input.
+    private static long decodedLength(CharSequence s, int start) {
+        long n = s.length() - start;
+        int pad = 0;
+        for (int i = s.length() - 1; i >= start && pad < 2 && s.charAt(i) == '='; i--) pad++;
+        long quads = (n - pad) / 4, rem = (n - pad) % 4;
+        return quads * 3 + (rem == 0 ? 0 : rem - 1);
+    }
 
+    private static void checkSize(long decoded, long maxBytes) {
+        if (decoded > maxBytes) throw new IllegalArgumentException("decoded image would be " + decoded + " bytes, limit is " + maxBytes);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String data = "data:image/png;base64," + Base64.getEncoder().encodeToString("hello".getBytes());
+        System.out.println(decodeImageDataUri(data).length + " " + mimeType(data));
+
+        // Equivalence with the regex-and-decode implementation, including malformed input and chunk boundaries.
+        Random rnd = new Random(3);
+        String[] heads = {"data:image/png;base64,", "data:image/svg+xml;base64,", "data:image/;base64,", "data:text/plain;base64,", "", "data:image/jpeg;base64"};
+        int mismatches = 0;
+        for (int t = 0; t < 3_000; t++) {
+            byte[] raw = new byte[rnd.nextInt(4) == 0 ? rnd.nextInt(60_000) : rnd.nextInt(40)];
+            rnd.nextBytes(raw);
+            String body = Base64.getEncoder().encodeToString(raw);
+            switch (rnd.nextInt(6)) {
+                case 0: body = body.replace("=", ""); break;
+                case 1: if (!body.isEmpty()) body = body.substring(0, rnd.nextInt(body.length())); break;
+                case 2: if (!body.isEmpty()) { int at = rnd.nextInt(body.length()); body = body.substring(0, at) + "=!\u00e9".charAt(rnd.nextInt(3)) + body.substring(at); } break;
+                default:
+            }
+            String uri = heads[rnd.nextInt(heads.length)] + body;
+            String expected, actual;
+            try { expected = Arrays.toString(Base64.getDecoder().decode(uri.replaceFirst("^data:image/[a-zA-Z0-9.+-]+;base64,", ""))); }
+            catch (IllegalArgumentException e) { expected = "error"; }
+            try { actual = Arrays.toString(decodeImageDataUri(uri)); }
+            catch (IllegalArgumentException e) { actual = "error"; }
+            if (!expected.equals(actual)) mismatches++;
+        }
+        System.out.println("mismatches vs regex decoder: " + mismatches);
+
+        // A 40 MB image streamed to a file, and the same payload rejected before any output under a 10 MB limit.
+        byte[] big = new byte[40 << 20];
+        rnd.nextBytes(big);
+        StringBuilder uri = new StringBuilder("data:image/jpeg;base64,").append(Base64.getEncoder().encodeToString(big));
+        big = null;
+        Path file = Files.createTempFile("upload", ".jpg");
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = rt.totalMemory() - rt.freeMemory();
+        DecodedImage img = decodeImageDataUri(uri, file, 64L << 20);
+        long heapAfter = rt.totalMemory() - rt.freeMemory();
+        System.out.printf("streamed %s, %d bytes to file (%d bytes on disk), heap delta ~%d KB%n", img.mimeType, img.bytes, Files.size(file), (heapAfter - heapBefore) >> 10);
+        try {
+            decodeImageDataUri(uri, OutputStream.nullOutputStream(), 10L << 20);
+        } catch (IllegalArgumentException e) {
+            System.out.println("rejected: " + e.getMessage());
+        }
+        Files.delete(file);
+    }
+}
@@ -15,6 +15,8 @@ public final class BasicMatchScorer {
         public final Double estimatedValue;
         public final Double lat;
         public final Double lon;
+        public final int categoryId;
+        public final int[] tagIds;
 
         public Item(String id, String category, List<String> tags, Double estimatedValue, Double lat, Double lon) {
             this.id = id;
@@ -23,20 +25,19 @@ public final class BasicMatchScorer {
             this.estimatedValue = estimatedValue;
             this.lat = lat;
             this.lon = lon;
+            this.categoryId = TagDictionary.SHARED.idOf(category);
+            this.tagIds = TagDictionary.SHARED.sortedDistinctIds(this.tags);
         }
     }
 
     private BasicMatchScorer() {}
 
     public static double score(Item a, Item b) {
-        double categoryScore = (a.category != null && a.category.equals(b.category)) ? CATEGORY_WEIGHT : 0.0;
+        double categoryScore = (a.category != null && TagDictionary.sameTerm(a.categoryId, a.category, b.categoryId, b.category)) ? CATEGORY_WEIGHT : 0.0;
 
         double tagScore = 0.0;
         if (!a.tags.isEmpty() && !b.tags.isEmpty()) {
-            Set<String> setA = new HashSet<>(a.tags);
-            Set<String> setB = new HashSet<>(b.tags);
-            setA.retainAll(setB);
-            int intersection = setA.size();
+            int intersection = TagDictionary.sharedTerms(a.tagIds, a.tags, b.tagIds, b.tags);
             int denom = Math.max(a.tags.size(), b.tags.size());
             if (denom > 0) tagScore = (intersection / (double) denom) * TAG_WEIGHT;
         }
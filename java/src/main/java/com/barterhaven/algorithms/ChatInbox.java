@@ -0,0 +1,94 @@
+package com.barterhaven.algorithms;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * One user's chat list kept in {@link ChatUsersSorter} order (latest message first, never-messaged contacts last by
+ * name ignoring case, then contact id). A new message or rename repositions one contact in O(log n) and
+ * {@link #top} walks only the first N entries. Names are compared through collation keys computed on insert.
+ */
+public final class ChatInbox {
+    private static final class Entry {
+        final String id; final String nameOrEmail; final String nameKey; final Instant lastMessageAt;
+        Entry(String id, String nameOrEmail, Instant lastMessageAt) {
+            this.id = id; this.nameOrEmail = nameOrEmail; this.nameKey = ChatUsersSorter.collationKey(nameOrEmail); this.lastMessageAt = lastMessageAt;
+        }
+    }
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int c = ChatUsersSorter.compare(a.lastMessageAt, a.nameKey, b.lastMessageAt, b.nameKey);
+        return c != 0 ? c : a.id.compareTo(b.id);
+    };
+
+    private final NavigableSet<Entry> ordered = new TreeSet<>(ORDER);
+    private final Map<String, Entry> byId = new HashMap<>();
+
+    /** Adds the contact or updates its display name, keeping its last-message time. */
+    public synchronized void upsertContact(String contactId, String nameOrEmail) {
+        Entry old = byId.get(contactId);
+        if (old != null && Objects.equals(old.nameOrEmail, nameOrEmail)) return;
+        replace(old, new Entry(contactId, nameOrEmail, old == null ? null : old.lastMessageAt));
+    }
+
+    /** Records a message exchanged with the contact at {@code at}; an older timestamp than the stored one is ignored. */
+    public synchronized void onMessage(String contactId, String nameOrEmail, Instant at) {
+        Entry old = byId.get(contactId);
+        if (old != null && old.lastMessageAt != null && !at.isAfter(old.lastMessageAt)) return;
+        replace(old, new Entry(contactId, old == null ? nameOrEmail : old.nameOrEmail, at));
+    }
+
+    public synchronized void remove(String contactId) {
+        Entry old = byId.remove(contactId);
+        if (old != null) ordered.remove(old);
+    }
+
+    public synchronized int size() { return byId.size(); }
+
+    /** The first {@code n} contacts in chat-list order. */
+    public synchronized List<ChatUsersSorter.ChatUser> top(int n) {
+        List<ChatUsersSorter.ChatUser> out = new ArrayList<>(Math.min(n, ordered.size()));
+        for (Entry e : ordered) {
+            if (out.size() >= n) break;
+            out.add(new ChatUsersSorter.ChatUser(e.id, e.nameOrEmail, e.lastMessageAt));
+        }
+        return out;
+    }
+
+    private void replace(Entry old, Entry fresh) {
+        if (old != null) ordered.remove(old);
+        ordered.add(fresh);
+        byId.put(fresh.id, fresh);
+    }
+
+    public static void main(String[] args) {
+        // Equivalence: after random updates, top(all) must equal a full ChatUsersSorter.sort of the same contacts.
+        Random rnd = new Random(42);
+        String[] names = {"adam", "Adam", "bella", "Zoe", "zo\u00eb", "\u00c9MILE", "emile", "I\u00dfa", "isa", "x@mail.com"};
+        ChatInbox inbox = new ChatInbox();
+        Map<String, ChatUsersSorter.ChatUser> truth = new HashMap<>();
+        Instant t0 = Instant.parse("2024-01-01T00:00:00Z");
+        int mismatches = 0;
+        for (int step = 0; step < 20_000; step++) {
+            String id = "c" + rnd.nextInt(300);
+            String name = names[rnd.nextInt(names.length)] + rnd.nextInt(3);
+            ChatUsersSorter.ChatUser cur = truth.get(id);
+            if (rnd.nextInt(4) == 0) {
+                inbox.upsertContact(id, name);
+                truth.put(id, new ChatUsersSorter.ChatUser(id, name, cur == null ? null : cur.lastMessageAt));
+            } else {
+                Instant at = t0.plusSeconds(rnd.nextInt(5_000));
+                inbox.onMessage(id, name, at);
+                Instant last = cur == null || cur.lastMessageAt == null || at.isAfter(cur.lastMessageAt) ? at : cur.lastMessageAt;
+                truth.put(id, new ChatUsersSorter.ChatUser(id, cur == null ? name : cur.nameOrEmail, last));
+            }
+            if (step % 1_000 == 0) {
+                List<ChatUsersSorter.ChatUser> expected = new ArrayList<>(truth.values());
+                expected.sort(Comparator.comparing((ChatUsersSorter.ChatUser u) -> u.id));
+                ChatUsersSorter.sort(expected);
+                List<ChatUsersSorter.ChatUser> got = inbox.top(Integer.MAX_VALUE);
+                for (int i = 0; i < expected.size(); i++) if (!expected.get(i).id.equals(got.get(i).id)) mismatches++;
+            }
+        }
+        System.out.println("contacts=" + inbox.size() + " mismatches=" + mismatches + " top3=" + inbox.top(3).stream().map(u -> u.nameOrEmail).toList());
+    }
+}
@@ -11,13 +11,33 @@ public final class ChatUsersSorter {
 
     private ChatUsersSorter() {}
 
+    /** Most recent conversation first, never-messaged contacts last, then by name ignoring case; stable. */
     public static void sort(List<ChatUser> users) {
-        users.sort((a, b) -> {
-            if (a.lastMessageAt != null && b.lastMessageAt == null) return -1;
-            if (a.lastMessageAt == null && b.lastMessageAt != null) return 1;
-            if (a.lastMessageAt != null && b.lastMessageAt != null) return b.lastMessageAt.compareTo(a.lastMessageAt);
-            return a.nameOrEmail.compareToIgnoreCase(b.nameOrEmail);
-        });
+        int n = users.size();
+        ChatUser[] byPos = users.toArray(new ChatUser[0]);
+        String[] keys = new String[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) { keys[i] = collationKey(byPos[i].nameOrEmail); order[i] = i; }
+        Arrays.sort(order, (x, y) -> compare(byPos[x].lastMessageAt, keys[x], byPos[y].lastMessageAt, keys[y]));
+        for (int i = 0; i < n; i++) users.set(i, byPos[order[i]]);
+    }
+
+    static int compare(Instant aAt, String aKey, Instant bAt, String bKey) {
+        if (aAt != null && bAt == null) return -1;
+        if (aAt == null && bAt != null) return 1;
+        if (aAt != null) return bAt.compareTo(aAt);
+        return aKey.compareTo(bKey);
+    }
+
+    /**
+     * Case-folded form of {@code name} whose plain {@link String#compareTo} order equals
+     * {@link String#compareToIgnoreCase} on the originals for BMP text, so it can be computed once per name. Null sorts as "".
+     */
+    public static String collationKey(String name) {
+        if (name == null) return "";
+        char[] out = name.toCharArray();
+        for (int i = 0; i < out.length; i++) out[i] = Character.toLowerCase(Character.toUpperCase(out[i]));
+        return new String(out);
     }
 
     public static void main(String[] args) {
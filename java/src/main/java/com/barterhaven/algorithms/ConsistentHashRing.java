@@ -0,0 +1,86 @@
+package com.barterhaven.algorithms;
+
+import java.util.*;
+
+/**
+ * Consistent-hash ring over named nodes, each placed at {@code virtualNodes} points hashed with
+ * {@link SimpleHash#hash64}. A key belongs to the first point at or after its hash, so adding one node to n moves
+ * only about 1/(n+1) of the keys, all of them to the new node. Lookups read an immutable sorted snapshot and never
+ * block; membership changes copy it.
+ */
+public final class ConsistentHashRing<T> {
+    private static final class Snapshot<T> {
+        final long[] points; final List<T> owners; final Map<String, T> nodes;
+        Snapshot(long[] points, List<T> owners, Map<String, T> nodes) { this.points = points; this.owners = owners; this.nodes = nodes; }
+    }
+
+    private final int virtualNodes;
+    private volatile Snapshot<T> ring = new Snapshot<>(new long[0], List.of(), Map.of());
+
+    public ConsistentHashRing() { this(160); }
+
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes <= 0) throw new IllegalArgumentException("virtualNodes must be > 0: " + virtualNodes);
+        this.virtualNodes = virtualNodes;
+    }
+
+    public synchronized void add(String name, T node) {
+        Map<String, T> nodes = new LinkedHashMap<>(ring.nodes);
+        if (nodes.containsKey(name)) throw new IllegalArgumentException("node already on the ring: " + name);
+        nodes.put(name, node);
+        rebuild(nodes);
+    }
+
+    public synchronized void remove(String name) {
+        Map<String, T> nodes = new LinkedHashMap<>(ring.nodes);
+        if (nodes.remove(name) != null) rebuild(nodes);
+    }
+
+    /** The node owning {@code key}. */
+    public T route(CharSequence key) {
+        Snapshot<T> r = ring;
+        if (r.points.length == 0) throw new IllegalStateException("no nodes on the ring");
+        int i = Arrays.binarySearch(r.points, SimpleHash.hash64(key));
+        if (i < 0) i = -i - 1;
+        return r.owners.get(i == r.points.length ? 0 : i);
+    }
+
+    /** All nodes in insertion order, for queries that fan out. */
+    public Collection<T> nodes() { return ring.nodes.values(); }
+
+    public int size() { return ring.nodes.size(); }
+
+    private void rebuild(Map<String, T> nodes) {
+        int n = nodes.size() * virtualNodes;
+        long[] hashes = new long[n];
+        List<T> byIndex = new ArrayList<>(n);
+        int k = 0;
+        for (Map.Entry<String, T> e : nodes.entrySet()) {
+            for (int v = 0; v < virtualNodes; v++) { hashes[k++] = SimpleHash.hash64(e.getKey() + '#' + v); byIndex.add(e.getValue()); }
+        }
+        Integer[] idx = new Integer[n];
+        for (int i = 0; i < n; i++) idx[i] = i;
+        Arrays.sort(idx, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        long[] points = new long[n];
+        List<T> owners = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) { points[i] = hashes[idx[i]]; owners.add(byIndex.get(idx[i])); }
+        ring = new Snapshot<>(points, Collections.unmodifiableList(owners), Collections.unmodifiableMap(nodes));
+    }
+
+    public static void main(String[] args) {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>();
+        for (int s = 0; s < 4; s++) ring.add("shard-" + s, "shard-" + s);
+        int keys = 100_000;
+        String[] before = new String[keys];
+        Map<String, Integer> load = new TreeMap<>();
+        for (int i = 0; i < keys; i++) { before[i] = ring.route("user-" + i); load.merge(before[i], 1, Integer::sum); }
+        ring.add("shard-4", "shard-4");
+        int moved = 0, movedElsewhere = 0;
+        for (int i = 0; i < keys; i++) {
+            String now = ring.route("user-" + i);
+            if (!now.equals(before[i])) { moved++; if (!now.equals("shard-4")) movedElsewhere++; }
+        }
+        System.out.println("load over 4 shards: " + load);
+        System.out.printf("adding a 5th shard moved %.1f%% of keys (ideal 20%%), %d to an old shard%n", 100.0 * moved / keys, movedElsewhere);
+    }
+}
@@ -4,7 +4,22 @@ import java.time.*;
 import java.util.*;
 
 public final class EnhancedMatchScorer {
+    /** Largest contribution of the owner's review rating. */
+    public static final double MAX_REPUTATION_TERM = 0.05;
+    /** Largest contribution of distance, earned within 5 km; nothing is earned beyond 100 km. */
+    public static final double MAX_LOCATION_TERM = 0.10;
+    /** Largest contribution of estimated value, earned at equal values. */
+    public static final double MAX_VALUE_TERM = 0.15;
+    /** Contribution of equal conditions; comparable ones earn half. */
+    public static final double MAX_CONDITION_TERM = 0.10;
+    private static final double COMPARABLE_CONDITION_TERM = 0.05;
+    private static final double CATEGORY_TERM = 0.25, MAX_TAG_TERM = 0.15, MAX_POPULARITY_TERM = 0.10, AGE_TERM = 0.05, PREFERENCE_TERM = 0.05;
+    // Location term by distance band (see locationBand), nearest first.
+    private static final double[] LOCATION_TERMS = {MAX_LOCATION_TERM, 0.07, 0.05, 0.02};
+    private static final String[] LOCATION_REASONS = {"Items are very close (within 5km)", "Items are nearby (within 20km)", "Items are in the same region", "Items are within 100km"};
+
     public enum Condition { NEW, LIKE_NEW, GOOD, FAIR, POOR }
+    private static final Condition[] CONDITIONS = Condition.values();
 
     public static final class Item {
         public final String id;
@@ -16,12 +31,22 @@ public final class EnhancedMatchScorer {
         public final Condition condition;
         public final Integer popularityScore;
         public final Instant createdAt;
+        public final int categoryId;
+        public final int[] tagIds;
+        /** Mean review rating (1-5) of the item's owner, or null when unrated. */
+        public final Double ownerRating;
 
         public Item(String id, String category, List<String> tags, Double estimatedValue, Double lat, Double lon,
                     Condition condition, Integer popularityScore, Instant createdAt) {
-            this.id = id; this.category = category; this.tags = tags == null ? List.of() : List.copyOf(tags);
+            this(id, category, tags, estimatedValue, lat, lon, condition, popularityScore, createdAt, null);
+        }
+
+        public Item(String id, String category, List<String> tags, Double estimatedValue, Double lat, Double lon,
+                    Condition condition, Integer popularityScore, Instant createdAt, Double ownerRating) {
+            this.id = id; this.ownerRating = ownerRating; this.category = category; this.tags = tags == null ? List.of() : List.copyOf(tags);
             this.estimatedValue = estimatedValue; this.lat = lat; this.lon = lon;
             this.condition = condition; this.popularityScore = popularityScore; this.createdAt = createdAt;
+            this.categoryId = TagDictionary.SHARED.idOf(category); this.tagIds = TagDictionary.SHARED.sortedDistinctIds(this.tags);
         }
     }
 
@@ -39,64 +64,169 @@ public final class EnhancedMatchScorer {
 
     private EnhancedMatchScorer() {}
 
-    public static ScoreWithReasons score(Item a, Item b, UserTradeStats statsOrNull) {
-        double total = 0.0; Map<String, String> reasons = new LinkedHashMap<>();
+    public static ScoreWithReasons score(Item a, Item b, UserTradeStats statsOrNull) { return explain(a, b, statsOrNull); }
+
+    /** The score {@link #explain} reports, without building reasons or any temporary collections. */
+    public static double scoreOnly(Item a, Item b, UserTradeStats statsOrNull) { return total(a, b, statsOrNull, true); }
+
+    /**
+     * Upper bound of {@link #scoreOnly} that skips the Haversine call by crediting the full location term whenever
+     * both items have coordinates; every other term is exact.
+     */
+    public static double upperBound(Item a, Item b, UserTradeStats statsOrNull) { return total(a, b, statsOrNull, false); }
+
+    /**
+     * {@link #scoreOnly} for a caller that already has the distance, e.g. from a batch
+     * {@link HaversineDistanceCalculator#distancesKm} call; {@code km} is NaN unless both items have coordinates.
+     */
+    public static double scoreOnly(Item a, Item b, double km, UserTradeStats statsOrNull) {
+        return scoreColumns(a, sameCategory(a, b), sharedTags(a, b), b.tags.size(), b.estimatedValue != null ? b.estimatedValue : Double.NaN, km,
+                b.condition != null ? b.condition.ordinal() : -1, b.popularityScore != null ? b.popularityScore : 0,
+                b.createdAt != null ? b.createdAt.getEpochSecond() : Long.MIN_VALUE, b.createdAt != null ? b.createdAt.getNano() : 0,
+                preferred(b, statsOrNull), b.ownerRating != null ? b.ownerRating : Double.NaN);
+    }
 
-        if (Objects.equals(a.category, b.category)) { total += 0.25; reasons.put("category", "Items are in the same category"); }
+    private static double total(Item a, Item b, UserTradeStats statsOrNull, boolean exactLocation) {
+        boolean located = a.lat != null && a.lon != null && b.lat != null && b.lon != null;
+        double km = !located ? Double.NaN : exactLocation ? HaversineDistanceCalculator.distanceKm(a.lat, a.lon, b.lat, b.lon) : 0.0;
+        return scoreOnly(a, b, km, statsOrNull);
+    }
 
-        double tagScore = 0.0;
-        if (!a.tags.isEmpty() && !b.tags.isEmpty()) {
-            Set<String> A = new HashSet<>(a.tags), B = new HashSet<>(b.tags);
-            A.retainAll(B);
-            int denom = Math.max(a.tags.size(), b.tags.size());
-            if (denom > 0) tagScore = (A.size() / (double) denom) * 0.15;
-            if (tagScore > 0.0) reasons.put("tags", "Items share " + Math.round((tagScore / 0.15) * 100) + "% of tags");
-        }
-        total += tagScore;
+    /**
+     * {@link #scoreOnly} against a candidate given as raw column values instead of an {@link Item}; every other
+     * scoring method sums its terms here. The caller resolves the id-based terms: whether the categories match, how
+     * many distinct tags are shared, and whether the candidate's category is preferred. Absent values are NaN
+     * ({@code value}, {@code km}, the rating), -1 (condition ordinal) or {@link Long#MIN_VALUE} (createdAt epoch
+     * second); {@code km} is NaN unless both items have coordinates.
+     */
+    public static double scoreColumns(Item a, boolean sameCategory, int sharedTags, int bTagCount, double bValue, double km,
+                                      int bCondition, int bPopularity, long bCreatedSecond, int bCreatedNano, boolean bPreferred, double bOwnerRating) {
+        double total = 0.0;
+        if (sameCategory) total += CATEGORY_TERM;
+        total += tagTerm(sharedTags, a.tags.size(), bTagCount);
+        total += valueTerm(a, bValue);
+        total += locationTerm(km);
+        total += conditionTerm(a.condition != null ? a.condition.ordinal() : -1, bCondition);
+        total += popularityTerm(a, bPopularity);
+        if (sameAge(a, bCreatedSecond, bCreatedNano)) total += AGE_TERM;
+        if (bPreferred) total += PREFERENCE_TERM;
+        if (!Double.isNaN(bOwnerRating)) total += reputationTerm(bOwnerRating);
+        return total;
+    }
 
-        if (a.estimatedValue != null && b.estimatedValue != null && a.estimatedValue > 0 && b.estimatedValue > 0) {
-            double diff = Math.abs(a.estimatedValue - b.estimatedValue);
-            double maxV = Math.max(a.estimatedValue, b.estimatedValue);
-            double v = (1.0 - (diff / maxV)) * 0.15; total += v;
-            if (v > 0.10) reasons.put("value", "Items have similar estimated values");
-        }
+    /** {@link #scoreOnly} with a reason for every term worth mentioning; the total is the same sum. */
+    public static ScoreWithReasons explain(Item a, Item b, UserTradeStats statsOrNull) {
+        Map<String, String> reasons = new LinkedHashMap<>();
+
+        if (sameCategory(a, b)) reasons.put("category", "Items are in the same category");
+
+        double tagScore = tagTerm(sharedTags(a, b), a.tags.size(), b.tags.size());
+        if (tagScore > 0.0) reasons.put("tags", "Items share " + Math.round((tagScore / MAX_TAG_TERM) * 100) + "% of tags");
+
+        if (valueTerm(a, b.estimatedValue != null ? b.estimatedValue : Double.NaN) > 0.10) reasons.put("value", "Items have similar estimated values");
 
         if (a.lat != null && a.lon != null && b.lat != null && b.lon != null) {
-            double km = HaversineDistanceCalculator.distanceKm(a.lat, a.lon, b.lat, b.lon);
-            double loc = 0.0; String desc = null;
-            if (km <= 5) { loc = 0.10; desc = "Items are very close (within 5km)"; }
-            else if (km <= 20) { loc = 0.07; desc = "Items are nearby (within 20km)"; }
-            else if (km <= 50) { loc = 0.05; desc = "Items are in the same region"; }
-            else if (km <= 100) { loc = 0.02; desc = "Items are within 100km"; }
-            total += loc; if (desc != null) reasons.put("location", desc);
+            int band = locationBand(HaversineDistanceCalculator.distanceKm(a.lat, a.lon, b.lat, b.lon));
+            if (band >= 0) reasons.put("location", LOCATION_REASONS[band]);
         }
 
-        if (a.condition != null && b.condition != null) {
-            if (a.condition == b.condition) { total += 0.10; reasons.put("condition", "Items are in similar condition"); }
-            else if (isComparableCondition(a.condition, b.condition)) { total += 0.05; reasons.put("condition", "Items are in comparable condition"); }
-        }
+        double condition = conditionTerm(a.condition, b.condition);
+        if (condition == MAX_CONDITION_TERM) reasons.put("condition", "Items are in similar condition");
+        else if (condition > 0.0) reasons.put("condition", "Items are in comparable condition");
 
-        int popA = Optional.ofNullable(a.popularityScore).orElse(0);
-        int popB = Optional.ofNullable(b.popularityScore).orElse(0);
-        double pop = Math.min((popA + popB) / 100.0, 0.10); total += pop;
-        if (pop > 0.05) reasons.put("popularity", "Both items are popular");
+        if (popularityTerm(a, b.popularityScore != null ? b.popularityScore : 0) > 0.05) reasons.put("popularity", "Both items are popular");
 
-        if (a.createdAt != null && b.createdAt != null) {
-            long days = Math.abs(Duration.between(a.createdAt, b.createdAt).toDays());
-            if (days <= 30) { total += 0.05; reasons.put("age", "Items were listed around the same time"); }
-        }
+        if (b.createdAt != null && sameAge(a, b.createdAt.getEpochSecond(), b.createdAt.getNano())) reasons.put("age", "Items were listed around the same time");
 
-        if (statsOrNull != null && b.category != null && statsOrNull.categoryPreferences.containsKey(b.category)) {
-            total += 0.05; reasons.put("preference", "Matches your trading preferences");
-        }
+        if (preferred(b, statsOrNull)) reasons.put("preference", "Matches your trading preferences");
+
+        if (b.ownerRating != null && reputationTerm(b.ownerRating) >= 0.75 * MAX_REPUTATION_TERM) reasons.put("reputation", "Owner is highly rated");
+
+        return new ScoreWithReasons(scoreOnly(a, b, statsOrNull), reasons);
+    }
+
+    /**
+     * Highest score {@code a} can give a candidate sharing neither its category nor any tag, when candidates have
+     * popularity at most {@code maxPopularity} and a reputation term at most {@code maxReputationTerm}.
+     */
+    public static double unsharedBound(Item a, UserTradeStats statsOrNull, int maxPopularity, double maxReputationTerm) {
+        double ub = 0.0;
+        if (a.estimatedValue != null && a.estimatedValue > 0) ub += MAX_VALUE_TERM;
+        if (a.lat != null && a.lon != null) ub += MAX_LOCATION_TERM;
+        if (a.condition != null) ub += MAX_CONDITION_TERM;
+        int popA = a.popularityScore != null ? a.popularityScore : 0;
+        ub += Math.min((popA + (long) Math.max(maxPopularity, 0)) / 100.0, MAX_POPULARITY_TERM);
+        if (a.createdAt != null) ub += AGE_TERM;
+        if (statsOrNull != null && !statsOrNull.categoryPreferences.isEmpty()) ub += PREFERENCE_TERM;
+        return ub + maxReputationTerm;
+    }
+
+    private static double tagTerm(int shared, int aCount, int bCount) {
+        return aCount == 0 || bCount == 0 ? 0.0 : (shared / (double) Math.max(aCount, bCount)) * MAX_TAG_TERM;
+    }
+
+    // Zero unless both values are present and positive; NaN counts as absent.
+    private static double valueTerm(Item a, double bValue) {
+        if (a.estimatedValue == null || !(a.estimatedValue > 0) || !(bValue > 0)) return 0.0;
+        double diff = Math.abs(a.estimatedValue - bValue);
+        double maxV = Math.max(a.estimatedValue, bValue);
+        return (1.0 - (diff / maxV)) * MAX_VALUE_TERM;
+    }
+
+    // Index into LOCATION_TERMS for a distance, or -1 beyond the last band (and for NaN).
+    private static int locationBand(double km) {
+        return km <= 5 ? 0 : km <= 20 ? 1 : km <= 50 ? 2 : km <= 100 ? 3 : -1;
+    }
+
+    private static double locationTerm(double km) {
+        int band = locationBand(km);
+        return band < 0 ? 0.0 : LOCATION_TERMS[band];
+    }
+
+    private static double conditionTerm(int a, int b) {
+        if (a < 0 || b < 0) return 0.0;
+        return a == b ? MAX_CONDITION_TERM : isComparableCondition(CONDITIONS[a], CONDITIONS[b]) ? COMPARABLE_CONDITION_TERM : 0.0;
+    }
+
+    private static double popularityTerm(Item a, int bPopularity) {
+        int popA = a.popularityScore != null ? a.popularityScore : 0;
+        return Math.min((popA + bPopularity) / 100.0, MAX_POPULARITY_TERM);
+    }
 
-        return new ScoreWithReasons(total, reasons);
+    private static boolean sameAge(Item a, long bCreatedSecond, int bCreatedNano) {
+        return a.createdAt != null && bCreatedSecond != Long.MIN_VALUE
+                && Math.abs(daysBetween(a.createdAt.getEpochSecond(), a.createdAt.getNano(), bCreatedSecond, bCreatedNano)) <= 30;
+    }
+
+    private static boolean preferred(Item b, UserTradeStats statsOrNull) {
+        return statsOrNull != null && b.category != null && statsOrNull.categoryPreferences.containsKey(b.category);
+    }
+
+    /** Candidate-owner rating term: 0 at one star rising linearly to {@link #MAX_REPUTATION_TERM} at five. */
+    public static double reputationTerm(double rating) {
+        return Math.max(0.0, Math.min(1.0, (rating - 1.0) / 4.0)) * MAX_REPUTATION_TERM;
+    }
+
+    public static boolean sameCategory(Item a, Item b) { return TagDictionary.sameTerm(a.categoryId, a.category, b.categoryId, b.category); }
+
+    public static int sharedTags(Item a, Item b) { return TagDictionary.sharedTerms(a.tagIds, a.tags, b.tagIds, b.tags); }
+
+    /** Condition term: full for the same condition, half for comparable ones, nothing when either is absent. */
+    public static double conditionTerm(Condition a, Condition b) {
+        return conditionTerm(a != null ? a.ordinal() : -1, b != null ? b.ordinal() : -1);
     }
 
     private static boolean isComparableCondition(Condition a, Condition b) {
-        Set<Condition> high = EnumSet.of(Condition.NEW, Condition.LIKE_NEW);
-        Set<Condition> mid = EnumSet.of(Condition.GOOD, Condition.FAIR);
-        return (high.contains(a) && high.contains(b)) || (mid.contains(a) && mid.contains(b));
+        boolean highA = a == Condition.NEW || a == Condition.LIKE_NEW, highB = b == Condition.NEW || b == Condition.LIKE_NEW;
+        boolean midA = a == Condition.GOOD || a == Condition.FAIR, midB = b == Condition.GOOD || b == Condition.FAIR;
+        return (highA && highB) || (midA && midB);
+    }
+
+    // Duration.between(a, b).toDays() without the Duration.
+    private static long daysBetween(long aSecond, int aNano, long bSecond, int bNano) {
+        long secs = bSecond - aSecond;
+        if (bNano < aNano) secs--;
+        return secs / 86_400;
     }
 
     public static void main(String[] args) {
@@ -106,7 +236,8 @@ public final class EnhancedMatchScorer {
                 Condition.FAIR, 55, Instant.now().minus(Duration.ofDays(10)));
         UserTradeStats stats = new UserTradeStats();
         stats.categoryPreferences.put("Books", 3);
-        System.out.println(score(a, b, stats));
+        System.out.println(explain(a, b, stats));
+        System.out.println("scoreOnly equal: " + (scoreOnly(a, b, stats) == explain(a, b, stats).score));
     }
 }
 
@@ -0,0 +1,120 @@
+package com.barterhaven.algorithms;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Lat/lon grid over point ids. Radius queries only visit the cells overlapping the
+ * search circle's bounding box and run the exact Haversine check on their members.
+ * The default 0.2 degree cell (~22 km of latitude) keeps 5 km and 20 km queries within
+ * a 3x3 block and a 100 km query within roughly 11x11 cells at mid latitudes.
+ * Queries may run concurrently with updates; updates to the same id must be serialized by the caller. An id is only
+ * reported from the cell of its current position, so a concurrent move is seen at the old or the new place.
+ */
+public final class GeoGridIndex {
+    public static final double DEFAULT_CELL_DEG = 0.2;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double EPS_DEG = 1e-9;
+    private static final Metrics.Counter POINTS_SCANNED = Metrics.counter("geo.grid.points.scanned");
+
+    private final double cellDeg;
+    private final int latCells;
+    private final int lonCells;
+    private final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+    private final Map<String, double[]> positions = new ConcurrentHashMap<>();
+
+    public GeoGridIndex() { this(DEFAULT_CELL_DEG); }
+
+    public GeoGridIndex(double cellDeg) {
+        if (!(cellDeg > 0 && cellDeg <= 90)) throw new IllegalArgumentException("cellDeg must be in (0, 90]: " + cellDeg);
+        this.cellDeg = cellDeg;
+        this.latCells = (int) Math.ceil(180.0 / cellDeg);
+        this.lonCells = (int) Math.ceil(360.0 / cellDeg);
+    }
+
+    public void put(String id, double lat, double lon) {
+        long key = cellKey(lat, lon);
+        cells.compute(key, (k, ids) -> { if (ids == null) ids = ConcurrentHashMap.newKeySet(); ids.add(id); return ids; });
+        double[] old = positions.put(id, new double[]{lat, lon});
+        if (old != null) {
+            long oldKey = cellKey(old[0], old[1]);
+            if (oldKey != key) removeFromCell(oldKey, id);
+        }
+    }
+
+    public void remove(String id) {
+        double[] old = positions.remove(id);
+        if (old != null) removeFromCell(cellKey(old[0], old[1]), id);
+    }
+
+    public int size() { return positions.size(); }
+
+    public long cellKey(double lat, double lon) { return cellKey(latCell(lat), lonCell(lon)); }
+
+    /** Ids within {@code radiusKm} of the origin, using the same inclusive test as {@link HaversineDistanceCalculator#distanceKm}. */
+    public List<String> findWithin(double lat, double lon, double radiusKm) {
+        Set<String> out = new LinkedHashSet<>();
+        if (!(radiusKm >= 0) || positions.isEmpty()) return new ArrayList<>();
+
+        // Great-circle distance is never shorter than the meridian arc, so this latitude band is exact.
+        double dLatDeg = Math.toDegrees(radiusKm / EARTH_RADIUS_KM) + EPS_DEG;
+        double latLo = Math.max(-90.0, lat - dLatDeg), latHi = Math.min(90.0, lat + dLatDeg);
+        int lonFrom, lonSpan;
+        double angular = radiusKm / EARTH_RADIUS_KM;
+        double ratio = angular >= Math.PI / 2 ? 2.0 : Math.sin(angular) / Math.cos(Math.toRadians(lat));
+        if (latLo <= -90.0 || latHi >= 90.0 || !(ratio < 1.0)) {
+            lonFrom = 0; lonSpan = lonCells;
+        } else {
+            double dLonDeg = Math.toDegrees(Math.asin(ratio)) + EPS_DEG;
+            lonFrom = lonCell(lon - dLonDeg);
+            lonSpan = Math.min(lonCells, Math.floorMod(lonCell(lon + dLonDeg) - lonFrom, lonCells) + 1);
+        }
+
+        int scanned = 0;
+        for (int la = latCell(latLo), laEnd = latCell(latHi); la <= laEnd; la++) {
+            for (int i = 0; i < lonSpan; i++) {
+                long key = cellKey(la, (lonFrom + i) % lonCells);
+                Set<String> ids = cells.get(key);
+                if (ids == null) continue;
+                for (String id : ids) {
+                    scanned++;
+                    double[] p = positions.get(id);
+                    if (p == null || cellKey(p[0], p[1]) != key) continue;
+                    if (HaversineDistanceCalculator.distanceKm(lat, lon, p[0], p[1]) <= radiusKm) out.add(id);
+                }
+            }
+        }
+        POINTS_SCANNED.add(scanned);
+        return new ArrayList<>(out);
+    }
+
+    private int latCell(double lat) {
+        int c = (int) Math.floor((lat + 90.0) / cellDeg);
+        return Math.min(Math.max(c, 0), latCells - 1);
+    }
+
+    private int lonCell(double lon) {
+        double x = (lon + 180.0) % 360.0;
+        if (x < 0) x += 360.0;
+        if (x >= 360.0) x = 0.0;
+        return Math.min((int) Math.floor(x / cellDeg), lonCells - 1);
+    }
+
+    private static long cellKey(int latCell, int lonCell) { return ((long) latCell << 32) | (lonCell & 0xffffffffL); }
+
+    private void removeFromCell(long key, String id) {
+        cells.computeIfPresent(key, (k, ids) -> { ids.remove(id); return ids.isEmpty() ? null : ids; });
+    }
+
+    public static void main(String[] args) {
+        GeoGridIndex grid = new GeoGridIndex();
+        grid.put("A", 37.78, -122.43);
+        grid.put("B", 37.50, -122.00);
+        grid.put("C", 37.79, 179.99);
+        grid.put("D", 37.79, -179.99);
+        System.out.println(grid.findWithin(37.78, -122.43, 5.0));
+        System.out.println(grid.findWithin(37.79, 180.0, 5.0));
+        grid.put("B", 37.781, -122.431);
+        System.out.println(grid.findWithin(37.78, -122.43, 5.0).size());
+    }
+}
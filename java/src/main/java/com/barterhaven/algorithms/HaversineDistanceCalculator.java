@@ -1,7 +1,10 @@
 package com.barterhaven.algorithms;
 
+import java.util.*;
+
 public final class HaversineDistanceCalculator {
     private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double BOUNDARY_EPS = 1e-9;
 
     private HaversineDistanceCalculator() {}
 
@@ -15,6 +18,61 @@ public final class HaversineDistanceCalculator {
         return EARTH_RADIUS_KM * c;
     }
 
+    /**
+     * Distances from one origin to the first {@code n} points of the {@code lats}/{@code lons} columns,
+     * written into {@code out}. Bit-for-bit equal to {@link #distanceKm}; NaN coordinates yield NaN.
+     */
+    public static void distancesKm(double originLat, double originLon, double[] lats, double[] lons, int n, double[] out) {
+        double cosLat1 = Math.cos(Math.toRadians(originLat));
+        for (int i = 0; i < n; i++) {
+            out[i] = EARTH_RADIUS_KM * centralAngle(originLat, originLon, cosLat1, lats[i], lons[i]);
+        }
+    }
+
+    /**
+     * Sets bit {@code i} of {@code hits} when point {@code i} satisfies {@code distanceKm(...) <= radiusKm}, clearing
+     * the other bits of the first {@code n}, and returns the hit count. Points outside the latitude band are rejected
+     * without trigonometry, and the rest are decided on the haversine term alone unless they sit on the boundary.
+     */
+    public static int withinRadius(double originLat, double originLon, double[] lats, double[] lons, int n, double radiusKm, long[] hits) {
+        Arrays.fill(hits, 0, (n + 63) >>> 6, 0L);
+        if (!(radiusKm >= 0)) return 0;
+        double cosLat1 = Math.cos(Math.toRadians(originLat));
+        double maxDLatDeg = Math.toDegrees(radiusKm / EARTH_RADIUS_KM) + 1e-9;
+        double half = radiusKm / (2.0 * EARTH_RADIUS_KM);
+        boolean wholeSphere = half >= Math.PI / 2;
+        double aMax = Math.sin(half) * Math.sin(half);
+        double aAccept = aMax * (1.0 - BOUNDARY_EPS), aReject = aMax * (1.0 + BOUNDARY_EPS);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            double lat2 = lats[i], lon2 = lons[i];
+            if (!(Math.abs(lat2 - originLat) <= maxDLatDeg) || Double.isNaN(lon2)) continue;
+            boolean hit;
+            if (wholeSphere) hit = true;
+            else {
+                double a = haversineTerm(originLat, originLon, cosLat1, lat2, lon2);
+                if (a <= aAccept) hit = true;
+                else if (a >= aReject) hit = false;
+                else hit = EARTH_RADIUS_KM * (2.0 * Math.atan2(Math.sqrt(a), Math.sqrt(1.0 - a))) <= radiusKm;
+            }
+            if (hit) { hits[i >>> 6] |= 1L << i; count++; }
+        }
+        return count;
+    }
+
+    private static double haversineTerm(double lat1, double lon1, double cosLat1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        return Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                cosLat1 * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
+    }
+
+    private static double centralAngle(double lat1, double lon1, double cosLat1, double lat2, double lon2) {
+        double a = haversineTerm(lat1, lon1, cosLat1, lat2, lon2);
+        return 2.0 * Math.atan2(Math.sqrt(a), Math.sqrt(1.0 - a));
+    }
+
     public static void main(String[] args) {
         double km = distanceKm(37.78825, -122.4324, 37.7749, -122.4194);
         System.out.println("Distance km: " + km);
@@ -1,7 +1,6 @@
 package com.barterhaven.algorithms;
 
 import java.util.*;
-import java.util.stream.*;
 
 public final class ItemsWithinRadiusFilter {
     public static final class GeoItem {
@@ -12,10 +11,21 @@ public final class ItemsWithinRadiusFilter {
     private ItemsWithinRadiusFilter() {}
 
     public static List<GeoItem> filter(List<GeoItem> items, double userLat, double userLon, double radiusKm) {
-        return items.stream()
-                .filter(it -> it.lat != null && it.lon != null)
-                .filter(it -> HaversineDistanceCalculator.distanceKm(userLat, userLon, it.lat, it.lon) <= radiusKm)
-                .collect(Collectors.toList());
+        GeoItem[] arr = items.toArray(new GeoItem[0]);
+        int n = arr.length;
+        double[] lats = new double[n], lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            GeoItem it = arr[i];
+            boolean located = it.lat != null && it.lon != null;
+            lats[i] = located ? it.lat : Double.NaN; lons[i] = located ? it.lon : Double.NaN;
+        }
+        long[] hits = new long[(n + 63) >>> 6];
+        int count = HaversineDistanceCalculator.withinRadius(userLat, userLon, lats, lons, n, radiusKm, hits);
+        List<GeoItem> out = new ArrayList<>(count);
+        for (int w = 0; w < hits.length; w++) {
+            for (long bits = hits[w]; bits != 0; bits &= bits - 1) out.add(arr[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+        }
+        return out;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,121 @@
+package com.barterhaven.algorithms;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Lock-free histogram of non-negative long values (nanoseconds, in practice) over log-linear buckets: each power of
+ * two is split into 8 sub-buckets, so a reported quantile is within 12.5% of the true value across the whole long
+ * range with a fixed 488 buckets. Threads record into one of several bucket stripes picked by thread id, and
+ * {@link #snapshot} sums the stripes.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3, SUB = 1 << SUB_BITS;
+    static final int BUCKETS = (63 - SUB_BITS + 1) * SUB;
+
+    private final int stripeMask;
+    private final AtomicLongArray counts;
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() { this(Runtime.getRuntime().availableProcessors()); }
+
+    public LatencyHistogram(int stripes) {
+        int n = Integer.highestOneBit(Math.max(1, Math.min(64, stripes) * 2 - 1));
+        stripeMask = n - 1;
+        counts = new AtomicLongArray(n * BUCKETS);
+    }
+
+    public void record(long value) {
+        long v = Math.max(0, value);
+        int stripe = (int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 40) & stripeMask;
+        counts.incrementAndGet(stripe * BUCKETS + bucket(v));
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /** Clears all counts; values recorded concurrently land in either the old or the new interval. */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+        sum.reset();
+        max.reset();
+    }
+
+    public Snapshot snapshot() {
+        long[] merged = new long[BUCKETS];
+        for (int i = 0; i < counts.length(); i++) merged[i % BUCKETS] += counts.get(i);
+        return new Snapshot(merged, sum.sum(), max.get());
+    }
+
+    static int bucket(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        return (exp - SUB_BITS + 1) * SUB + (int) ((v >>> (exp - SUB_BITS)) & (SUB - 1));
+    }
+
+    // Largest value that falls into bucket b.
+    static long upperBound(int b) {
+        if (b < SUB) return b;
+        int exp = b / SUB + SUB_BITS - 1;
+        long lower = (long) (SUB + b % SUB) << (exp - SUB_BITS);
+        return lower + (1L << (exp - SUB_BITS)) - 1;
+    }
+
+    public static final class Snapshot {
+        public final long count, sum, max;
+        private final long[] buckets;
+        Snapshot(long[] buckets, long sum, long max) {
+            long c = 0;
+            for (long b : buckets) c += b;
+            this.buckets = buckets; this.count = c; this.sum = sum; this.max = max;
+        }
+        public double mean() { return count == 0 ? 0.0 : (double) sum / count; }
+        /** Upper edge of the bucket holding the q-quantile (0..1), capped at the largest recorded value; 0 when empty. */
+        public long quantile(double q) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(Math.min(1.0, Math.max(0.0, q)) * count)), seen = 0;
+            for (int b = 0; b < buckets.length; b++) {
+                seen += buckets[b];
+                if (seen >= rank) return Math.min(upperBound(b), max);
+            }
+            return max;
+        }
+        public long p50() { return quantile(0.50); }
+        public long p99() { return quantile(0.99); }
+        public long p999() { return quantile(0.999); }
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("count", count); m.put("mean", mean()); m.put("p50", p50()); m.put("p99", p99()); m.put("p999", p999()); m.put("max", max);
+            return m;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // Quantiles against exact ones over a skewed sample, recorded from several threads.
+        LatencyHistogram h = new LatencyHistogram();
+        int threads = 4, perThread = 250_000;
+        long[] all = new long[threads * perThread];
+        Random seed = new Random(1);
+        for (int i = 0; i < all.length; i++) all[i] = (long) Math.exp(6 + 2.5 * seed.nextGaussian());
+        Thread[] ts = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int from = t * perThread;
+            ts[t] = new Thread(() -> { for (int i = from; i < from + perThread; i++) h.record(all[i]); });
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        Arrays.sort(all);
+        Snapshot s = h.snapshot();
+        double worst = 0;
+        for (double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            long exact = all[(int) Math.ceil(q * all.length) - 1], approx = s.quantile(q);
+            worst = Math.max(worst, Math.abs(approx - exact) / (double) Math.max(1, exact));
+        }
+        System.out.println("count " + s.count + ", max " + s.max + " (exact " + all[all.length - 1] + "), worst quantile error " + String.format("%.3f", worst));
+        boolean monotone = true;
+        for (long v = 0, prev = -1; v < 1L << 40; v = v * 3 / 2 + 1) { int b = bucket(v); monotone &= b >= prev && upperBound(b) >= v; prev = b; }
+        System.out.println("bucket edges consistent: " + monotone + ", top bucket " + bucket(Long.MAX_VALUE) + " of " + BUCKETS);
+        h.reset();
+        System.out.println("after reset: " + h.snapshot().toMap());
+    }
+}
@@ -0,0 +1,100 @@
+package com.barterhaven.algorithms;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Process-wide named counters and latency timers for hot paths. Call sites look their handles up once and keep them
+ * in static fields; while metrics are disabled (the default, unless {@code -Dbarterhaven.metrics=true}) every
+ * handle call is a single volatile read. Counters are totals, so per-call figures are a counter divided by the
+ * matching timer's count.
+ *
+ * <p>Recorded by this code base:
+ * <ul>
+ *   <li>{@code matching.findPotentialMatches} timer, shared by the exhaustive and the indexed ranking;
+ *       {@code matching.candidates.returned}. Exhaustive: {@code matching.candidates.scanned}, {@code .qualified}
+ *       (reached minScore) and {@code .offered} (entered the running top-K). Indexed: {@code matching.index.visited}
+ *       (posting entries examined), {@code .pruned} (dropped by their upper bound) and {@code .scored}</li>
+ *   <li>{@code matching.cache.findMatches} timer; {@code matching.cache.hits}, {@code .misses}, {@code .evictions}
+ *       (size and age), {@code .checked} (entries examined on catalog changes) and {@code .invalidations}</li>
+ *   <li>{@code location.findItemsWithinRadius} timer; {@code location.items.scanned} (full scans) and
+ *       {@code geo.grid.points.scanned} (grid cell entries examined); {@code location.items.returned}</li>
+ *   <li>{@code chat.getMessages} and {@code chat.getMessagesPage} timers; {@code chat.messages.scanned} (messages
+ *       examined by repository conversation queries) and {@code chat.messages.returned}</li>
+ *   <li>{@code notifications.updateBadgeCount} timer; {@code notifications.scanned} (timeline entries walked by
+ *       page queries)</li>
+ *   <li>{@code trades.scanned} (trades examined by repository user queries)</li>
+ * </ul>
+ */
+public final class Metrics {
+    private static final long DISABLED = Long.MIN_VALUE;
+    private static volatile boolean enabled = Boolean.getBoolean("barterhaven.metrics");
+    private static final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    public static boolean enabled() { return enabled; }
+
+    public static void setEnabled(boolean on) { enabled = on; }
+
+    public static Counter counter(String name) { return counters.computeIfAbsent(name, k -> new Counter()); }
+
+    public static Timer timer(String name) { return timers.computeIfAbsent(name, k -> new Timer()); }
+
+    public static final class Counter {
+        private final LongAdder adder = new LongAdder();
+        private Counter() {}
+        public void increment() { if (enabled) adder.increment(); }
+        public void add(long n) { if (enabled) adder.add(n); }
+        public long sum() { return adder.sum(); }
+    }
+
+    /** {@code long t = timer.start(); ... timer.stop(t);} records the elapsed nanoseconds when metrics are enabled. */
+    public static final class Timer {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private Timer() {}
+        public long start() { return enabled ? System.nanoTime() : DISABLED; }
+        // A call that started while disabled is not recorded, even if metrics were switched on meanwhile.
+        public void stop(long start) { if (start != DISABLED && enabled) histogram.record(System.nanoTime() - start); }
+        public LatencyHistogram.Snapshot snapshot() { return histogram.snapshot(); }
+    }
+
+    public static final class Snapshot {
+        public final Map<String, Long> counters;
+        public final Map<String, LatencyHistogram.Snapshot> timers;
+        Snapshot(Map<String, Long> counters, Map<String, LatencyHistogram.Snapshot> timers) { this.counters = counters; this.timers = timers; }
+        /** Flat name-to-value map for exporters; timer fields are suffixed, e.g. {@code chat.getMessages.p99} (ns). */
+        public Map<String, Object> toMap() {
+            Map<String, Object> out = new TreeMap<>(this.counters);
+            timers.forEach((name, s) -> s.toMap().forEach((k, v) -> out.put(name + "." + k, v)));
+            return out;
+        }
+    }
+
+    public static Snapshot snapshot() { return snapshot(false); }
+
+    /** Current values, sorted by name; with {@code reset} every counter and timer starts over afterwards. */
+    public static Snapshot snapshot(boolean reset) {
+        Map<String, Long> c = new TreeMap<>();
+        counters.forEach((name, counter) -> c.put(name, reset ? counter.adder.sumThenReset() : counter.adder.sum()));
+        Map<String, LatencyHistogram.Snapshot> t = new TreeMap<>();
+        timers.forEach((name, timer) -> { t.put(name, timer.histogram.snapshot()); if (reset) timer.histogram.reset(); });
+        return new Snapshot(c, t);
+    }
+
+    public static void reset() { snapshot(true); }
+
+    public static void main(String[] args) {
+        Counter calls = counter("demo.calls");
+        Timer timer = timer("demo.work");
+        setEnabled(false);
+        for (int i = 0; i < 1_000; i++) { long t = timer.start(); calls.increment(); timer.stop(t); }
+        System.out.println("disabled: " + snapshot().toMap());
+        setEnabled(true);
+        for (int i = 0; i < 1_000; i++) { long t = timer.start(); calls.increment(); Thread.onSpinWait(); timer.stop(t); }
+        System.out.println("enabled: " + snapshot(true).toMap());
+        System.out.println("after reset: " + snapshot().toMap());
+    }
+}
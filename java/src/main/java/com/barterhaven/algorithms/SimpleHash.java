@@ -1,20 +1,37 @@
 package com.barterhaven.algorithms;
 
 public final class SimpleHash {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L, FNV_PRIME = 0x100000001b3L;
+
     private SimpleHash() {}
 
+    /** Non-negative 31-bit string hash ({@code h * 31 + c} over the chars, sign dropped). */
     public static int simpleHash(String input) {
         int hash = 0;
-        for (char ch : input.toCharArray()) {
-            hash = ((hash << 5) - hash) + ch;
-            hash = hash & hash; // force 32-bit
+        for (int i = 0; i < input.length(); i++) hash = ((hash << 5) - hash) + input.charAt(i);
+        return hash == Integer.MIN_VALUE ? 0 : Math.abs(hash);
+    }
+
+    /**
+     * 64-bit hash of the UTF-16 code units of {@code s}: FNV-1a over both bytes of each char followed by the
+     * MurmurHash3 finalizer, so short keys such as user ids spread over all 64 bits. Does not allocate.
+     */
+    public static long hash64(CharSequence s) {
+        long h = FNV_OFFSET;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            h = (h ^ (c & 0xff)) * FNV_PRIME;
+            h = (h ^ (c >>> 8)) * FNV_PRIME;
         }
-        return Math.abs(hash);
+        h ^= h >>> 33; h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33; h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
     }
 
     public static void main(String[] args) {
         System.out.println(simpleHash("123 Main St"));
+        System.out.println(Long.toHexString(hash64("123 Main St")));
+        // "polygenelubricants" hashes to Integer.MIN_VALUE, where Math.abs stays negative.
+        System.out.println(simpleHash("polygenelubricants"));
     }
 }
-
-
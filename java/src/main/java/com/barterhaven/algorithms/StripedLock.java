@@ -0,0 +1,33 @@
+package com.barterhaven.algorithms;
+
+/**
+ * Fixed pool of monitors selected by key hash, so writers to different keys rarely contend while all writes to one
+ * key are serialized. Use as {@code synchronized (locks.lockFor(id)) { ... }}.
+ */
+public final class StripedLock {
+    private final Object[] locks;
+    private final int mask;
+
+    public StripedLock() { this(64); }
+
+    public StripedLock(int minStripes) {
+        if (minStripes <= 0) throw new IllegalArgumentException("minStripes must be > 0: " + minStripes);
+        int n = Integer.highestOneBit(Math.max(1, minStripes - 1) << 1);
+        locks = new Object[n];
+        for (int i = 0; i < n; i++) locks[i] = new Object();
+        mask = n - 1;
+    }
+
+    public Object lockFor(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        h ^= (h >>> 16);
+        return locks[h & mask];
+    }
+
+    public int stripes() { return locks.length; }
+
+    public static void main(String[] args) {
+        StripedLock locks = new StripedLock(10);
+        System.out.println(locks.stripes() + " " + (locks.lockFor("a") == locks.lockFor("a")));
+    }
+}
@@ -0,0 +1,109 @@
+package com.barterhaven.algorithms;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Interns category and tag strings to dense int ids so scorers compare categories with {@code ==} and intersect
+ * tags as sorted {@code int[]}s instead of hashing strings per pair. Ids are stable for the life of the dictionary.
+ * A dictionary holds at most {@code maxTerms} terms; once full, new terms are left uninterned ({@link #UNINTERNED},
+ * or a {@code null} id array) and {@link #sameTerm}/{@link #sharedTerms} compare those by string, so results do not
+ * change, only the fast path is lost. {@link #SHARED} is capped by {@code -Dbarterhaven.tags.maxTerms} (default 2^20).
+ */
+public final class TagDictionary {
+    public static final int NONE = -1;
+    public static final int UNINTERNED = -2;
+    public static final TagDictionary SHARED = new TagDictionary(Integer.getInteger("barterhaven.tags.maxTerms", 1 << 20));
+    private static final int[] NO_IDS = new int[0];
+
+    private final int maxTerms;
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private int next;
+
+    public TagDictionary() { this(Integer.MAX_VALUE); }
+
+    public TagDictionary(int maxTerms) {
+        if (maxTerms < 0) throw new IllegalArgumentException("maxTerms must be >= 0: " + maxTerms);
+        this.maxTerms = maxTerms;
+    }
+
+    /** Id of {@code term}, interning it if there is room; {@link #UNINTERNED} when the dictionary is full. */
+    public int idOf(String term) {
+        if (term == null) return NONE;
+        Integer id = ids.get(term);
+        return id != null ? id : intern(term);
+    }
+
+    /** Id of an already interned term, or {@link #NONE}; never grows the dictionary. */
+    public int lookup(String term) {
+        if (term == null) return NONE;
+        Integer id = ids.get(term);
+        return id != null ? id : NONE;
+    }
+
+    public String name(int id) { return id < 0 ? null : names[id]; }
+
+    public int size() { return ids.size(); }
+
+    /** Sorted, duplicate-free ids of {@code terms}, or {@code null} when one of them could not be interned. */
+    public int[] sortedDistinctIds(List<String> terms) {
+        if (terms == null || terms.isEmpty()) return NO_IDS;
+        int[] out = new int[terms.size()];
+        for (int i = 0; i < out.length; i++) if ((out[i] = idOf(terms.get(i))) == UNINTERNED) return null;
+        Arrays.sort(out);
+        int n = 1;
+        for (int i = 1; i < out.length; i++) if (out[i] != out[n - 1]) out[n++] = out[i];
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /** Size of the intersection of two sorted, duplicate-free id arrays. */
+    public static int intersectionSize(int[] a, int[] b) {
+        int i = 0, j = 0, shared = 0;
+        while (i < a.length && j < b.length) {
+            int x = a[i], y = b[j];
+            if (x == y) { shared++; i++; j++; }
+            else if (x < y) i++;
+            else j++;
+        }
+        return shared;
+    }
+
+    /** Whether two terms with ids from the same dictionary are equal. */
+    public static boolean sameTerm(int aId, String a, int bId, String b) {
+        return aId == UNINTERNED || bId == UNINTERNED ? Objects.equals(a, b) : aId == bId;
+    }
+
+    /** Distinct terms two tag lists share, from their {@link #sortedDistinctIds} when both are interned. */
+    public static int sharedTerms(int[] aIds, List<String> a, int[] bIds, List<String> b) {
+        if (aIds != null && bIds != null) return intersectionSize(aIds, bIds);
+        Set<String> mine = new HashSet<>(a);
+        int shared = 0;
+        for (String t : new HashSet<>(b)) if (mine.contains(t)) shared++;
+        return shared;
+    }
+
+    private synchronized int intern(String term) {
+        Integer id = ids.get(term);
+        if (id != null) return id;
+        if (next >= maxTerms) return UNINTERNED;
+        int assigned = next++;
+        String[] cur = names;
+        if (assigned == cur.length) cur = Arrays.copyOf(cur, cur.length * 2);
+        cur[assigned] = term;
+        names = cur;
+        ids.put(term, assigned);
+        return assigned;
+    }
+
+    public static void main(String[] args) {
+        TagDictionary dict = new TagDictionary();
+        int[] a = dict.sortedDistinctIds(List.of("phone", "android", "phone"));
+        int[] b = dict.sortedDistinctIds(List.of("phone", "ios"));
+        System.out.println(Arrays.toString(a) + " " + Arrays.toString(b) + " shared=" + intersectionSize(a, b));
+        System.out.println(dict.idOf("phone") + " -> " + dict.name(dict.idOf("phone")));
+        TagDictionary small = new TagDictionary(1);
+        int[] c = small.sortedDistinctIds(List.of("phone", "ios")), d = small.sortedDistinctIds(List.of("phone"));
+        System.out.println("full: " + Arrays.toString(c) + " " + Arrays.toString(d) + " shared=" + sharedTerms(c, List.of("phone", "ios"), d, List.of("phone")));
+    }
+}
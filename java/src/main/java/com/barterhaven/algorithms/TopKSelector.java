@@ -0,0 +1,48 @@
+package com.barterhaven.algorithms;
+
+import java.util.*;
+
+/**
+ * Keeps the best {@code k} elements seen under {@code order} (best first) in a bounded heap whose head is the
+ * current worst survivor: O(log k) per offer, O(k) memory. Callers that need ties resolved like a stable sort
+ * must make {@code order} total, e.g. by ending it with the input position.
+ */
+public final class TopKSelector<T> {
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    public TopKSelector(int k, Comparator<? super T> order) {
+        if (k < 0) throw new IllegalArgumentException("k must be >= 0: " + k);
+        this.k = k; this.order = order;
+        this.heap = new PriorityQueue<>(Math.min(k, 1024) + 1, order.reversed());
+    }
+
+    public boolean offer(T t) {
+        if (heap.size() < k) { heap.add(t); return true; }
+        if (k == 0 || order.compare(t, heap.peek()) >= 0) return false;
+        heap.poll(); heap.add(t);
+        return true;
+    }
+
+    public void offerAll(TopKSelector<? extends T> other) { for (T t : other.heap) offer(t); }
+
+    public boolean isFull() { return heap.size() >= k; }
+
+    public int size() { return heap.size(); }
+
+    /** Worst element still kept, or {@code null} when empty. */
+    public T worst() { return heap.peek(); }
+
+    public List<T> toSortedList() {
+        List<T> out = new ArrayList<>(heap);
+        out.sort(order);
+        return out;
+    }
+
+    public static void main(String[] args) {
+        TopKSelector<Integer> top = new TopKSelector<>(3, Comparator.<Integer>reverseOrder());
+        for (int v : new int[]{5, 1, 9, 3, 7, 9, 2}) top.offer(v);
+        System.out.println(top.toSortedList());
+    }
+}
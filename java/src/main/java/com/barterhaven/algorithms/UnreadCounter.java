@@ -0,0 +1,56 @@
+package com.barterhaven.algorithms;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Per-user unread counts maintained by repositories on every read-state transition, so badge queries are O(1).
+ * {@link #drift} compares the counters with a full recount to catch transitions that bypassed the repository.
+ */
+public final class UnreadCounter {
+    private static final String NULL_USER = "\u0000";
+    private final ConcurrentHashMap<String, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    public void increment(String userId) { add(userId, 1); }
+
+    public void decrement(String userId) { add(userId, -1); }
+
+    public void add(String userId, long delta) {
+        if (delta != 0) counts.computeIfAbsent(key(userId), k -> new AtomicLong()).addAndGet(delta);
+    }
+
+    public long get(String userId) {
+        AtomicLong c = counts.get(key(userId));
+        return c == null ? 0 : c.get();
+    }
+
+    /** Users whose counter disagrees with {@code recounted}, mapped to {counter, recounted}. */
+    public Map<String, long[]> drift(Map<String, Long> recounted) {
+        Map<String, long[]> out = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        for (Map.Entry<String, AtomicLong> e : counts.entrySet()) {
+            String user = e.getKey().equals(NULL_USER) ? null : e.getKey();
+            long actual = recounted.getOrDefault(user, 0L), counted = e.getValue().get();
+            if (actual != counted) out.put(user, new long[]{counted, actual});
+        }
+        for (Map.Entry<String, Long> e : recounted.entrySet()) {
+            if (e.getValue() != 0 && !counts.containsKey(key(e.getKey()))) out.put(e.getKey(), new long[]{0, e.getValue()});
+        }
+        return out;
+    }
+
+    /** Replaces the counters with {@code recounted}, e.g. after {@link #drift} reported a mismatch. */
+    public void resetTo(Map<String, Long> recounted) {
+        counts.clear();
+        recounted.forEach(this::add);
+    }
+
+    private static String key(String userId) { return userId == null ? NULL_USER : userId; }
+
+    public static void main(String[] args) {
+        UnreadCounter c = new UnreadCounter();
+        c.increment("u1"); c.increment("u1"); c.decrement("u1"); c.increment("u2");
+        System.out.println(c.get("u1") + " " + c.get("u2") + " " + c.get("u3"));
+        c.drift(Map.of("u1", 1L, "u2", 3L)).forEach((u, d) -> System.out.println(u + " counter=" + d[0] + " actual=" + d[1]));
+    }
+}
@@ -1,14 +1,32 @@
 package com.barterhaven.operations;
 
+import com.barterhaven.algorithms.ChatInbox;
+import com.barterhaven.algorithms.ChatUsersSorter;
+import com.barterhaven.algorithms.Metrics;
+import com.barterhaven.algorithms.StripedLock;
+import com.barterhaven.algorithms.UnreadCounter;
+
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
 import java.util.stream.*;
 
 public final class ChatOperations {
     public static final class Message {
         public final String id; public final String senderId; public final String receiverId; public final String content; public String type; public String tradeId;
-        public final Instant createdAt = Instant.now(); public Instant readAt; public Instant deletedAt;
-        public Message(String id, String s, String r, String content) { this.id=id; this.senderId=s; this.receiverId=r; this.content=content; this.type="text"; }
+        public final Instant createdAt; public volatile Instant readAt; public volatile Instant deletedAt;
+        /** Position in send order, stamped by the repository on first save and kept by later saves of the same id; -1 until then. */
+        public long seq = -1;
+        public Message(String id, String s, String r, String content) { this(id, s, r, content, Instant.now()); }
+        public Message(String id, String s, String r, String content, Instant createdAt) { this.id=id; this.senderId=s; this.receiverId=r; this.content=content; this.type="text"; this.createdAt=createdAt; }
+    }
+    /** Keyset position in a conversation: a message's createdAt plus its send sequence to break ties, as in {@link #CONVERSATION_ORDER}. */
+    public static final class Cursor {
+        public final Instant createdAt; public final long seq;
+        public Cursor(Instant createdAt, long seq) { this.createdAt = createdAt; this.seq = seq; }
+        public static Cursor of(Message m) { return new Cursor(m.createdAt, m.seq); }
     }
     public interface MessageRepository {
         void save(Message m);
@@ -16,23 +34,308 @@ public final class ChatOperations {
         void markRead(List<String> ids);
         void softDelete(String messageId, String userId);
         long countUnread(String userId);
+        /** Up to {@code limit} newest messages strictly before {@code before} (null: the latest page), oldest first. */
+        default List<Message> findConversationBefore(String userA, String userB, Cursor before, int limit) {
+            List<Message> conv = findConversation(userA, userB);
+            int end = before == null ? conv.size() : position(conv, before);
+            return new ArrayList<>(conv.subList(Math.max(0, end - limit), end));
+        }
+        /** Up to {@code limit} oldest messages strictly after {@code after}, oldest first. */
+        default List<Message> findConversationAfter(String userA, String userB, Cursor after, int limit) {
+            List<Message> conv = findConversation(userA, userB);
+            int start = after == null ? 0 : position(conv, after);
+            if (after != null && start < conv.size() && compare(conv.get(start), after) == 0) start++;
+            return new ArrayList<>(conv.subList(start, Math.min(conv.size(), start + limit)));
+        }
+    }
+
+    /**
+     * Order of messages within a conversation: createdAt, then the repository's send sequence, so messages sent within
+     * one clock tick keep the order they were saved in and a cursor has one position even after its message is gone.
+     */
+    public static final Comparator<Message> CONVERSATION_ORDER = Comparator.<Message, Instant>comparing(m -> m.createdAt).thenComparingLong(m -> m.seq);
+
+    private static int compare(Message m, Cursor c) {
+        int cmp = m.createdAt.compareTo(c.createdAt);
+        return cmp != 0 ? cmp : Long.compare(m.seq, c.seq);
+    }
+
+    // Index of the first message of a CONVERSATION_ORDER list not ordered before the cursor: the cursor's message when present.
+    private static int position(List<Message> conv, Cursor c) {
+        int lo = 0, hi = conv.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(conv.get(mid), c) < 0) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    static String conversationKey(String a, String b) {
+        String x = String.valueOf(a), y = String.valueOf(b);
+        return x.compareTo(y) <= 0 ? x + '\u0000' + y : y + '\u0000' + x;
     }
     public static final class InMemoryMessageRepo implements MessageRepository {
         private final Map<String, Message> map = new LinkedHashMap<>();
-        public void save(Message m) { map.put(m.id, m); }
+        private final UnreadCounter unread = new UnreadCounter();
+        private long nextSeq;
+        public void save(Message m) {
+            Message old = map.get(m.id);
+            m.seq = old != null ? old.seq : nextSeq++;
+            uncount(unread, map.put(m.id, m)); count(unread, m);
+        }
         public List<Message> findConversation(String a, String b) {
+            MESSAGES_SCANNED.add(map.size());
             return map.values().stream()
                     .filter(m -> (Objects.equals(m.senderId,a) && Objects.equals(m.receiverId,b)) ||
                                  (Objects.equals(m.senderId,b) && Objects.equals(m.receiverId,a)))
                     .filter(m -> m.deletedAt == null)
-                    .sorted(Comparator.comparing(m -> m.createdAt))
+                    .sorted(CONVERSATION_ORDER)
                     .collect(Collectors.toList());
         }
-        public void markRead(List<String> ids) { ids.forEach(id -> Optional.ofNullable(map.get(id)).ifPresent(m -> m.readAt = Instant.now())); }
-        public void softDelete(String messageId, String userId) { Optional.ofNullable(map.get(messageId)).ifPresent(m -> m.deletedAt = Instant.now()); }
-        public long countUnread(String userId) { return map.values().stream().filter(m -> Objects.equals(m.receiverId,userId) && m.readAt==null && m.deletedAt==null).count(); }
+        public void markRead(List<String> ids) { ids.forEach(id -> Optional.ofNullable(map.get(id)).ifPresent(m -> { uncount(unread, m); m.readAt = Instant.now(); })); }
+        public void softDelete(String messageId, String userId) { Optional.ofNullable(map.get(messageId)).ifPresent(m -> { uncount(unread, m); m.deletedAt = Instant.now(); }); }
+        public long countUnread(String userId) { return unread.get(userId); }
+        public Map<String, long[]> checkUnreadConsistency() { return unread.drift(recountUnread(map.values())); }
+    }
+
+    /**
+     * Keeps each conversation (keyed by the canonical user pair) as a {@link #CONVERSATION_ORDER} list, appended to in
+     * the common case, so opening a chat or loading a page touches only that conversation. Soft-deleted messages stay
+     * in place and are skipped on read.
+     */
+    public static final class IndexedMessageRepo implements MessageRepository {
+        private final Map<String, Message> byId;
+        private final Map<String, List<Message>> conversations;
+        private final UnreadCounter unread = new UnreadCounter();
+        private long nextSeq;
+        public IndexedMessageRepo() { this(0, 0); }
+        /** Sized up front for a known load, such as a snapshot, so the maps never rehash while it streams in. */
+        public IndexedMessageRepo(int expectedMessages, int expectedConversations) {
+            byId = new HashMap<>(Math.max(16, (int) (expectedMessages / 0.75f) + 1));
+            conversations = new HashMap<>(Math.max(16, (int) (expectedConversations / 0.75f) + 1));
+        }
+        public void save(Message m) {
+            Message old = byId.get(m.id);
+            m.seq = old != null ? old.seq : nextSeq++;
+            byId.put(m.id, m);
+            uncount(unread, old); count(unread, m);
+            if (old != null) conversations.get(conversationKey(old.senderId, old.receiverId)).remove(old);
+            List<Message> conv = conversations.computeIfAbsent(conversationKey(m.senderId, m.receiverId), k -> new ArrayList<>());
+            int at = conv.size();
+            while (at > 0 && CONVERSATION_ORDER.compare(conv.get(at - 1), m) > 0) at--;
+            conv.add(at, m);
+        }
+        public List<Message> findConversation(String a, String b) {
+            List<Message> conv = conversations.getOrDefault(conversationKey(a, b), List.of());
+            MESSAGES_SCANNED.add(conv.size());
+            List<Message> out = new ArrayList<>(conv.size());
+            for (Message m : conv) if (m.deletedAt == null) out.add(m);
+            return out;
+        }
+        public List<Message> findConversationBefore(String a, String b, Cursor before, int limit) {
+            List<Message> conv = conversations.getOrDefault(conversationKey(a, b), List.of());
+            int end = (before == null ? conv.size() : position(conv, before)) - 1, i = end;
+            ArrayDeque<Message> page = new ArrayDeque<>(Math.min(limit, 64));
+            for (; i >= 0 && page.size() < limit; i--) if (conv.get(i).deletedAt == null) page.addFirst(conv.get(i));
+            MESSAGES_SCANNED.add(end - i);
+            return new ArrayList<>(page);
+        }
+        public List<Message> findConversationAfter(String a, String b, Cursor after, int limit) {
+            List<Message> conv = conversations.getOrDefault(conversationKey(a, b), List.of());
+            int i = after == null ? 0 : position(conv, after);
+            if (after != null && i < conv.size() && compare(conv.get(i), after) == 0) i++;
+            int start = i;
+            List<Message> page = new ArrayList<>(Math.min(limit, 64));
+            for (; i < conv.size() && page.size() < limit; i++) if (conv.get(i).deletedAt == null) page.add(conv.get(i));
+            MESSAGES_SCANNED.add(i - start);
+            return page;
+        }
+        public void markRead(List<String> ids) { ids.forEach(id -> Optional.ofNullable(byId.get(id)).ifPresent(m -> { uncount(unread, m); m.readAt = Instant.now(); })); }
+        public void softDelete(String messageId, String userId) { Optional.ofNullable(byId.get(messageId)).ifPresent(m -> { uncount(unread, m); m.deletedAt = Instant.now(); }); }
+        public long countUnread(String userId) { return unread.get(userId); }
+        public Map<String, long[]> checkUnreadConsistency() { return unread.drift(recountUnread(byId.values())); }
+        public Message findById(String id) { return byId.get(id); }
+        public int size() { return byId.size(); }
+        /** Every stored message, soft-deleted ones included, conversation by conversation in stored order. */
+        public void forEachMessage(Consumer<Message> action) { conversations.values().forEach(conv -> conv.forEach(action)); }
+        /** Every stored conversation in stored order; the lists are live, so copy them before releasing the repository. */
+        public void forEachConversation(Consumer<List<Message>> action) { conversations.values().forEach(action); }
+        /**
+         * Bulk load for recovery: stores one conversation whose messages are already in {@link #CONVERSATION_ORDER}
+         * and not yet stored, skipping the ordered insert {@link #save} does per message. Messages keep the sequence
+         * they carry, and later saves are numbered after the highest one loaded.
+         */
+        public void loadConversation(List<Message> ordered) {
+            if (ordered.isEmpty()) return;
+            Message first = ordered.get(0);
+            String key = conversationKey(first.senderId, first.receiverId);
+            if (conversations.containsKey(key)) throw new IllegalStateException("conversation already stored: " + key);
+            conversations.put(key, ordered);
+            for (Message m : ordered) {
+                if (byId.put(m.id, m) != null) throw new IllegalStateException("message already stored: " + m.id);
+                if (m.seq < 0) throw new IllegalStateException("message has no sequence: " + m.id);
+                nextSeq = Math.max(nextSeq, m.seq + 1);
+                count(unread, m);
+            }
+        }
+    }
+
+    /**
+     * Thread-safe repository: reads are lock-free over concurrent maps, writes to one message are serialized on a
+     * lock stripe, and a message moves to read or deleted at most once, so unread counters never lose or double an
+     * update. Conversations are skip lists in {@link #CONVERSATION_ORDER}.
+     */
+    public static final class ConcurrentMessageRepo implements MessageRepository {
+        private static final class Key implements Comparable<Key> {
+            final Instant createdAt; final long seq;
+            Key(Instant createdAt, long seq) { this.createdAt = createdAt; this.seq = seq; }
+            public int compareTo(Key o) { int c = createdAt.compareTo(o.createdAt); return c != 0 ? c : Long.compare(seq, o.seq); }
+        }
+        private final ConcurrentHashMap<String, Message> byId = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, ConcurrentSkipListMap<Key, Message>> conversations = new ConcurrentHashMap<>();
+        private final StripedLock locks = new StripedLock();
+        private final UnreadCounter unread = new UnreadCounter();
+        private final AtomicLong nextSeq = new AtomicLong();
+        public void save(Message m) {
+            synchronized (locks.lockFor(m.id)) {
+                Message old = byId.get(m.id);
+                m.seq = old != null ? old.seq : nextSeq.getAndIncrement();
+                String convKey = conversationKey(m.senderId, m.receiverId);
+                conversations.computeIfAbsent(convKey, k -> new ConcurrentSkipListMap<>()).put(new Key(m.createdAt, m.seq), m);
+                byId.put(m.id, m);
+                if (old != null) {
+                    // Same conversation and createdAt: the put above already replaced it under the same key.
+                    if (!convKey.equals(conversationKey(old.senderId, old.receiverId)) || !old.createdAt.equals(m.createdAt)) {
+                        conversation(old.senderId, old.receiverId).remove(new Key(old.createdAt, old.seq));
+                    }
+                    uncount(unread, old);
+                }
+                count(unread, m);
+            }
+        }
+        public List<Message> findConversation(String a, String b) {
+            List<Message> out = new ArrayList<>();
+            int scanned = 0;
+            for (Message m : conversation(a, b).values()) { scanned++; if (m.deletedAt == null) out.add(m); }
+            MESSAGES_SCANNED.add(scanned);
+            return out;
+        }
+        public List<Message> findConversationBefore(String a, String b, Cursor before, int limit) {
+            ConcurrentNavigableMap<Key, Message> conv = conversation(a, b);
+            if (before != null) conv = conv.headMap(new Key(before.createdAt, before.seq), false);
+            ArrayDeque<Message> page = new ArrayDeque<>(Math.min(limit, 64));
+            int scanned = 0;
+            for (Iterator<Message> it = conv.descendingMap().values().iterator(); it.hasNext() && page.size() < limit; scanned++) {
+                Message m = it.next();
+                if (m.deletedAt == null) page.addFirst(m);
+            }
+            MESSAGES_SCANNED.add(scanned);
+            return new ArrayList<>(page);
+        }
+        public List<Message> findConversationAfter(String a, String b, Cursor after, int limit) {
+            ConcurrentNavigableMap<Key, Message> conv = conversation(a, b);
+            if (after != null) conv = conv.tailMap(new Key(after.createdAt, after.seq), false);
+            List<Message> page = new ArrayList<>(Math.min(limit, 64));
+            int scanned = 0;
+            for (Iterator<Message> it = conv.values().iterator(); it.hasNext() && page.size() < limit; scanned++) {
+                Message m = it.next();
+                if (m.deletedAt == null) page.add(m);
+            }
+            MESSAGES_SCANNED.add(scanned);
+            return page;
+        }
+        public void markRead(List<String> ids) {
+            for (String id : ids) {
+                synchronized (locks.lockFor(id)) {
+                    Message m = byId.get(id);
+                    if (m == null || m.readAt != null) continue;
+                    uncount(unread, m);
+                    m.readAt = Instant.now();
+                }
+            }
+        }
+        public void softDelete(String messageId, String userId) {
+            synchronized (locks.lockFor(messageId)) {
+                Message m = byId.get(messageId);
+                if (m == null || m.deletedAt != null) return;
+                uncount(unread, m);
+                m.deletedAt = Instant.now();
+            }
+        }
+        public long countUnread(String userId) { return unread.get(userId); }
+        public Map<String, long[]> checkUnreadConsistency() { return unread.drift(recountUnread(byId.values())); }
+        /** Messages stored across all conversations, soft-deleted ones included. */
+        public int size() { int n = 0; for (ConcurrentSkipListMap<Key, Message> conv : conversations.values()) n += conv.size(); return n; }
+        private ConcurrentNavigableMap<Key, Message> conversation(String a, String b) {
+            ConcurrentSkipListMap<Key, Message> conv = conversations.get(conversationKey(a, b));
+            return conv != null ? conv : new ConcurrentSkipListMap<>();
+        }
+    }
+
+    /** Keeps a {@link MessageSearchIndex} in step with {@code delegate}: saved messages are indexed, soft-deleted ones tombstoned. */
+    public static final class SearchableMessageRepo implements MessageRepository {
+        private final MessageRepository delegate;
+        private final MessageSearchIndex index;
+        public SearchableMessageRepo(MessageRepository delegate, MessageSearchIndex index) { this.delegate = delegate; this.index = index; }
+        public MessageSearchIndex index() { return index; }
+        public void save(Message m) { delegate.save(m); index.index(m); }
+        public List<Message> findConversation(String a, String b) { return delegate.findConversation(a, b); }
+        public List<Message> findConversationBefore(String a, String b, Cursor before, int limit) { return delegate.findConversationBefore(a, b, before, limit); }
+        public List<Message> findConversationAfter(String a, String b, Cursor after, int limit) { return delegate.findConversationAfter(a, b, after, limit); }
+        public void markRead(List<String> ids) { delegate.markRead(ids); }
+        public void softDelete(String messageId, String userId) { delegate.softDelete(messageId, userId); index.remove(messageId); }
+        public long countUnread(String userId) { return delegate.countUnread(userId); }
+    }
+
+    /**
+     * Keeps {@link Inboxes} in step with {@code delegate}: every saved message moves the chat to the top of both users'
+     * lists, so the plain {@link ChatOperations#sendMessage(MessageRepository, String, String, String, String, String)}
+     * updates inboxes once the repo is wrapped.
+     */
+    public static final class InboxMessageRepo implements MessageRepository {
+        private final MessageRepository delegate;
+        private final Inboxes inboxes;
+        public InboxMessageRepo(MessageRepository delegate, Inboxes inboxes) { this.delegate = delegate; this.inboxes = inboxes; }
+        public Inboxes inboxes() { return inboxes; }
+        public void save(Message m) { delegate.save(m); inboxes.record(m); }
+        public List<Message> findConversation(String a, String b) { return delegate.findConversation(a, b); }
+        public List<Message> findConversationBefore(String a, String b, Cursor before, int limit) { return delegate.findConversationBefore(a, b, before, limit); }
+        public List<Message> findConversationAfter(String a, String b, Cursor after, int limit) { return delegate.findConversationAfter(a, b, after, limit); }
+        public void markRead(List<String> ids) { delegate.markRead(ids); }
+        public void softDelete(String messageId, String userId) { delegate.softDelete(messageId, userId); }
+        public long countUnread(String userId) { return delegate.countUnread(userId); }
+    }
+
+    /** Chat lists of all users, updated from sent messages; {@code displayName} maps a user id to its name or email. */
+    public static final class Inboxes {
+        private final ConcurrentHashMap<String, ChatInbox> byUser = new ConcurrentHashMap<>();
+        private final Function<String, String> displayName;
+        public Inboxes(Function<String, String> displayName) { this.displayName = displayName; }
+        public ChatInbox inboxOf(String userId) { return byUser.computeIfAbsent(userId, k -> new ChatInbox()); }
+        public void record(Message m) {
+            inboxOf(m.senderId).onMessage(m.receiverId, displayName.apply(m.receiverId), m.createdAt);
+            inboxOf(m.receiverId).onMessage(m.senderId, displayName.apply(m.senderId), m.createdAt);
+        }
+        public List<ChatUsersSorter.ChatUser> top(String userId, int n) {
+            ChatInbox inbox = byUser.get(userId);
+            return inbox == null ? List.of() : inbox.top(n);
+        }
+    }
+
+    private static boolean isUnread(Message m) { return m.readAt == null && m.deletedAt == null; }
+    private static void count(UnreadCounter c, Message m) { if (m != null && isUnread(m)) c.increment(m.receiverId); }
+    private static void uncount(UnreadCounter c, Message m) { if (m != null && isUnread(m)) c.decrement(m.receiverId); }
+    static Map<String, Long> recountUnread(Collection<Message> msgs) {
+        Map<String, Long> out = new HashMap<>();
+        for (Message m : msgs) if (isUnread(m)) out.merge(m.receiverId, 1L, Long::sum);
+        return out;
     }
 
+    private static final Metrics.Timer GET_MESSAGES_TIME = Metrics.timer("chat.getMessages");
+    private static final Metrics.Timer GET_PAGE_TIME = Metrics.timer("chat.getMessagesPage");
+    private static final Metrics.Counter MESSAGES_SCANNED = Metrics.counter("chat.messages.scanned");
+    private static final Metrics.Counter MESSAGES_RETURNED = Metrics.counter("chat.messages.returned");
+
     private ChatOperations() {}
 
     public static Message sendMessage(MessageRepository repo, String senderId, String receiverId, String content, String tradeId, String type) {
@@ -41,13 +344,42 @@ public final class ChatOperations {
         repo.save(m);
         return m;
     }
+    /** Sends through an {@link InboxMessageRepo} over {@code repo}; recording a message twice is harmless. */
+    public static Message sendMessage(MessageRepository repo, Inboxes inboxes, String senderId, String receiverId, String content, String tradeId, String type) {
+        return sendMessage(new InboxMessageRepo(repo, inboxes), senderId, receiverId, content, tradeId, type);
+    }
     public static List<Message> getMessages(MessageRepository repo, String user, String other) {
+        long t0 = GET_MESSAGES_TIME.start();
         List<Message> msgs = repo.findConversation(user, other);
-        List<String> unread = msgs.stream().filter(m -> Objects.equals(m.receiverId, user) && m.readAt == null).map(m -> m.id).collect(Collectors.toList());
-        if (!unread.isEmpty()) repo.markRead(unread);
+        markReceivedRead(repo, user, msgs);
+        MESSAGES_RETURNED.add(msgs.size());
+        GET_MESSAGES_TIME.stop(t0);
         return msgs;
     }
+    /** Latest page before {@code before} (null: newest), oldest first; pass {@code Cursor.of(page.get(0))} for the next older page. */
+    public static List<Message> getMessagesPage(MessageRepository repo, String user, String other, Cursor before, int limit) {
+        long t0 = GET_PAGE_TIME.start();
+        List<Message> page = repo.findConversationBefore(user, other, before, limit);
+        markReceivedRead(repo, user, page);
+        MESSAGES_RETURNED.add(page.size());
+        GET_PAGE_TIME.stop(t0);
+        return page;
+    }
+    private static void markReceivedRead(MessageRepository repo, String user, List<Message> msgs) {
+        List<String> unread = null;
+        for (Message m : msgs) {
+            if (Objects.equals(m.receiverId, user) && m.readAt == null) {
+                if (unread == null) unread = new ArrayList<>();
+                unread.add(m.id);
+            }
+        }
+        if (unread != null) repo.markRead(unread);
+    }
     public static long getUnreadCount(MessageRepository repo, String userId) { return repo.countUnread(userId); }
+    /** Ranked page of the user's messages containing every word of {@code query}; {@code otherUserId} limits it to one chat. */
+    public static List<MessageSearchIndex.Hit> searchMessages(SearchableMessageRepo repo, String userId, String query, String otherUserId, int limit, int offset) {
+        return repo.index().search(userId, query, otherUserId, limit, offset);
+    }
 
     public static void main(String[] args) {
         InMemoryMessageRepo repo = new InMemoryMessageRepo();
@@ -55,6 +387,26 @@ public final class ChatOperations {
         System.out.println(getUnreadCount(repo, "u2"));
         List<Message> conv = getMessages(repo, "u2", "u1");
         System.out.println("Conv size " + conv.size() + " unread after get: " + getUnreadCount(repo, "u2"));
+
+        Inboxes inboxes = new Inboxes(id -> "User " + id);
+        InboxMessageRepo withInboxes = new InboxMessageRepo(repo, inboxes);
+        sendMessage(withInboxes, "u1", "u2", "Hi", null, null);
+        sendMessage(withInboxes, "u3", "u1", "Offer?", null, null);
+        inboxes.inboxOf("u1").upsertContact("u4", "user u4");
+        System.out.println("u1 chat list: " + inboxes.top("u1", 10).stream().map(u -> u.id).collect(Collectors.toList()));
+
+        IndexedMessageRepo indexed = new IndexedMessageRepo();
+        for (int i = 0; i < 25; i++) sendMessage(indexed, i % 2 == 0 ? "u1" : "u2", i % 2 == 0 ? "u2" : "u1", "msg " + i, null, "text");
+        sendMessage(indexed, "u3", "u1", "other chat", null, "text");
+        List<Message> page = getMessagesPage(indexed, "u1", "u2", null, 10);
+        int pages = 1, total = page.size();
+        while (!page.isEmpty()) {
+            page = getMessagesPage(indexed, "u1", "u2", Cursor.of(page.get(0)), 10);
+            if (!page.isEmpty()) { pages++; total += page.size(); }
+        }
+        System.out.println("Paged " + total + " messages in " + pages + " pages, unread for u1: " + getUnreadCount(indexed, "u1"));
+        indexed.findConversation("u1", "u3").get(0).readAt = Instant.now(); // bypasses the repo
+        indexed.checkUnreadConsistency().forEach((u, d) -> System.out.println("Drift for " + u + ": counter=" + d[0] + " actual=" + d[1]));
     }
 }
 
@@ -0,0 +1,506 @@
+package com.barterhaven.operations;
+
+import com.barterhaven.algorithms.EnhancedMatchScorer;
+import com.barterhaven.algorithms.HaversineDistanceCalculator;
+import com.barterhaven.algorithms.TagDictionary;
+import com.barterhaven.algorithms.TopKSelector;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Item catalog kept off-heap in memory-mapped column files, one per attribute, so a multi-million-item catalog opens
+ * in milliseconds and adds almost nothing to the heap. Fixed-width columns are indexed by row: coordinates, value and
+ * owner rating as doubles (NaN for null), createdAt as epoch second plus nanos, condition ordinal, popularity, and
+ * category and tag ids from a dictionary stored with the catalog. Tags sit in one int column as the item's tag list
+ * followed by its sorted distinct ids; strings (id, title, owner, image) in a byte heap. Radius and match queries
+ * scan the columns and build {@link MatchingEngine.Item}s only for the rows they return.
+ *
+ * <p>Rows are immutable once committed. Saving an id that already exists, including a location update, appends a
+ * new row and marks the old one deleted as of the new row's commit; a delete marks the row as of the current row
+ * count. An append is committed by bumping the row count in {@code catalog.meta} after its columns, strings and new
+ * dictionary terms are written, so after a process crash the catalog opens at the last committed row. The operating
+ * system may write mapped pages back in any order, so surviving an OS crash or power loss needs
+ * {@code forceOnCommit}, which forces the new row's data before the row count and the row count before returning;
+ * otherwise only the state as of the last {@link #force()} is durable, and not even that if later writes reached
+ * the disk out of order. Dictionary ids are local to the files: queries translate the source item's category and
+ * tags into them instead of remapping stored columns. Writers are serialized; queries run concurrently with them
+ * and see the rows committed, and the deletes made, when they started (a delete racing a query may or may not be
+ * seen). The id-to-row map is built on the first write or lookup by id, not on open.
+ */
+public final class ColumnarCatalog implements LocationOperations.ItemRepository, Closeable {
+    private static final int MAGIC = 0x43434154, VERSION = 2;
+    private static final int META_BYTES = 64, INITIAL_ROWS = 1_024;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final int NULL_STRING = -1, UNKNOWN_TERM = Integer.MIN_VALUE;
+    private static final double EARTH_RADIUS_KM = 6371.0, EPS_DEG = 1e-9;
+    private static final EnhancedMatchScorer.Condition[] CONDITIONS = EnhancedMatchScorer.Condition.values();
+
+    // One mapped file, remapped at twice the size when full; older mappings stay valid for queries still using them.
+    private static final class Column implements Closeable {
+        final FileChannel channel; final int width; volatile MappedByteBuffer buf;
+        Column(Path file, int width) throws IOException {
+            this.width = width;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            map(Math.max(channel.size(), (long) INITIAL_ROWS * width));
+        }
+        void ensure(long bytes) throws IOException { if (bytes > buf.capacity()) map(Math.max(bytes, 2L * buf.capacity())); }
+        private void map(long bytes) throws IOException {
+            if (bytes > Integer.MAX_VALUE) throw new IOException("column file would exceed 2 GB: " + bytes + " bytes");
+            buf = (MappedByteBuffer) channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        public void close() throws IOException { buf.force(); channel.close(); }
+    }
+
+    private final FileChannel metaChannel, dictChannel;
+    private final MappedByteBuffer meta;
+    // deletedAt: 0 while live, else the row count as of which the row is deleted.
+    private final Column lat, lon, value, rating, created, nanos, popularity, category, condition, deletedAt, tagStart, tagCount, tagDistinct, strStart;
+    private final Column tags, strings;
+    private final List<Column> all;
+    private final TagDictionary dict = new TagDictionary();
+    private final boolean forceOnCommit;
+    private volatile int rows;
+    private long tagsUsed, stringsUsed, dictBytes;
+    private int deleted;
+    private Map<String, Integer> rowById;
+
+    public ColumnarCatalog(Path dir) throws IOException { this(dir, false); }
+
+    public ColumnarCatalog(Path dir, boolean forceOnCommit) throws IOException {
+        this.forceOnCommit = forceOnCommit;
+        Files.createDirectories(dir);
+        metaChannel = FileChannel.open(dir.resolve("catalog.meta"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = metaChannel.size() == 0;
+        meta = (MappedByteBuffer) metaChannel.map(FileChannel.MapMode.READ_WRITE, 0, META_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (fresh) { meta.putInt(0, MAGIC); meta.putInt(4, VERSION); }
+        else if (meta.getInt(0) != MAGIC || meta.getInt(4) != VERSION) throw new IOException("not a catalog of version " + VERSION + ": " + dir);
+        tagsUsed = meta.getLong(16); stringsUsed = meta.getLong(24); dictBytes = meta.getLong(32);
+
+        lat = new Column(dir.resolve("lat.f64"), 8); lon = new Column(dir.resolve("lon.f64"), 8);
+        value = new Column(dir.resolve("value.f64"), 8); rating = new Column(dir.resolve("rating.f64"), 8);
+        created = new Column(dir.resolve("created.i64"), 8); nanos = new Column(dir.resolve("nanos.i32"), 4);
+        popularity = new Column(dir.resolve("popularity.i32"), 4); category = new Column(dir.resolve("category.i32"), 4);
+        condition = new Column(dir.resolve("condition.i8"), 1); deletedAt = new Column(dir.resolve("deleted_at.i32"), 4);
+        tagStart = new Column(dir.resolve("tag_start.i64"), 8); tagCount = new Column(dir.resolve("tag_count.i32"), 4);
+        tagDistinct = new Column(dir.resolve("tag_distinct.i32"), 4); strStart = new Column(dir.resolve("str_start.i64"), 8);
+        tags = new Column(dir.resolve("tags.i32"), 4); strings = new Column(dir.resolve("strings.bin"), 1);
+        all = List.of(lat, lon, value, rating, created, nanos, popularity, category, condition, deletedAt, tagStart, tagCount, tagDistinct, strStart, tags, strings);
+
+        dictChannel = FileChannel.open(dir.resolve("dict.bin"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer d = ByteBuffer.allocate(Math.toIntExact(dictBytes)).order(ByteOrder.LITTLE_ENDIAN);
+        while (d.hasRemaining() && dictChannel.read(d, d.position()) > 0) { }
+        d.flip();
+        while (d.hasRemaining()) {
+            byte[] b = new byte[d.getInt()];
+            d.get(b);
+            dict.idOf(new String(b, StandardCharsets.UTF_8));
+        }
+
+        // A mark beyond the row count belongs to a re-save that never committed, so the row is still live.
+        int n = (int) meta.getLong(8);
+        MappedByteBuffer marks = deletedAt.buf;
+        for (int r = 0; r < n; r++) {
+            int at = marks.getInt(r * 4);
+            if (at > n) marks.putInt(r * 4, 0);
+            else if (at != 0) deleted++;
+        }
+        rows = n;
+    }
+
+    public int rows() { return rows; }
+
+    public synchronized int liveRows() { return rows - deleted; }
+
+    public boolean isDeleted(int row) { return deleted(deletedAt.buf, row, rows); }
+
+    // Whether the row is deleted for a query that started at row count n.
+    private static boolean deleted(ByteBuffer deletedAt, int row, int n) {
+        int at = deletedAt.getInt(row * 4);
+        return at != 0 && at <= n;
+    }
+
+    /** Appends {@code it} as a new row, tombstoning the row previously saved under its id; returns the new row. */
+    public synchronized int save(MatchingEngine.Item it) {
+        try {
+            Map<String, Integer> ids = ids();
+            int row = rows;
+            long r = row;
+            for (Column c : all) if (c != tags && c != strings) c.ensure((r + 1) * c.width);
+
+            List<String> list = it.tags == null ? List.of() : it.tags;
+            int[] distinct = new int[list.size()];
+            tags.ensure((tagsUsed + 2L * list.size()) * 4);
+            ByteBuffer t = tags.buf;
+            int at = (int) (tagsUsed * 4);
+            for (int i = 0; i < list.size(); i++) { distinct[i] = term(list.get(i)); t.putInt(at, distinct[i]); at += 4; }
+            Arrays.sort(distinct);
+            int nd = 0;
+            for (int i = 0; i < distinct.length; i++) if (nd == 0 || distinct[i] != distinct[nd - 1]) distinct[nd++] = distinct[i];
+            for (int i = 0; i < nd; i++) { t.putInt(at, distinct[i]); at += 4; }
+
+            byte[][] strs = {utf8(it.id), utf8(it.title), utf8(it.ownerName), utf8(it.ownerId), utf8(it.imageUrl)};
+            long strBytes = 0;
+            for (byte[] b : strs) strBytes += 4 + (b == null ? 0 : b.length);
+            strings.ensure(stringsUsed + strBytes);
+            ByteBuffer s = strings.buf;
+            int sp = (int) stringsUsed;
+            for (byte[] b : strs) {
+                s.putInt(sp, b == null ? NULL_STRING : b.length); sp += 4;
+                if (b != null) { s.put(sp, b); sp += b.length; }
+            }
+
+            lat.buf.putDouble(row * 8, it.lat != null ? it.lat : Double.NaN);
+            lon.buf.putDouble(row * 8, it.lon != null ? it.lon : Double.NaN);
+            value.buf.putDouble(row * 8, it.value != null ? it.value : Double.NaN);
+            rating.buf.putDouble(row * 8, it.ownerRating != null ? it.ownerRating : Double.NaN);
+            created.buf.putLong(row * 8, it.createdAt != null ? it.createdAt.getEpochSecond() : NULL_TIME);
+            nanos.buf.putInt(row * 4, it.createdAt != null ? it.createdAt.getNano() : 0);
+            popularity.buf.putInt(row * 4, it.popularity);
+            category.buf.putInt(row * 4, it.category == null ? TagDictionary.NONE : term(it.category));
+            condition.buf.put(row, (byte) (it.condition == null ? -1 : it.condition.ordinal()));
+            deletedAt.buf.putInt(row * 4, 0);
+            tagStart.buf.putLong(row * 8, tagsUsed);
+            tagCount.buf.putInt(row * 4, list.size());
+            tagDistinct.buf.putInt(row * 4, nd);
+            strStart.buf.putLong(row * 8, stringsUsed);
+
+            if (forceOnCommit) {
+                for (Column c : all) if (c != tags && c != strings) c.buf.force(row * c.width, c.width);
+                tags.buf.force((int) (tagsUsed * 4), (list.size() + nd) * 4);
+                strings.buf.force((int) stringsUsed, (int) strBytes);
+                dictChannel.force(false);
+            }
+            tagsUsed += list.size() + nd;
+            stringsUsed += strBytes;
+            // Marked before the commit: queries that see the new row must not see the old one.
+            Integer old = ids.get(it.id);
+            if (old != null) tombstone(old, row + 1);
+            commit(row + 1);
+            ids.put(it.id, row);
+            return row;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized boolean delete(String id) {
+        Integer row = ids().remove(id);
+        if (row == null) return false;
+        tombstone(row, rows);
+        return true;
+    }
+
+    /** Live row saved under {@code id}, or -1. */
+    public synchronized int rowOf(String id) {
+        Integer row = ids().get(id);
+        return row == null ? -1 : row;
+    }
+
+    /** Rebuilds the item stored in {@code row}. */
+    public MatchingEngine.Item item(int row) {
+        ByteBuffer s = strings.buf;
+        int sp = (int) strStart.buf.getLong(row * 8);
+        String[] strs = new String[5];
+        for (int i = 0; i < strs.length; i++) {
+            int len = s.getInt(sp); sp += 4;
+            if (len == NULL_STRING) continue;
+            byte[] b = new byte[len];
+            s.get(sp, b); sp += len;
+            strs[i] = new String(b, StandardCharsets.UTF_8);
+        }
+        MatchingEngine.Item it = new MatchingEngine.Item(strs[0]);
+        it.title = strs[1]; it.ownerName = strs[2]; it.ownerId = strs[3]; it.imageUrl = strs[4];
+        it.lat = nullIfNaN(lat.buf.getDouble(row * 8)); it.lon = nullIfNaN(lon.buf.getDouble(row * 8));
+        it.value = nullIfNaN(value.buf.getDouble(row * 8)); it.ownerRating = nullIfNaN(rating.buf.getDouble(row * 8));
+        long sec = created.buf.getLong(row * 8);
+        it.createdAt = sec == NULL_TIME ? null : Instant.ofEpochSecond(sec, nanos.buf.getInt(row * 4));
+        it.popularity = popularity.buf.getInt(row * 4);
+        it.category = dict.name(category.buf.getInt(row * 4));
+        byte c = condition.buf.get(row);
+        it.condition = c < 0 ? null : CONDITIONS[c];
+        int start = (int) tagStart.buf.getLong(row * 8), n = tagCount.buf.getInt(row * 4);
+        List<String> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) list.add(dict.name(tags.buf.getInt((start + i) * 4)));
+        it.tags = list;
+        return it;
+    }
+
+    // ---- LocationOperations.ItemRepository ----
+
+    /**
+     * Saves the item again with the new coordinates, or appends a new item with just an id and location. Rows are
+     * never rewritten, so a concurrent scan reads either the old position or the new one, never half of each.
+     */
+    public synchronized void updateLocation(String itemId, Double newLat, Double newLon) {
+        Integer row = ids().get(itemId);
+        MatchingEngine.Item it = row == null ? new MatchingEngine.Item(itemId) : item(row);
+        it.lat = newLat; it.lon = newLon;
+        save(it);
+    }
+
+    /** Every live item in row order; this materializes the whole catalog, so prefer the scanning queries. */
+    public List<MatchingEngine.Item> findAllItems() {
+        int n = rows;
+        MappedByteBuffer d = deletedAt.buf;
+        List<MatchingEngine.Item> out = new ArrayList<>();
+        for (int r = 0; r < n; r++) if (!deleted(d, r, n)) out.add(item(r));
+        return out;
+    }
+
+    public List<MatchingEngine.Item> findItemsWithinRadius(double userLat, double userLon, double radiusKm) {
+        List<MatchingEngine.Item> out = new ArrayList<>();
+        forEachWithin(userLat, userLon, radiusKm, r -> out.add(item(r)));
+        return out;
+    }
+
+    /**
+     * Passes each live row within {@code radiusKm} of the origin to {@code action}, in row order, using the same
+     * inclusive test as {@link HaversineDistanceCalculator#distanceKm}. Rows outside the latitude band the radius
+     * spans are rejected without the Haversine call.
+     */
+    public void forEachWithin(double originLat, double originLon, double radiusKm, IntConsumer action) {
+        if (!(radiusKm >= 0)) return;
+        int n = rows;
+        MappedByteBuffer la = lat.buf, lo = lon.buf, d = deletedAt.buf;
+        double band = Math.toDegrees(radiusKm / EARTH_RADIUS_KM) + EPS_DEG;
+        for (int r = 0; r < n; r++) {
+            double y = la.getDouble(r * 8);
+            if (!(Math.abs(y - originLat) <= band)) continue; // also skips NaN
+            double x = lo.getDouble(r * 8);
+            if (Double.isNaN(x) || deleted(d, r, n)) continue;
+            if (HaversineDistanceCalculator.distanceKm(originLat, originLon, y, x) <= radiusKm) action.accept(r);
+        }
+    }
+
+    // ---- matching ----
+
+    private static final class Hit {
+        final int row; final double score, km;
+        Hit(int row, double score, double km) { this.row = row; this.score = score; this.km = km; }
+    }
+
+    // MatchingEngine.RANK_ORDER over rows: score desc, distance asc (missing last), then row, i.e. input position.
+    private static final Comparator<Hit> HIT_ORDER = (a, b) -> {
+        int c = Double.compare(b.score, a.score);
+        if (c != 0) return c;
+        c = Double.compare(Double.isNaN(a.km) ? Double.MAX_VALUE : a.km, Double.isNaN(b.km) ? Double.MAX_VALUE : b.km);
+        return c != 0 ? c : Integer.compare(a.row, b.row);
+    };
+
+    /** Same results as {@link MatchingEngine#findPotentialMatches} over {@link #findAllItems()}, scanning the columns. */
+    public List<MatchingEngine.MatchResult> findMatches(MatchingEngine.Item source, double minScore, int limit, EnhancedMatchScorer.UserTradeStats stats) {
+        if (limit < 0) throw new IllegalArgumentException(Integer.toString(limit));
+        EnhancedMatchScorer.Item src = MatchingEngine.toEnhanced(source);
+        int n = rows;
+        int srcCategory = src.category == null ? TagDictionary.NONE : local(src.category);
+        int[] srcTags = localSortedIds(src.tags);
+        boolean[] preferred = new boolean[dict.size()];
+        if (stats != null) for (String c : stats.categoryPreferences.keySet()) { int id = dict.lookup(c); if (id >= 0 && id < preferred.length) preferred[id] = true; }
+        byte[] srcId = utf8(source.id);
+        boolean located = src.lat != null && src.lon != null;
+
+        MappedByteBuffer d = deletedAt.buf, cat = category.buf, ts = tagStart.buf, tc = tagCount.buf, td = tagDistinct.buf, tg = tags.buf;
+        MappedByteBuffer la = lat.buf, lo = lon.buf, va = value.buf, co = condition.buf, po = popularity.buf, cr = created.buf, na = nanos.buf, ra = rating.buf;
+        TopKSelector<Hit> top = new TopKSelector<>(limit, HIT_ORDER);
+        for (int r = 0; r < n; r++) {
+            if (deleted(d, r, n)) continue;
+            int c = cat.getInt(r * 4), count = tc.getInt(r * 4), distinct = td.getInt(r * 4);
+            int shared = srcTags.length == 0 || distinct == 0 ? 0 : intersectionSize(srcTags, tg, (int) ts.getLong(r * 8) + count, distinct);
+            double y = la.getDouble(r * 8), x = lo.getDouble(r * 8);
+            double km = located && !Double.isNaN(y) && !Double.isNaN(x) ? HaversineDistanceCalculator.distanceKm(src.lat, src.lon, y, x) : Double.NaN;
+            double score = EnhancedMatchScorer.scoreColumns(src, c == srcCategory, shared, count, va.getDouble(r * 8), km,
+                    co.get(r), po.getInt(r * 4), cr.getLong(r * 8), na.getInt(r * 4), c >= 0 && c < preferred.length && preferred[c], ra.getDouble(r * 8));
+            if (!(score >= minScore)) continue;
+            if (top.isFull() && (limit == 0 || score < top.worst().score)) continue;
+            if (idEquals(r, srcId)) continue;
+            top.offer(new Hit(r, score, km));
+        }
+
+        List<MatchingEngine.Ranked> ranked = new ArrayList<>(top.size());
+        for (Hit h : top.toSortedList()) {
+            MatchingEngine.Item it = item(h.row);
+            ranked.add(new MatchingEngine.Ranked(it, MatchingEngine.toEnhanced(it), h.row, h.score, Double.isNaN(h.km) ? null : h.km));
+        }
+        return MatchingEngine.toResults(src, ranked, stats);
+    }
+
+    // Shared entries of sorted distinct a[] and the sorted distinct run of n ids at int index from in col.
+    private static int intersectionSize(int[] a, ByteBuffer col, int from, int n) {
+        int i = 0, j = 0, shared = 0;
+        while (i < a.length && j < n) {
+            int x = a[i], y = col.getInt((from + j) * 4);
+            if (x == y) { shared++; i++; j++; }
+            else if (x < y) i++;
+            else j++;
+        }
+        return shared;
+    }
+
+    private int local(String term) {
+        int id = dict.lookup(term);
+        return id == TagDictionary.NONE ? UNKNOWN_TERM : id;
+    }
+
+    // Terms this catalog has never stored cannot be shared, so they are dropped.
+    private int[] localSortedIds(List<String> terms) {
+        int[] out = new int[terms.size()];
+        int n = 0;
+        for (String t : terms) { int id = dict.lookup(t); if (id >= 0) out[n++] = id; }
+        Arrays.sort(out, 0, n);
+        int d = 0;
+        for (int i = 0; i < n; i++) if (d == 0 || out[i] != out[d - 1]) out[d++] = out[i];
+        return Arrays.copyOf(out, d);
+    }
+
+    private boolean idEquals(int row, byte[] id) {
+        ByteBuffer s = strings.buf;
+        int sp = (int) strStart.buf.getLong(row * 8), len = s.getInt(sp);
+        if (id == null || len == NULL_STRING) return id == null && len == NULL_STRING;
+        if (len != id.length) return false;
+        for (int i = 0; i < len; i++) if (s.get(sp + 4 + i) != id[i]) return false;
+        return true;
+    }
+
+    // ---- writes ----
+
+    private int term(String t) throws IOException {
+        int before = dict.size(), id = dict.idOf(t);
+        if (dict.size() > before) {
+            byte[] b = t.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer rec = ByteBuffer.allocate(4 + b.length).order(ByteOrder.LITTLE_ENDIAN).putInt(b.length).put(b);
+            rec.flip();
+            while (rec.hasRemaining()) dictBytes += dictChannel.write(rec, dictBytes);
+        }
+        return id;
+    }
+
+    private void commit(int newRows) {
+        meta.putLong(16, tagsUsed); meta.putLong(24, stringsUsed); meta.putLong(32, dictBytes);
+        meta.putLong(8, newRows);
+        if (forceOnCommit) meta.force();
+        rows = newRows;
+    }
+
+    private void tombstone(int row, int asOfRows) {
+        if (deletedAt.buf.getInt(row * 4) != 0) return;
+        deletedAt.buf.putInt(row * 4, asOfRows);
+        if (forceOnCommit) deletedAt.buf.force(row * 4, 4);
+        deleted++;
+    }
+
+    private Map<String, Integer> ids() {
+        if (rowById == null) {
+            Map<String, Integer> m = new HashMap<>(Math.max(16, (rows - deleted) * 4 / 3));
+            ByteBuffer s = strings.buf;
+            for (int r = 0; r < rows; r++) {
+                if (isDeleted(r)) continue;
+                int sp = (int) strStart.buf.getLong(r * 8), len = s.getInt(sp);
+                String id = null;
+                if (len != NULL_STRING) { byte[] b = new byte[len]; s.get(sp + 4, b); id = new String(b, StandardCharsets.UTF_8); }
+                m.put(id, r);
+            }
+            rowById = m;
+        }
+        return rowById;
+    }
+
+    /** Flushes every column, the dictionary and then the row count to disk. */
+    public synchronized void force() throws IOException {
+        for (Column c : all) c.buf.force();
+        dictChannel.force(false);
+        meta.force();
+    }
+
+    public synchronized void close() throws IOException {
+        force();
+        for (Column c : all) c.close();
+        dictChannel.close();
+        metaChannel.close();
+    }
+
+    private static byte[] utf8(String s) { return s == null ? null : s.getBytes(StandardCharsets.UTF_8); }
+
+    private static Double nullIfNaN(double d) { return Double.isNaN(d) ? null : d; }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("catalog");
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Random rnd = new Random(9);
+        String[] categories = {"Electronics", "Books", "Clothing", "Home", "Toys", "Sports", "Music", "Garden"};
+        double[][] metros = {{40.71, -74.01}, {34.05, -118.24}, {51.51, -0.13}, {35.68, 139.69}};
+        List<MatchingEngine.Item> items = new ArrayList<>(n + 1);
+        for (int i = 0; i < n; i++) {
+            MatchingEngine.Item it = new MatchingEngine.Item("item-" + i);
+            it.category = categories[Math.min(rnd.nextInt(categories.length), rnd.nextInt(categories.length))]; // skewed to the first few
+            it.tags = List.of(it.category.toLowerCase(Locale.ROOT) + "-" + rnd.nextInt(40), it.category.toLowerCase(Locale.ROOT) + "-" + rnd.nextInt(300));
+            it.value = Math.round(Math.exp(3.5 + 1.1 * rnd.nextGaussian()) * 100.0) / 100.0;
+            if (rnd.nextInt(50) != 0) { double[] m = metros[rnd.nextInt(metros.length)]; it.lat = m[0] + rnd.nextGaussian() * 0.15; it.lon = m[1] + rnd.nextGaussian() * 0.15; }
+            it.condition = EnhancedMatchScorer.Condition.values()[rnd.nextInt(5)];
+            it.popularity = rnd.nextInt(101);
+            it.createdAt = Instant.parse("2025-01-01T00:00:00Z").plusSeconds(rnd.nextInt(180 * 86_400));
+            it.ownerId = "user-" + rnd.nextInt(Math.max(1, n / 5));
+            it.title = it.category + " item " + i;
+            if (rnd.nextInt(3) == 0) it.ownerRating = 1 + 4 * rnd.nextDouble();
+            items.add(it);
+        }
+        MatchingEngine.Item odd = new MatchingEngine.Item("odd");
+        odd.tags = List.of("books-1", "books-1", "zzz"); odd.category = null; odd.title = "Caf\u00e9 t\u00eate-\u00e0-t\u00eate";
+        items.add(odd);
+
+        // Reference list mirrors the catalog: an update moves the item to the end, as it appends a new row.
+        LinkedHashMap<String, MatchingEngine.Item> reference = new LinkedHashMap<>();
+        long t0 = System.nanoTime();
+        try (ColumnarCatalog catalog = new ColumnarCatalog(dir)) {
+            for (MatchingEngine.Item it : items) { catalog.save(it); reference.put(it.id, it); }
+            for (int i = 0; i < n / 100; i++) {
+                MatchingEngine.Item it = items.get(rnd.nextInt(n));
+                if (i % 2 == 0) { catalog.delete(it.id); reference.remove(it.id); }
+                else { it.popularity = rnd.nextInt(100); catalog.save(it); reference.remove(it.id); reference.put(it.id, it); }
+            }
+            System.out.printf("built %d rows (%d live) in %d ms%n", catalog.rows(), catalog.liveRows(), (System.nanoTime() - t0) / 1_000_000);
+        }
+
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = rt.totalMemory() - rt.freeMemory();
+        t0 = System.nanoTime();
+        try (ColumnarCatalog catalog = new ColumnarCatalog(dir)) {
+            long openMs = (System.nanoTime() - t0) / 1_000_000;
+            System.gc();
+            System.out.printf("reopened %d live rows in %d ms, heap delta ~%d KB%n", catalog.liveRows(), openMs, (rt.totalMemory() - rt.freeMemory() - heapBefore) >> 10);
+
+            List<MatchingEngine.Item> live = new ArrayList<>(reference.values());
+            EnhancedMatchScorer.UserTradeStats stats = new EnhancedMatchScorer.UserTradeStats();
+            stats.categoryPreferences.put("Books", 2);
+            long scanNs = 0, listNs = 0;
+            for (int q = 0; q < 20; q++) {
+                MatchingEngine.Item source = q == 0 ? odd : live.get(rnd.nextInt(live.size()));
+                long a = System.nanoTime();
+                MatchingEngine.findPotentialMatches(source, live, 0.3, 20, q % 2 == 0 ? stats : null);
+                long b = System.nanoTime();
+                catalog.findMatches(source, 0.3, 20, q % 2 == 0 ? stats : null);
+                scanNs += System.nanoTime() - b; listNs += b - a;
+            }
+            System.out.printf("20 match queries: columns %d ms, objects %d ms%n", scanNs / 1_000_000, listNs / 1_000_000);
+            MatchingEngine.Item back = catalog.item(catalog.rowOf("odd"));
+            System.out.println("round trip: " + back.title + " " + back.tags + " " + back.category);
+        }
+        Path forced = Files.createTempDirectory("catalog-forced");
+        try (ColumnarCatalog catalog = new ColumnarCatalog(forced, true)) {
+            t0 = System.nanoTime();
+            for (int i = 0; i < 2_000; i++) catalog.save(items.get(i));
+            System.out.printf("forceOnCommit: %d us per save%n", (System.nanoTime() - t0) / 2_000 / 1_000);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(forced)) { for (Path p : files) Files.delete(p); }
+        Files.delete(forced);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) { for (Path p : files) Files.delete(p); }
+        Files.delete(dir);
+    }
+}
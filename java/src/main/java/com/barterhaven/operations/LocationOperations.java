@@ -1,14 +1,28 @@
 package com.barterhaven.operations;
 
+import com.barterhaven.algorithms.GeoGridIndex;
 import com.barterhaven.algorithms.HaversineDistanceCalculator;
+import com.barterhaven.algorithms.Metrics;
+import com.barterhaven.algorithms.StripedLock;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.*;
 
 public final class LocationOperations {
     public static final class UserLocation { public final String userId; public final Double lat; public final Double lon; public UserLocation(String userId, Double lat, Double lon){this.userId=userId; this.lat=lat; this.lon=lon;} }
     public interface UserRepository { void updateLocation(String userId, Double lat, Double lon); Optional<UserLocation> getLocation(String userId); }
-    public interface ItemRepository { void updateLocation(String itemId, Double lat, Double lon); List<MatchingEngine.Item> findAllItems(); }
+    public interface ItemRepository {
+        void updateLocation(String itemId, Double lat, Double lon);
+        List<MatchingEngine.Item> findAllItems();
+        default List<MatchingEngine.Item> findItemsWithinRadius(double userLat, double userLon, double radiusKm) {
+            List<MatchingEngine.Item> all = findAllItems();
+            ITEMS_SCANNED.add(all.size());
+            return all.stream()
+                    .filter(i -> { double[] p = i.location(); return p != null && HaversineDistanceCalculator.distanceKm(userLat, userLon, p[0], p[1]) <= radiusKm; })
+                    .collect(Collectors.toList());
+        }
+    }
 
     public static final class InMemoryUserRepo implements UserRepository {
         private final Map<String, UserLocation> store = new HashMap<>();
@@ -18,10 +32,60 @@ public final class LocationOperations {
 
     public static final class InMemoryItemRepo implements ItemRepository {
         private final Map<String, MatchingEngine.Item> items = new HashMap<>();
-        public void updateLocation(String itemId, Double lat, Double lon) { items.computeIfAbsent(itemId, MatchingEngine.Item::new); items.get(itemId).lat = lat; items.get(itemId).lon = lon; }
+        public void updateLocation(String itemId, Double lat, Double lon) { items.computeIfAbsent(itemId, MatchingEngine.Item::new).setLocation(lat, lon); }
         public List<MatchingEngine.Item> findAllItems() { return new ArrayList<>(items.values()); }
     }
 
+    public static final class ConcurrentUserRepo implements UserRepository {
+        private final ConcurrentHashMap<String, UserLocation> store = new ConcurrentHashMap<>();
+        public void updateLocation(String userId, Double lat, Double lon) { store.put(userId, new UserLocation(userId, lat, lon)); }
+        public Optional<UserLocation> getLocation(String userId) { return Optional.ofNullable(store.get(userId)); }
+    }
+
+    /** Thread-safe grid-indexed item store: per-item striped writes, lock-free radius queries. */
+    public static final class ConcurrentItemRepo implements ItemRepository {
+        private final ConcurrentHashMap<String, MatchingEngine.Item> items = new ConcurrentHashMap<>();
+        private final GeoGridIndex grid = new GeoGridIndex();
+        private final StripedLock locks = new StripedLock();
+        public void updateLocation(String itemId, Double lat, Double lon) {
+            synchronized (locks.lockFor(itemId)) {
+                MatchingEngine.Item it = items.computeIfAbsent(itemId, MatchingEngine.Item::new);
+                it.setLocation(lat, lon);
+                if (lat != null && lon != null) grid.put(itemId, lat, lon); else grid.remove(itemId);
+            }
+        }
+        public List<MatchingEngine.Item> findAllItems() { return new ArrayList<>(items.values()); }
+        public List<MatchingEngine.Item> findItemsWithinRadius(double userLat, double userLon, double radiusKm) {
+            List<String> ids = grid.findWithin(userLat, userLon, radiusKm);
+            List<MatchingEngine.Item> out = new ArrayList<>(ids.size());
+            for (String id : ids) { MatchingEngine.Item it = items.get(id); if (it != null) out.add(it); }
+            return out;
+        }
+    }
+
+    public static final class GridIndexedItemRepo implements ItemRepository {
+        private final Map<String, MatchingEngine.Item> items = new HashMap<>();
+        private final GeoGridIndex grid;
+        public GridIndexedItemRepo() { this(GeoGridIndex.DEFAULT_CELL_DEG); }
+        public GridIndexedItemRepo(double cellDeg) { this.grid = new GeoGridIndex(cellDeg); }
+        public void updateLocation(String itemId, Double lat, Double lon) {
+            MatchingEngine.Item it = items.computeIfAbsent(itemId, MatchingEngine.Item::new);
+            it.setLocation(lat, lon);
+            if (lat != null && lon != null) grid.put(itemId, lat, lon); else grid.remove(itemId);
+        }
+        public List<MatchingEngine.Item> findAllItems() { return new ArrayList<>(items.values()); }
+        public List<MatchingEngine.Item> findItemsWithinRadius(double userLat, double userLon, double radiusKm) {
+            List<String> ids = grid.findWithin(userLat, userLon, radiusKm);
+            List<MatchingEngine.Item> out = new ArrayList<>(ids.size());
+            for (String id : ids) out.add(items.get(id));
+            return out;
+        }
+    }
+
+    private static final Metrics.Timer RADIUS_TIME = Metrics.timer("location.findItemsWithinRadius");
+    private static final Metrics.Counter ITEMS_SCANNED = Metrics.counter("location.items.scanned");
+    private static final Metrics.Counter ITEMS_RETURNED = Metrics.counter("location.items.returned");
+
     private LocationOperations() {}
 
     public static boolean saveUserLocation(UserRepository repo, String userId, double lat, double lon) {
@@ -34,10 +98,11 @@ public final class LocationOperations {
         return repo.getLocation(userId);
     }
     public static List<MatchingEngine.Item> findItemsWithinRadius(ItemRepository repo, double userLat, double userLon, double radiusKm) {
-        return repo.findAllItems().stream()
-                .filter(i -> i.lat != null && i.lon != null)
-                .filter(i -> HaversineDistanceCalculator.distanceKm(userLat, userLon, i.lat, i.lon) <= radiusKm)
-                .collect(Collectors.toList());
+        long t0 = RADIUS_TIME.start();
+        List<MatchingEngine.Item> out = repo.findItemsWithinRadius(userLat, userLon, radiusKm);
+        ITEMS_RETURNED.add(out.size());
+        RADIUS_TIME.stop(t0);
+        return out;
     }
 
     public static void main(String[] args) {
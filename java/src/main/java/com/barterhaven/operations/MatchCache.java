@@ -0,0 +1,238 @@
+package com.barterhaven.operations;
+
+import com.barterhaven.algorithms.EnhancedMatchScorer;
+import com.barterhaven.algorithms.GeoGridIndex;
+import com.barterhaven.algorithms.Metrics;
+import com.barterhaven.algorithms.TagDictionary;
+
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Match results per (source item, preferences, minScore, limit) on top of a {@link MatchCandidateIndex}, evicted
+ * LRU by size and by age. Each entry is posted under its source's category and tags, and, when the location term
+ * alone could lift an item over its cut-off, under the source's position; entries whose cut-off is within reach of
+ * any item are kept in an always-checked set. A catalog change is checked only against the entries posted under
+ * the changed item's terms or near its position, the entries whose source or results contain it, and that set, and
+ * each of those is dropped if the change could alter its results. Missed catalog versions clear the cache. Results
+ * are copied on the way in and out, so callers may edit them.
+ */
+public final class MatchCache implements MatchCandidateIndex.ChangeListener {
+    // Covers rounding differences between the bound sums and the scorer's own sum.
+    private static final double BOUND_EPS = 1e-9;
+    // Widest band that earns a location term in EnhancedMatchScorer.
+    private static final double LOCATION_BLOCK_KM = 100.0;
+    private static final Metrics.Timer FIND_TIME = Metrics.timer("matching.cache.findMatches");
+    private static final Metrics.Counter HITS = Metrics.counter("matching.cache.hits");
+    private static final Metrics.Counter MISSES = Metrics.counter("matching.cache.misses");
+    private static final Metrics.Counter EVICTIONS = Metrics.counter("matching.cache.evictions");
+    private static final Metrics.Counter INVALIDATIONS = Metrics.counter("matching.cache.invalidations");
+    private static final Metrics.Counter CHECKED = Metrics.counter("matching.cache.checked");
+
+    private static final class Key {
+        final String sourceId; final double minScore; final int limit; final Map<String, Integer> prefs; final double minPref, maxPref; final boolean hasStats;
+        Key(String sourceId, double minScore, int limit, EnhancedMatchScorer.UserTradeStats stats) {
+            this.sourceId = sourceId; this.minScore = minScore; this.limit = limit; this.hasStats = stats != null;
+            this.prefs = stats != null ? new HashMap<>(stats.categoryPreferences) : Map.of();
+            this.minPref = stats != null ? stats.minPrefValue : 0; this.maxPref = stats != null ? stats.maxPrefValue : 0;
+        }
+        @Override public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return sourceId.equals(k.sourceId) && Double.compare(minScore, k.minScore) == 0 && limit == k.limit && hasStats == k.hasStats
+                    && Double.compare(minPref, k.minPref) == 0 && Double.compare(maxPref, k.maxPref) == 0 && prefs.equals(k.prefs);
+        }
+        @Override public int hashCode() { return Objects.hash(sourceId, minScore, limit, prefs, minPref, maxPref, hasStats); }
+    }
+
+    private static final class Entry {
+        final Key key; final String gridId; final EnhancedMatchScorer.Item source; final EnhancedMatchScorer.UserTradeStats stats;
+        final List<MatchingEngine.MatchResult> results; final Set<String> resultIds = new HashSet<>(); final long createdNanos;
+        boolean open, located;
+        Entry(Key key, String gridId, EnhancedMatchScorer.Item source, EnhancedMatchScorer.UserTradeStats stats, List<MatchingEngine.MatchResult> results, long createdNanos) {
+            this.key = key; this.gridId = gridId; this.source = source; this.stats = stats; this.results = results; this.createdNanos = createdNanos;
+            for (MatchingEngine.MatchResult r : results) resultIds.add(r.matchedItemId);
+        }
+    }
+
+    private final MatchCandidateIndex index;
+    private final int maxEntries;
+    private final long maxAgeNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Entry>> bySource = new HashMap<>();
+    private final Map<String, Set<Entry>> byResult = new HashMap<>();
+    private final Map<Integer, Set<Entry>> byCategory = new HashMap<>();
+    private final Map<Integer, Set<Entry>> byTag = new HashMap<>();
+    private final Map<String, Entry> byGridId = new HashMap<>();
+    private final GeoGridIndex grid = new GeoGridIndex(1.0);
+    private final Set<Entry> open = new LinkedHashSet<>();
+    private long seenVersion, nextGridId;
+    private long hits, misses, sizeEvictions, ageEvictions, invalidations, revalidations;
+
+    public MatchCache(MatchCandidateIndex index, int maxEntries, Duration maxAge) { this(index, maxEntries, maxAge, System::nanoTime); }
+
+    public MatchCache(MatchCandidateIndex index, int maxEntries, Duration maxAge, LongSupplier nanoClock) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be > 0: " + maxEntries);
+        this.index = index; this.maxEntries = maxEntries; this.maxAgeNanos = maxAge.toNanos(); this.nanoClock = nanoClock;
+        this.seenVersion = index.version();
+        index.addListener(this);
+    }
+
+    public List<MatchingEngine.MatchResult> findMatches(String sourceItemId, double minScore, int limit, EnhancedMatchScorer.UserTradeStats stats) {
+        long t0 = FIND_TIME.start();
+        try {
+            return lookup(sourceItemId, minScore, limit, stats);
+        } finally {
+            FIND_TIME.stop(t0);
+        }
+    }
+
+    private synchronized List<MatchingEngine.MatchResult> lookup(String sourceItemId, double minScore, int limit, EnhancedMatchScorer.UserTradeStats stats) {
+        Optional<MatchingEngine.Item> source = index.find(sourceItemId);
+        if (source.isEmpty()) return new ArrayList<>();
+        if (index.version() != seenVersion) { invalidated(entries.size()); clear(); seenVersion = index.version(); }
+        Key key = new Key(sourceItemId, minScore, limit, stats);
+        long now = nanoClock.getAsLong();
+        Entry e = entries.get(key);
+        if (e != null) {
+            if (now - e.createdNanos > maxAgeNanos) { drop(e); ageEvictions++; EVICTIONS.increment(); }
+            else { hits++; HITS.increment(); return copyOf(e.results); }
+        }
+        misses++;
+        MISSES.increment();
+        List<MatchingEngine.MatchResult> results = MatchingOperations.findMatches(source.get(), index, minScore, limit, stats);
+        EnhancedMatchScorer.UserTradeStats statsCopy = null;
+        if (stats != null) {
+            statsCopy = new EnhancedMatchScorer.UserTradeStats();
+            statsCopy.categoryPreferences.putAll(stats.categoryPreferences);
+            statsCopy.minPrefValue = stats.minPrefValue; statsCopy.maxPrefValue = stats.maxPrefValue;
+        }
+        post(new Entry(key, Long.toString(nextGridId++), MatchingEngine.toEnhanced(source.get()), statsCopy, copyOf(results), now));
+        if (entries.size() > maxEntries) { drop(entries.values().iterator().next()); sizeEvictions++; EVICTIONS.increment(); }
+        return results;
+    }
+
+    @Override public synchronized void onItemChanged(String itemId, EnhancedMatchScorer.Item before, EnhancedMatchScorer.Item after, long version) {
+        if (version != seenVersion + 1) { invalidated(entries.size()); clear(); seenVersion = version; return; }
+        seenVersion = version;
+        if (entries.isEmpty()) return;
+        Set<Entry> candidates = new LinkedHashSet<>(open);
+        candidates.addAll(bySource.getOrDefault(itemId, Set.of()));
+        candidates.addAll(byResult.getOrDefault(itemId, Set.of()));
+        if (after != null) {
+            // A null category shares the category term with null-category sources, which are posted under NONE.
+            int category = after.categoryId >= 0 || after.category == null ? after.categoryId : TagDictionary.SHARED.lookup(after.category);
+            if (category >= 0 || after.category == null) candidates.addAll(byCategory.getOrDefault(category, Set.of()));
+            for (String tag : after.tags) {
+                int t = TagDictionary.SHARED.lookup(tag);
+                if (t >= 0) candidates.addAll(byTag.getOrDefault(t, Set.of()));
+            }
+            if (after.lat != null && after.lon != null) {
+                for (String id : grid.findWithin(after.lat, after.lon, LOCATION_BLOCK_KM)) candidates.add(byGridId.get(id));
+            }
+        }
+        CHECKED.add(candidates.size());
+        for (Entry e : candidates) {
+            if (affects(e, itemId, after)) { drop(e); invalidated(1); }
+            else revalidations++;
+        }
+    }
+
+    private void invalidated(int n) {
+        invalidations += n;
+        INVALIDATIONS.add(n);
+    }
+
+    // Conservative: ties with the current worst result count as affecting, since position tie-breaks are not tracked here.
+    private static boolean affects(Entry e, String itemId, EnhancedMatchScorer.Item after) {
+        Key k = e.key;
+        if (k.sourceId.equals(itemId) || e.resultIds.contains(itemId)) return true;
+        if (after == null || k.limit == 0) return false;
+        double score = EnhancedMatchScorer.scoreOnly(e.source, after, e.stats);
+        if (!(score >= k.minScore)) return false;
+        return e.results.size() < k.limit || score >= e.results.get(e.results.size() - 1).matchScore;
+    }
+
+    // Posts the entry under whatever a changed item must have in common with it to enter its results.
+    private void post(Entry e) {
+        entries.put(e.key, e);
+        bySource.computeIfAbsent(e.key.sourceId, k -> new HashSet<>()).add(e);
+        for (String id : e.resultIds) byResult.computeIfAbsent(id, k -> new HashSet<>()).add(e);
+        if (e.key.limit == 0) return;
+        EnhancedMatchScorer.Item src = e.source;
+        double cut = e.results.size() < e.key.limit ? e.key.minScore : Math.max(e.key.minScore, e.results.get(e.results.size() - 1).matchScore);
+        double rest = EnhancedMatchScorer.unsharedBound(src, e.stats, Integer.MAX_VALUE, EnhancedMatchScorer.MAX_REPUTATION_TERM);
+        boolean interned = src.categoryId != TagDictionary.UNINTERNED && src.tagIds != null;
+        boolean located = src.lat != null && src.lon != null;
+        if (!interned || !(rest + BOUND_EPS < cut) && !(located && rest - EnhancedMatchScorer.MAX_LOCATION_TERM + BOUND_EPS < cut)) {
+            e.open = true; open.add(e);
+            return;
+        }
+        byCategory.computeIfAbsent(src.categoryId, k -> new HashSet<>()).add(e); // an id, or NONE for a null category
+        for (int t : src.tagIds) byTag.computeIfAbsent(t, k -> new HashSet<>()).add(e);
+        if (!(rest + BOUND_EPS < cut)) {
+            e.located = true; grid.put(e.gridId, src.lat, src.lon); byGridId.put(e.gridId, e);
+        }
+    }
+
+    private void drop(Entry e) {
+        if (entries.remove(e.key) != e) return;
+        unlink(bySource, e.key.sourceId, e);
+        for (String id : e.resultIds) unlink(byResult, id, e);
+        if (e.open) { open.remove(e); return; }
+        if (e.key.limit == 0) return;
+        unlink(byCategory, e.source.categoryId, e);
+        for (int t : e.source.tagIds) unlink(byTag, t, e);
+        if (e.located) { grid.remove(e.gridId); byGridId.remove(e.gridId); }
+    }
+
+    private static <K> void unlink(Map<K, Set<Entry>> postings, K key, Entry e) {
+        Set<Entry> set = postings.get(key);
+        if (set != null && set.remove(e) && set.isEmpty()) postings.remove(key);
+    }
+
+    private static List<MatchingEngine.MatchResult> copyOf(List<MatchingEngine.MatchResult> results) {
+        List<MatchingEngine.MatchResult> out = new ArrayList<>(results.size());
+        for (MatchingEngine.MatchResult r : results) out.add(r.copy());
+        return out;
+    }
+
+    public synchronized void clear() {
+        for (String id : byGridId.keySet()) grid.remove(id);
+        entries.clear(); bySource.clear(); byResult.clear(); byCategory.clear(); byTag.clear(); byGridId.clear(); open.clear();
+    }
+
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized Map<String, Long> stats() {
+        Map<String, Long> m = new LinkedHashMap<>();
+        m.put("hits", hits); m.put("misses", misses); m.put("sizeEvictions", sizeEvictions); m.put("ageEvictions", ageEvictions);
+        m.put("invalidations", invalidations); m.put("revalidations", revalidations); m.put("entries", (long) entries.size());
+        return m;
+    }
+
+    public static void main(String[] args) {
+        MatchCandidateIndex index = new MatchCandidateIndex();
+        Random rnd = new Random(3);
+        for (int i = 0; i < 5_000; i++) {
+            MatchingEngine.Item it = new MatchingEngine.Item("i" + i);
+            it.category = rnd.nextBoolean() ? "Books" : "Toys"; it.tags = List.of("t" + rnd.nextInt(20)); it.value = 10.0 + rnd.nextInt(50);
+            it.lat = 37.0 + rnd.nextGaussian(); it.lon = -122.0 + rnd.nextGaussian(); it.popularity = rnd.nextInt(30);
+            index.save(it);
+        }
+        MatchCache cache = new MatchCache(index, 1_000, Duration.ofMinutes(5));
+        EnhancedMatchScorer.UserTradeStats stats = new EnhancedMatchScorer.UserTradeStats();
+        boolean fresh = true;
+        for (int round = 0; round < 200; round++) {
+            String sourceId = "i" + rnd.nextInt(50);
+            List<MatchingEngine.MatchResult> cached = cache.findMatches(sourceId, 0.3, 10, stats);
+            List<MatchingEngine.MatchResult> direct = MatchingEngine.findPotentialMatches(index.find(sourceId).orElseThrow(), index.findAllItems(), 0.3, 10, stats);
+            for (int i = 0; fresh && i < direct.size(); i++) fresh = cached.size() == direct.size() && cached.get(i).matchedItemId.equals(direct.get(i).matchedItemId);
+            String moved = "i" + rnd.nextInt(5_000);
+            LocationOperations.saveItemLocation(index, moved, 37.0 + rnd.nextGaussian(), -122.0 + rnd.nextGaussian());
+        }
+        System.out.println("Never stale: " + fresh + " " + cache.stats());
+    }
+}
@@ -0,0 +1,332 @@
+package com.barterhaven.operations;
+
+import com.barterhaven.algorithms.EnhancedMatchScorer;
+import com.barterhaven.algorithms.GeoGridIndex;
+import com.barterhaven.algorithms.Metrics;
+import com.barterhaven.algorithms.TagDictionary;
+import com.barterhaven.algorithms.TopKSelector;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Item catalog with inverted category/tag postings for match candidate generation. Items sharing the source's
+ * category or a tag are scored first; every other candidate can only earn the value/location/condition/popularity/
+ * age/preference/reputation terms. Those are visited by bound, best first: the grid cells within 100 km, then blocks
+ * of equal condition and owner-rating band walked outward from the source's value, stopping as soon as the best
+ * bound left cannot reach {@code minScore} or the current top-K cut-off. Results equal {@link MatchingEngine#findPotentialMatches} over {@link #findAllItems()}.
+ * Call {@link #save} after editing an item so the postings follow it. Items whose category or tags the shared
+ * {@link TagDictionary} could not intern (it is full) are not posted and are scored on every query instead.
+ */
+public final class MatchCandidateIndex implements LocationOperations.ItemRepository {
+    // Covers rounding differences between the bound sums and the scorer's own sum.
+    private static final double BOUND_EPS = 1e-9;
+    // Widest band that earns a location term in EnhancedMatchScorer.
+    private static final double LOCATION_BLOCK_KM = 100.0;
+    private static final Metrics.Timer FIND_TIME = Metrics.timer("matching.findPotentialMatches");
+    private static final Metrics.Counter VISITED = Metrics.counter("matching.index.visited");
+    private static final Metrics.Counter PRUNED = Metrics.counter("matching.index.pruned");
+    private static final Metrics.Counter SCORED = Metrics.counter("matching.index.scored");
+    private static final Metrics.Counter RETURNED = Metrics.counter("matching.candidates.returned");
+
+    /** Called after every save/remove with the item's old and new scoring snapshots ({@code null} when absent). */
+    public interface ChangeListener { void onItemChanged(String itemId, EnhancedMatchScorer.Item before, EnhancedMatchScorer.Item after, long version); }
+
+    private static final class Entry {
+        final MatchingEngine.Item item; final int seq; EnhancedMatchScorer.Item scored; String ownerId; boolean posted;
+        Entry(MatchingEngine.Item item, int seq) { this.item = item; this.seq = seq; }
+    }
+
+    // One findMatches call: its inputs, the running top-K and what it cost.
+    private static final class Query {
+        final MatchingEngine.Item source; final EnhancedMatchScorer.Item src; final int[] srcTags; final double minScore;
+        final TopKSelector<MatchingEngine.Ranked> top; final EnhancedMatchScorer.UserTradeStats stats;
+        int visited, pruned, scored;
+        Query(MatchingEngine.Item source, EnhancedMatchScorer.Item src, int[] srcTags, double minScore, int limit, EnhancedMatchScorer.UserTradeStats stats) {
+            this.source = source; this.src = src; this.srcTags = srcTags; this.minScore = minScore; this.stats = stats;
+            this.top = new TopKSelector<>(limit, MatchingEngine.RANK_ORDER);
+        }
+        // A candidate can still enter if it reaches minScore and ties or beats the current worst survivor.
+        double cutoff() { return top.isFull() ? Math.max(minScore, top.worst().score) : minScore; }
+    }
+
+    private final Map<String, Entry> byId = new LinkedHashMap<>();
+    private final Map<Integer, Set<Entry>> byCategory = new HashMap<>();
+    private final Map<Integer, Set<Entry>> byTag = new HashMap<>();
+    private final Set<Entry> unposted = new LinkedHashSet<>();
+    // Every posted entry again, blocked by condition and owner rating and ordered by estimated value (0 when absent).
+    private final Map<Integer, TreeMap<Double, Set<Entry>>> blocks = new HashMap<>();
+    private final GeoGridIndex grid = new GeoGridIndex();
+    private int nextSeq;
+    private int maxPopularity = Integer.MIN_VALUE;
+    private double maxReputationTerm;
+    private final Map<String, Set<Entry>> byOwner = new HashMap<>();
+    private long version;
+    private final List<ChangeListener> listeners = new ArrayList<>();
+
+    public void addListener(ChangeListener listener) { listeners.add(listener); }
+
+    /** Incremented on every change; lets caches detect changes they were not told about. */
+    public long version() { return version; }
+
+    public void save(MatchingEngine.Item item) {
+        Entry e = byId.get(item.id);
+        EnhancedMatchScorer.Item before = e != null ? e.scored : null;
+        if (e == null || e.item != item) {
+            if (e != null) unpost(e);
+            e = new Entry(item, e != null ? e.seq : nextSeq++);
+            byId.put(item.id, e);
+        } else {
+            unpost(e);
+        }
+        e.scored = MatchingEngine.toEnhanced(item);
+        e.posted = e.scored.categoryId != TagDictionary.UNINTERNED && e.scored.tagIds != null;
+        if (e.posted) {
+            byCategory.computeIfAbsent(e.scored.categoryId, k -> new HashSet<>()).add(e);
+            for (int t : e.scored.tagIds) byTag.computeIfAbsent(t, k -> new HashSet<>()).add(e);
+            blocks.computeIfAbsent(blockKey(e.scored), k -> new TreeMap<>()).computeIfAbsent(valueKey(e.scored), k -> new HashSet<>()).add(e);
+        } else {
+            unposted.add(e);
+        }
+        if (item.lat != null && item.lon != null) grid.put(item.id, item.lat, item.lon); else grid.remove(item.id);
+        e.ownerId = item.ownerId;
+        if (e.ownerId != null) byOwner.computeIfAbsent(e.ownerId, k -> new HashSet<>()).add(e);
+        maxPopularity = Math.max(maxPopularity, item.popularity);
+        if (item.ownerRating != null) maxReputationTerm = Math.max(maxReputationTerm, EnhancedMatchScorer.reputationTerm(item.ownerRating));
+        changed(item.id, before, e.scored);
+    }
+
+    public void remove(String itemId) {
+        Entry e = byId.remove(itemId);
+        if (e == null) return;
+        unpost(e);
+        grid.remove(itemId);
+        changed(itemId, e.scored, null);
+    }
+
+    private void changed(String itemId, EnhancedMatchScorer.Item before, EnhancedMatchScorer.Item after) {
+        version++;
+        for (ChangeListener l : listeners) l.onItemChanged(itemId, before, after, version);
+    }
+
+    public Optional<MatchingEngine.Item> find(String itemId) {
+        Entry e = byId.get(itemId);
+        return e == null ? Optional.empty() : Optional.of(e.item);
+    }
+
+    public int size() { return byId.size(); }
+
+    /** Sets the review rating on every item of {@code ownerId} and re-saves them, notifying listeners per item. */
+    public void updateOwnerRating(String ownerId, Double rating) {
+        for (Entry e : new ArrayList<>(byOwner.getOrDefault(ownerId, Set.of()))) {
+            if (Objects.equals(e.item.ownerRating, rating)) continue;
+            e.item.ownerRating = rating;
+            save(e.item);
+        }
+    }
+
+    public void updateLocation(String itemId, Double lat, Double lon) {
+        Entry e = byId.get(itemId);
+        MatchingEngine.Item it = e != null ? e.item : new MatchingEngine.Item(itemId);
+        it.setLocation(lat, lon);
+        save(it);
+    }
+
+    public List<MatchingEngine.Item> findAllItems() {
+        List<MatchingEngine.Item> out = new ArrayList<>(byId.size());
+        for (Entry e : byId.values()) out.add(e.item);
+        return out;
+    }
+
+    public List<MatchingEngine.MatchResult> findMatches(MatchingEngine.Item source, double minScore, int limit, EnhancedMatchScorer.UserTradeStats stats) {
+        if (limit < 0) throw new IllegalArgumentException(Integer.toString(limit));
+        if (limit == 0 || byId.isEmpty()) return new ArrayList<>();
+        long t0 = FIND_TIME.start();
+        EnhancedMatchScorer.Item src = MatchingEngine.toEnhanced(source);
+        Query q = new Query(source, src, src.tagIds != null ? src.tagIds : internedIds(src.tags), minScore, limit, stats);
+        rank(q);
+        List<MatchingEngine.MatchResult> results = MatchingEngine.toResults(src, q.top.toSortedList(), stats);
+        VISITED.add(q.visited);
+        PRUNED.add(q.pruned);
+        SCORED.add(q.scored);
+        RETURNED.add(results.size());
+        FIND_TIME.stop(t0);
+        return results;
+    }
+
+    private void rank(Query q) {
+        // Unposted entries may share an uninterned category or tag with the source, so they are always scored.
+        for (Entry e : unposted) consider(q, e);
+
+        // Shared tags first, as they tend to raise the cut-off fastest; an entry is visited under the first source tag it carries.
+        int[] srcTags = q.srcTags;
+        for (int k = 0; k < srcTags.length; k++) {
+            for (Entry e : byTag.getOrDefault(srcTags[k], Set.of())) {
+                if (!containsAny(e.scored.tagIds, srcTags, k)) consider(q, e);
+            }
+        }
+
+        // Same category without shared tags (a null category matches null, as in the scorer).
+        for (Entry e : byCategory.getOrDefault(q.src.categoryId, Set.of())) {
+            if (TagDictionary.intersectionSize(e.scored.tagIds, srcTags) == 0) consider(q, e);
+        }
+
+        // Everything else shares neither category nor tags.
+        double rest = restBound(q.src, q.stats);
+        if (rest + BOUND_EPS < q.cutoff()) return;
+        Set<Entry> near = Set.of();
+        if (q.src.lat != null && q.src.lon != null) {
+            // Items close enough to earn the location term come first; everything after them can only lose it.
+            near = new HashSet<>();
+            for (String id : grid.findWithin(q.src.lat, q.src.lon, LOCATION_BLOCK_KM)) {
+                Entry e = byId.get(id);
+                near.add(e);
+                considerUnshared(q, e);
+            }
+            rest -= EnhancedMatchScorer.MAX_LOCATION_TERM;
+            if (rest + BOUND_EPS < q.cutoff()) return;
+        }
+        walkBlocks(q, near, rest);
+    }
+
+    // Best-first over the condition/rating blocks, each walked outward from the source's value, until the best bound
+    // left misses the cut-off.
+    private void walkBlocks(Query q, Set<Entry> skip, double rest) {
+        EnhancedMatchScorer.Item src = q.src;
+        boolean valued = src.estimatedValue != null && src.estimatedValue > 0;
+        double condMax = src.condition != null ? EnhancedMatchScorer.MAX_CONDITION_TERM : 0.0;
+        PriorityQueue<BlockCursor> queue = new PriorityQueue<>(Comparator.comparingDouble((BlockCursor c) -> c.bound).reversed());
+        for (Map.Entry<Integer, TreeMap<Double, Set<Entry>>> block : blocks.entrySet()) {
+            int key = block.getKey();
+            int condition = key / 8 - 1, ratingBucket = key % 8;
+            double base = rest - condMax + EnhancedMatchScorer.conditionTerm(src.condition, condition < 0 ? null : EnhancedMatchScorer.Condition.values()[condition])
+                    - maxReputationTerm + Math.min(maxReputationTerm, ratingBucket == 0 ? 0.0 : EnhancedMatchScorer.reputationTerm(Math.min(5, ratingBucket + 1)));
+            BlockCursor c = new BlockCursor(block.getValue(), valued ? src.estimatedValue : 0.0, base, valued);
+            if (c.advance()) queue.add(c);
+        }
+        while (!queue.isEmpty()) {
+            BlockCursor c = queue.poll();
+            if (c.bound + BOUND_EPS < q.cutoff()) return;
+            for (Entry e : c.group) if (!skip.contains(e)) considerUnshared(q, e);
+            if (c.advance()) queue.add(c);
+        }
+    }
+
+    // Walks one block's values outward from the source's, closest ratio first; the bound is the block's plus the value term at that ratio.
+    private static final class BlockCursor {
+        final double v, base; final boolean valued;
+        final Iterator<Map.Entry<Double, Set<Entry>>> up, down;
+        Map.Entry<Double, Set<Entry>> hi, lo;
+        Set<Entry> group; double bound;
+        BlockCursor(TreeMap<Double, Set<Entry>> block, double v, double base, boolean valued) {
+            this.v = v; this.base = base; this.valued = valued;
+            this.up = block.tailMap(v, true).entrySet().iterator();
+            this.down = block.headMap(v, false).descendingMap().entrySet().iterator();
+            this.hi = up.hasNext() ? up.next() : null; this.lo = down.hasNext() ? down.next() : null;
+        }
+        boolean advance() {
+            if (hi == null && lo == null) return false;
+            double hiRatio = hi != null && valued ? v / hi.getKey() : -1, loRatio = lo != null ? lo.getKey() / v : -1;
+            if (hi != null && (!valued || hiRatio >= loRatio)) { group = hi.getValue(); hi = up.hasNext() ? up.next() : null; }
+            else { group = lo.getValue(); lo = down.hasNext() ? down.next() : null; }
+            bound = valued ? base - EnhancedMatchScorer.MAX_VALUE_TERM * (1.0 - Math.max(hiRatio, loRatio)) : base;
+            return true;
+        }
+    }
+
+    // Entries already visited through a shared category or tag are skipped without counting them again.
+    private void considerUnshared(Query q, Entry e) {
+        if (!e.posted || e.scored.categoryId == q.src.categoryId || TagDictionary.intersectionSize(e.scored.tagIds, q.srcTags) > 0) return;
+        consider(q, e);
+    }
+
+    private void consider(Query q, Entry e) {
+        q.visited++;
+        if (Objects.equals(e.item.id, q.source.id)) return;
+        EnhancedMatchScorer.Item c = e.scored;
+        if (EnhancedMatchScorer.upperBound(q.src, c, q.stats) + BOUND_EPS < q.cutoff()) { q.pruned++; return; }
+        q.scored++;
+        double score = EnhancedMatchScorer.scoreOnly(q.src, c, q.stats);
+        if (!(score >= q.minScore)) return;
+        q.top.offer(new MatchingEngine.Ranked(e.item, c, e.seq, score, MatchingEngine.distanceKm(q.src, c)));
+    }
+
+    // Best score any item outside the source's category and tag postings could reach.
+    private double restBound(EnhancedMatchScorer.Item a, EnhancedMatchScorer.UserTradeStats stats) {
+        return EnhancedMatchScorer.unsharedBound(a, stats, maxPopularity, maxReputationTerm);
+    }
+
+    // Sorted ids of the tags that are interned; the others can only be shared with unposted entries.
+    private static int[] internedIds(List<String> tags) {
+        return tags.stream().mapToInt(TagDictionary.SHARED::lookup).filter(id -> id >= 0).sorted().distinct().toArray();
+    }
+
+    // Condition ordinal + 1 (0 when absent) times 8, plus the floor of the owner rating (0 when unrated).
+    private static int blockKey(EnhancedMatchScorer.Item it) {
+        int condition = it.condition != null ? it.condition.ordinal() + 1 : 0;
+        int rating = it.ownerRating != null ? (int) Math.max(1, Math.min(5, Math.floor(it.ownerRating))) : 0;
+        return condition * 8 + rating;
+    }
+
+    private static double valueKey(EnhancedMatchScorer.Item it) {
+        return it.estimatedValue != null && it.estimatedValue > 0 ? it.estimatedValue : 0.0;
+    }
+
+    private static boolean containsAny(int[] sortedIds, int[] probe, int probeLen) {
+        for (int i = 0; i < probeLen; i++) if (Arrays.binarySearch(sortedIds, probe[i]) >= 0) return true;
+        return false;
+    }
+
+    private void unpost(Entry e) {
+        if (e.scored == null) return;
+        if (e.posted) {
+            unpost(byCategory, e.scored.categoryId, e);
+            for (int t : e.scored.tagIds) unpost(byTag, t, e);
+            TreeMap<Double, Set<Entry>> block = blocks.get(blockKey(e.scored));
+            unpost(block, valueKey(e.scored), e);
+            if (block.isEmpty()) blocks.remove(blockKey(e.scored));
+        } else {
+            unposted.remove(e);
+        }
+        Set<Entry> owned = e.ownerId == null ? null : byOwner.get(e.ownerId);
+        if (owned != null && owned.remove(e) && owned.isEmpty()) byOwner.remove(e.ownerId);
+    }
+
+    private static <K> void unpost(Map<K, Set<Entry>> postings, K key, Entry e) {
+        Set<Entry> set = postings.get(key);
+        if (set == null) return;
+        set.remove(e);
+        if (set.isEmpty()) postings.remove(key);
+    }
+
+    public static void main(String[] args) {
+        String[] categories = {"Books", "Electronics", "Toys", "Garden", "Sports", "Music", "Art", "Tools"};
+        Random rnd = new Random(11);
+        MatchCandidateIndex index = new MatchCandidateIndex();
+        for (int i = 0; i < 20_000; i++) {
+            MatchingEngine.Item it = new MatchingEngine.Item("i" + i);
+            it.category = categories[rnd.nextInt(categories.length)];
+            it.tags = List.of("t" + rnd.nextInt(200), "t" + rnd.nextInt(200));
+            it.value = 10.0 + rnd.nextInt(100); it.lat = 37.0 + rnd.nextGaussian(); it.lon = -122.0 + rnd.nextGaussian();
+            it.condition = EnhancedMatchScorer.Condition.values()[rnd.nextInt(5)]; it.popularity = rnd.nextInt(40);
+            it.createdAt = Instant.parse("2026-01-01T00:00:00Z").plusSeconds(rnd.nextInt(120 * 86_400)); it.title = "Item " + i;
+            it.ownerId = "o" + rnd.nextInt(5_000);
+            index.save(it);
+        }
+        EnhancedMatchScorer.UserTradeStats stats = new EnhancedMatchScorer.UserTradeStats();
+        boolean same = true;
+        for (int q = 0; q < 100; q++) {
+            if (q == 50) for (int o = 0; o < 5_000; o += 2) index.updateOwnerRating("o" + o, 1.0 + rnd.nextInt(41) / 10.0); // second half: rated owners
+            MatchingEngine.Item source = index.find("i" + rnd.nextInt(20_000)).orElseThrow();
+            for (double minScore : new double[]{0.3, 0.6}) {
+                List<MatchingEngine.MatchResult> fast = index.findMatches(source, minScore, 10, stats);
+                List<MatchingEngine.MatchResult> full = MatchingEngine.findPotentialMatches(source, index.findAllItems(), minScore, 10, stats);
+                same &= fast.size() == full.size();
+                for (int i = 0; same && i < fast.size(); i++) {
+                    same = fast.get(i).matchedItemId.equals(full.get(i).matchedItemId) && fast.get(i).matchScore == full.get(i).matchScore;
+                }
+            }
+        }
+        System.out.println("Indexed matches equal exhaustive: " + same);
+    }
+}
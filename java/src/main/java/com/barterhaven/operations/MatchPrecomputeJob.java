@@ -0,0 +1,141 @@
+package com.barterhaven.operations;
+
+import com.barterhaven.algorithms.EnhancedMatchScorer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Batch job that writes the top-K matches of every catalog item as JSON lines:
+ * {@code {"itemId":"A","matches":[{"itemId":"B","score":0.71,"distanceKm":1.2,"reasons":{...}}]}}.
+ * Candidates are blocked through {@link MatchCandidateIndex} (category/tag postings plus the 100 km location grid),
+ * scored by {@link EnhancedMatchScorer} exactly as the online path does, and sources are processed in fixed-size
+ * batches across all cores so only one batch of output is held in memory.
+ *
+ * <p>Input is tab-separated: id, title, category, tags (comma-separated), value, lat, lon, condition, popularity,
+ * createdAt (ISO-8601), ownerName; empty fields are null.
+ *
+ * <pre>gradle precomputeMatches --args="--input items.tsv --output matches.jsonl --limit 10 --min-score 0.3"</pre>
+ */
+public final class MatchPrecomputeJob {
+    private static final int BATCH = 4_096;
+
+    private MatchPrecomputeJob() {}
+
+    public static long run(MatchCandidateIndex index, Writer out, double minScore, int limit, EnhancedMatchScorer.UserTradeStats stats, int threads) throws IOException {
+        List<MatchingEngine.Item> items = index.findAllItems();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long written = 0;
+            for (int from = 0; from < items.size(); from += BATCH) {
+                int to = Math.min(items.size(), from + BATCH);
+                List<Future<String>> lines = new ArrayList<>(to - from);
+                for (MatchingEngine.Item source : items.subList(from, to)) {
+                    lines.add(pool.submit(() -> toJsonLine(source.id, index.findMatches(source, minScore, limit, stats))));
+                }
+                for (Future<String> line : lines) { out.write(line.get()); out.write('\n'); written++; }
+            }
+            out.flush();
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("match precompute interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("match precompute failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static MatchCandidateIndex loadTsv(BufferedReader in) throws IOException {
+        MatchCandidateIndex index = new MatchCandidateIndex();
+        String line; int lineNo = 0;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank() || line.startsWith("#")) continue;
+            String[] f = line.split("\t", -1);
+            if (f.length < 11) throw new IOException("line " + lineNo + ": expected 11 tab-separated fields, got " + f.length);
+            MatchingEngine.Item it = new MatchingEngine.Item(f[0]);
+            it.title = emptyToNull(f[1]); it.category = emptyToNull(f[2]);
+            it.tags = f[3].isEmpty() ? List.of() : List.of(f[3].split(","));
+            it.value = parseDouble(f[4]); it.lat = parseDouble(f[5]); it.lon = parseDouble(f[6]);
+            it.condition = f[7].isEmpty() ? null : EnhancedMatchScorer.Condition.valueOf(f[7]);
+            it.popularity = f[8].isEmpty() ? 0 : Integer.parseInt(f[8]);
+            it.createdAt = f[9].isEmpty() ? null : Instant.parse(f[9]);
+            it.ownerName = emptyToNull(f[10]);
+            index.save(it);
+        }
+        return index;
+    }
+
+    static String toJsonLine(String itemId, List<MatchingEngine.MatchResult> matches) {
+        StringBuilder sb = new StringBuilder(64 + matches.size() * 160);
+        sb.append("{\"itemId\":"); quote(sb, itemId).append(",\"matches\":[");
+        for (int i = 0; i < matches.size(); i++) {
+            MatchingEngine.MatchResult m = matches.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"itemId\":"); quote(sb, m.matchedItemId).append(",\"score\":").append(m.matchScore);
+            sb.append(",\"distanceKm\":").append(m.distanceKm == null ? "null" : m.distanceKm.toString());
+            sb.append(",\"reasons\":{");
+            boolean first = true;
+            for (Map.Entry<String, String> r : m.reasons.entrySet()) {
+                if (!first) sb.append(',');
+                quote(sb, r.getKey()).append(':'); quote(sb, r.getValue());
+                first = false;
+            }
+            sb.append("}}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static StringBuilder quote(StringBuilder sb, String s) {
+        if (s == null) return sb.append("null");
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c)); else sb.append(c);
+            }
+        }
+        return sb.append('"');
+    }
+
+    private static String emptyToNull(String s) { return s.isEmpty() ? null : s; }
+
+    private static Double parseDouble(String s) { return s.isEmpty() ? null : Double.valueOf(s); }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) opts.put(args[i], args[i + 1]);
+        String input = opts.get("--input"), output = opts.getOrDefault("--output", "matches.jsonl");
+        if (input == null) {
+            System.err.println("usage: MatchPrecomputeJob --input items.tsv [--output matches.jsonl] [--limit 10] [--min-score 0.3] [--threads N]");
+            System.exit(2);
+        }
+        int limit = Integer.parseInt(opts.getOrDefault("--limit", "10"));
+        double minScore = Double.parseDouble(opts.getOrDefault("--min-score", "0.3"));
+        int threads = Integer.parseInt(opts.getOrDefault("--threads", Integer.toString(Runtime.getRuntime().availableProcessors())));
+
+        long t0 = System.nanoTime();
+        MatchCandidateIndex index;
+        try (BufferedReader in = Files.newBufferedReader(Path.of(input), StandardCharsets.UTF_8)) { index = loadTsv(in); }
+        long t1 = System.nanoTime();
+        long written;
+        try (Writer out = Files.newBufferedWriter(Path.of(output), StandardCharsets.UTF_8)) {
+            written = run(index, out, minScore, limit, null, threads);
+        }
+        long t2 = System.nanoTime();
+        System.out.printf("loaded %d items in %d ms, wrote %d lines to %s in %d ms%n",
+                index.size(), (t1 - t0) / 1_000_000, written, output, (t2 - t1) / 1_000_000);
+    }
+}
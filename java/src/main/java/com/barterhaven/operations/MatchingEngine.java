@@ -2,47 +2,192 @@ package com.barterhaven.operations;
 
 import com.barterhaven.algorithms.EnhancedMatchScorer;
 import com.barterhaven.algorithms.HaversineDistanceCalculator;
+import com.barterhaven.algorithms.Metrics;
+import com.barterhaven.algorithms.TopKSelector;
 
 import java.time.*;
 import java.util.*;
-import java.util.stream.*;
+import java.util.concurrent.*;
 
 public final class MatchingEngine {
     public static final class Item {
         public final String id; public String title; public String ownerName; public Double value; public Double lat; public Double lon;
         public EnhancedMatchScorer.Condition condition; public List<String> tags; public String category; public int popularity; public Instant createdAt; public String ownerId; public String imageUrl;
+        /** Owner's mean review rating (1-5), null when unrated; see {@link EnhancedMatchScorer#reputationTerm}. */
+        public Double ownerRating;
+        // Scoring view with interned category/tag ids, rebuilt by toEnhanced only after a scored field changes.
+        volatile EnhancedMatchScorer.Item scoring;
         public Item(String id) { this.id = id; }
+        /** Sets both coordinates under the item's lock; items shared between threads are moved only through here. */
+        public synchronized void setLocation(Double lat, Double lon) { this.lat = lat; this.lon = lon; }
+        /** {lat, lon} read together under the item's lock, so never one old and one new coordinate; null when unlocated. */
+        public synchronized double[] location() { return lat != null && lon != null ? new double[]{lat, lon} : null; }
     }
     public static final class MatchResult {
         public String matchedItemId; public double matchScore; public Double distanceKm; public String itemTitle; public String ownerName; public Double estimatedValue; public Map<String,String> reasons = new LinkedHashMap<>();
+
+        /** Field-by-field copy with its own reasons map. */
+        public MatchResult copy() {
+            MatchResult r = new MatchResult();
+            r.matchedItemId = matchedItemId; r.matchScore = matchScore; r.distanceKm = distanceKm; r.itemTitle = itemTitle;
+            r.ownerName = ownerName; r.estimatedValue = estimatedValue; r.reasons = new LinkedHashMap<>(reasons);
+            return r;
+        }
     }
 
+    public static final int PARALLEL_THRESHOLD = 8_192;
+    private static final int MIN_PARALLEL_CHUNK = 2_048;
+    // Candidates get scoring views and batch distances this many at a time, so extra memory stays O(limit).
+    private static final int BLOCK = 256;
+    private static final Metrics.Timer FIND_TIME = Metrics.timer("matching.findPotentialMatches");
+    private static final Metrics.Counter SCANNED = Metrics.counter("matching.candidates.scanned");
+    private static final Metrics.Counter QUALIFIED = Metrics.counter("matching.candidates.qualified");
+    private static final Metrics.Counter OFFERED = Metrics.counter("matching.candidates.offered");
+    private static final Metrics.Counter RETURNED = Metrics.counter("matching.candidates.returned");
+
     private MatchingEngine() {}
 
     public static List<MatchResult> findPotentialMatches(Item source, List<Item> candidates, double minScore, int limit, EnhancedMatchScorer.UserTradeStats stats) {
-        return candidates.stream()
-                .filter(i -> !Objects.equals(i.id, source.id))
-                .map(i -> {
-                    EnhancedMatchScorer.ScoreWithReasons s = EnhancedMatchScorer.score(
-                            toEnhanced(source), toEnhanced(i), stats);
-                    MatchResult r = new MatchResult();
-                    r.matchedItemId = i.id; r.matchScore = s.score; r.itemTitle = i.title; r.ownerName = i.ownerName; r.estimatedValue = i.value; r.reasons = s.reasons;
-                    if (source.lat != null && source.lon != null && i.lat != null && i.lon != null) {
-                        r.distanceKm = HaversineDistanceCalculator.distanceKm(source.lat, source.lon, i.lat, i.lon);
-                    }
-                    return r;
-                })
-                .filter(r -> r.matchScore >= minScore)
-                .sorted(Comparator.<MatchResult>comparingDouble(m -> -m.matchScore)
-                        .thenComparing(m -> Optional.ofNullable(m.distanceKm).orElse(Double.MAX_VALUE)))
-                .limit(limit)
-                .collect(Collectors.toList());
-    }
-
-    private static EnhancedMatchScorer.Item toEnhanced(Item it) {
-        return new EnhancedMatchScorer.Item(
-                it.id, it.category, it.tags, it.value, it.lat, it.lon,
-                it.condition, it.popularity, it.createdAt);
+        if (limit < 0) throw new IllegalArgumentException(Integer.toString(limit));
+        long t0 = FIND_TIME.start();
+        EnhancedMatchScorer.Item src = toEnhanced(source);
+        int n = candidates.size();
+        return recorded(t0, n, toResults(src, rankRange(source, src, candidates, 0, n, minScore, limit, stats).toSortedList(), stats));
+    }
+
+    /**
+     * Same results as the sequential overload, with the candidates split into chunks ranked on {@code pool}. Every
+     * chunk keeps its own top-K and the merge uses the full (score, distance, input position) order, so the output
+     * does not depend on scheduling. Inputs smaller than {@link #PARALLEL_THRESHOLD} stay on the calling thread.
+     */
+    public static List<MatchResult> findPotentialMatches(Item source, List<Item> candidates, double minScore, int limit, EnhancedMatchScorer.UserTradeStats stats, ForkJoinPool pool) {
+        if (pool == null || candidates.size() < PARALLEL_THRESHOLD) return findPotentialMatches(source, candidates, minScore, limit, stats);
+        if (limit < 0) throw new IllegalArgumentException(Integer.toString(limit));
+        long t0 = FIND_TIME.start();
+        EnhancedMatchScorer.Item src = toEnhanced(source);
+        int n = candidates.size(), chunk = Math.max(MIN_PARALLEL_CHUNK, n / (pool.getParallelism() * 4));
+        TopKSelector<Ranked> top = pool.invoke(new RankTask(source, src, candidates, 0, n, chunk, minScore, limit, stats));
+        return recorded(t0, n, toResults(src, top.toSortedList(), stats));
+    }
+
+    private static List<MatchResult> recorded(long t0, int scanned, List<MatchResult> results) {
+        SCANNED.add(scanned);
+        RETURNED.add(results.size());
+        FIND_TIME.stop(t0);
+        return results;
+    }
+
+    private static final class RankTask extends RecursiveTask<TopKSelector<Ranked>> {
+        private static final long serialVersionUID = 1L;
+        private final Item source; private final EnhancedMatchScorer.Item src; private final List<Item> items; private final int from, to, chunk;
+        private final double minScore; private final int limit; private final EnhancedMatchScorer.UserTradeStats stats;
+        RankTask(Item source, EnhancedMatchScorer.Item src, List<Item> items, int from, int to, int chunk, double minScore, int limit, EnhancedMatchScorer.UserTradeStats stats) {
+            this.source = source; this.src = src; this.items = items; this.from = from; this.to = to; this.chunk = chunk; this.minScore = minScore; this.limit = limit; this.stats = stats;
+        }
+        @Override protected TopKSelector<Ranked> compute() {
+            if (to - from <= chunk) return rankRange(source, src, items, from, to, minScore, limit, stats);
+            int mid = (from + to) >>> 1;
+            RankTask left = new RankTask(source, src, items, from, mid, chunk, minScore, limit, stats);
+            left.fork();
+            TopKSelector<Ranked> right = new RankTask(source, src, items, mid, to, chunk, minScore, limit, stats).compute();
+            TopKSelector<Ranked> merged = left.join();
+            merged.offerAll(right);
+            return merged;
+        }
+    }
+
+    // Ranks items[from, to) a block at a time; positions in the list are the final tie-break.
+    private static TopKSelector<Ranked> rankRange(Item source, EnhancedMatchScorer.Item src, List<Item> items, int from, int to, double minScore, int limit, EnhancedMatchScorer.UserTradeStats stats) {
+        int width = Math.min(BLOCK, to - from);
+        Item[] block = new Item[width];
+        EnhancedMatchScorer.Item[] cands = new EnhancedMatchScorer.Item[width];
+        boolean located = src.lat != null && src.lon != null;
+        double[] lats = located ? new double[width] : null, lons = located ? new double[width] : null, dist = located ? new double[width] : null;
+        TopKSelector<Ranked> top = new TopKSelector<>(limit, RANK_ORDER);
+        int qualified = 0, offered = 0;
+        Iterator<Item> it = items.subList(from, to).iterator();
+        for (int base = from; base < to; base += width) {
+            int n = Math.min(width, to - base);
+            // Scoring views first: each reads an item's coordinates once, so its score and distance use the same position.
+            for (int j = 0; j < n; j++) { block[j] = it.next(); cands[j] = toEnhanced(block[j]); }
+            if (located) {
+                for (int j = 0; j < n; j++) {
+                    EnhancedMatchScorer.Item c = cands[j];
+                    boolean both = c.lat != null && c.lon != null;
+                    lats[j] = both ? c.lat : Double.NaN; lons[j] = both ? c.lon : Double.NaN;
+                }
+                HaversineDistanceCalculator.distancesKm(src.lat, src.lon, lats, lons, n, dist);
+            }
+            for (int j = 0; j < n; j++) {
+                Item i = block[j];
+                if (Objects.equals(i.id, source.id)) continue;
+                double km = located ? dist[j] : Double.NaN;
+                double score = EnhancedMatchScorer.scoreOnly(src, cands[j], km, stats);
+                if (!(score >= minScore)) continue;
+                qualified++;
+                int idx = base + j;
+                if (top.isFull() && (limit == 0 || !outranks(score, km, idx, top.worst()))) continue;
+                offered++;
+                top.offer(new Ranked(i, cands[j], idx, score, Double.isNaN(km) ? null : km));
+            }
+        }
+        QUALIFIED.add(qualified);
+        OFFERED.add(offered);
+        return top;
+    }
+
+    static List<MatchResult> toResults(EnhancedMatchScorer.Item src, List<Ranked> ranked, EnhancedMatchScorer.UserTradeStats stats) {
+        List<MatchResult> out = new ArrayList<>(ranked.size());
+        for (Ranked rk : ranked) {
+            Item i = rk.item;
+            MatchResult r = new MatchResult();
+            r.matchedItemId = i.id; r.matchScore = rk.score; r.itemTitle = i.title; r.ownerName = i.ownerName; r.estimatedValue = i.value; r.reasons = EnhancedMatchScorer.explain(src, rk.scored, stats).reasons;
+            r.distanceKm = rk.distanceKm;
+            out.add(r);
+        }
+        return out;
+    }
+
+    // Same order the stream version produced: score desc, distance asc (missing last), then input position.
+    static final Comparator<Ranked> RANK_ORDER = (a, b) -> {
+        int c = Double.compare(b.score, a.score);
+        if (c != 0) return c;
+        c = Double.compare(a.sortDistance(), b.sortDistance());
+        return c != 0 ? c : Integer.compare(a.seq, b.seq);
+    };
+
+    // RANK_ORDER(candidate, worst) < 0 without building the candidate; NaN km stands for a missing distance.
+    static boolean outranks(double score, double km, int seq, Ranked worst) {
+        int c = Double.compare(worst.score, score);
+        if (c == 0) c = Double.compare(Double.isNaN(km) ? Double.MAX_VALUE : km, worst.sortDistance());
+        if (c == 0) c = Integer.compare(seq, worst.seq);
+        return c < 0;
+    }
+
+    static final class Ranked {
+        final Item item; final EnhancedMatchScorer.Item scored; final int seq; final double score; final Double distanceKm;
+        Ranked(Item item, EnhancedMatchScorer.Item scored, int seq, double score, Double distanceKm) { this.item = item; this.scored = scored; this.seq = seq; this.score = score; this.distanceKm = distanceKm; }
+        double sortDistance() { return distanceKm != null ? distanceKm : Double.MAX_VALUE; }
+    }
+
+    static Double distanceKm(EnhancedMatchScorer.Item source, EnhancedMatchScorer.Item other) {
+        if (source.lat == null || source.lon == null || other.lat == null || other.lon == null) return null;
+        return HaversineDistanceCalculator.distanceKm(source.lat, source.lon, other.lat, other.lon);
+    }
+
+    static EnhancedMatchScorer.Item toEnhanced(Item it) {
+        EnhancedMatchScorer.Item s = it.scoring;
+        Double lat, lon;
+        synchronized (it) { lat = it.lat; lon = it.lon; }
+        if (s != null && Objects.equals(s.category, it.category) && (it.tags == null ? s.tags.isEmpty() : s.tags.equals(it.tags))
+                && Objects.equals(s.estimatedValue, it.value) && Objects.equals(s.lat, lat) && Objects.equals(s.lon, lon)
+                && s.condition == it.condition && s.popularityScore == it.popularity && Objects.equals(s.createdAt, it.createdAt)
+                && Objects.equals(s.ownerRating, it.ownerRating)) return s;
+        s = new EnhancedMatchScorer.Item(
+                it.id, it.category, it.tags, it.value, lat, lon,
+                it.condition, it.popularity, it.createdAt, it.ownerRating);
+        it.scoring = s;
+        return s;
     }
 
     public static void main(String[] args) {
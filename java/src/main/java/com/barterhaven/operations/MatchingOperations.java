@@ -12,6 +12,10 @@ public final class MatchingOperations {
         return MatchingEngine.findPotentialMatches(source, all, minScore, limit, stats);
     }
 
+    public static List<MatchingEngine.MatchResult> findMatches(MatchingEngine.Item source, MatchCandidateIndex index, double minScore, int limit, EnhancedMatchScorer.UserTradeStats stats) {
+        return index.findMatches(source, minScore, limit, stats);
+    }
+
     public static void main(String[] args) {
         MatchingEngine.Item source = new MatchingEngine.Item("A"); source.category="Books"; source.tags=List.of("classic"); source.value=20.0; source.lat=37.78; source.lon=-122.43; source.condition=EnhancedMatchScorer.Condition.GOOD; source.createdAt=Instant.now();
         MatchingEngine.Item cand = new MatchingEngine.Item("B"); cand.category="Books"; cand.tags=List.of("classic"); cand.value=21.0; cand.lat=37.79; cand.lon=-122.44; cand.condition=EnhancedMatchScorer.Condition.LIKE_NEW; cand.createdAt=Instant.now().minusSeconds(3600); cand.ownerName="User X"; cand.title="Book";
@@ -0,0 +1,323 @@
+package com.barterhaven.operations;
+
+import java.text.Normalizer;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Full-text index over chat messages. Each message is a document indexed under both participants, so a user's
+ * search reads only that user's postings and its cost follows the user's own history, not the total volume.
+ * Posting lists are byte arrays of varint triples (doc-id delta, term frequency, peer) in doc order, the peer being
+ * the other participant's number in this index, so a search within one conversation filters while decoding instead
+ * of loading each message. Queries match messages containing every query token, rank them by BM25 over the user's
+ * live messages (newest first on ties) and return one page. Soft-deleted messages are tombstoned: they leave the
+ * BM25 statistics at once and are skipped; {@link #compact} drops them from the lists and the document table.
+ *
+ * <p>Tokens are maximal runs of letters and digits, lower-cased with accents stripped, so "caf&eacute;" matches "cafe".
+ */
+public final class MessageSearchIndex {
+    private static final double K1 = 1.2, B = 0.75;
+    private static final int MAX_TOKEN_CHARS = 64;
+
+    public static final class Hit {
+        public final ChatOperations.Message message; public final double score;
+        Hit(ChatOperations.Message message, double score) { this.message = message; this.score = score; }
+    }
+
+    // Varint-coded (doc delta, tf, peer) triples in increasing doc order. entries counts every triple; docs only those
+    // of live messages, the document frequency BM25 uses.
+    private static final class Postings {
+        byte[] data = new byte[8]; int size, entries, docs, lastDoc = -1;
+        void add(int doc, int tf, int peer) {
+            int need = varintBytes(doc - lastDoc) + varintBytes(tf) + varintBytes(peer);
+            if (data.length - size < need) data = Arrays.copyOf(data, Math.max(data.length * 2, size + need));
+            size = putVarint(data, size, doc - lastDoc);
+            size = putVarint(data, size, tf);
+            size = putVarint(data, size, peer);
+            lastDoc = doc; entries++; docs++;
+        }
+    }
+
+    // One user's postings and BM25 statistics over their live messages; id is the user's number as a peer.
+    private static final class UserTerms {
+        final Map<String, Postings> terms = new HashMap<>();
+        final int id; int docs; long tokens;
+        UserTerms(int id) { this.id = id; }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, UserTerms> byUser = new HashMap<>();
+    private final List<ChatOperations.Message> docs = new ArrayList<>();
+    private int[] docLength = new int[64];
+    private final BitSet deleted = new BitSet();
+    private final Map<String, Integer> docById = new HashMap<>();
+    private int nextUserId;
+
+    /** Indexes {@code m} (replacing an earlier message with the same id); soft-deleted messages are not indexed. */
+    public void index(ChatOperations.Message m) {
+        lock.writeLock().lock();
+        try {
+            Integer old = docById.remove(m.id);
+            if (old != null) tombstone(old);
+            if (m.deletedAt != null) return;
+            Map<String, Integer> tf = new HashMap<>();
+            int length = 0;
+            for (String t : tokenize(m.content)) { tf.merge(t, 1, Integer::sum); length++; }
+            int doc = docs.size();
+            docs.add(m);
+            if (doc == docLength.length) docLength = Arrays.copyOf(docLength, doc * 2);
+            docLength[doc] = length;
+            docById.put(m.id, doc);
+            UserTerms sender = user(m.senderId), receiver = user(m.receiverId);
+            addPostings(sender, receiver.id, doc, tf, length);
+            if (sender != receiver) addPostings(receiver, sender.id, doc, tf, length);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private UserTerms user(String userId) { return byUser.computeIfAbsent(userId, k -> new UserTerms(nextUserId++)); }
+
+    private static void addPostings(UserTerms u, int peer, int doc, Map<String, Integer> tf, int length) {
+        u.docs++; u.tokens += length;
+        tf.forEach((term, n) -> u.terms.computeIfAbsent(term, k -> new Postings()).add(doc, n, peer));
+    }
+
+    /** Tombstones the message; it stops matching at once and its postings are dropped by the next {@link #compact}. */
+    public boolean remove(String messageId) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docById.remove(messageId);
+            if (doc == null) return false;
+            tombstone(doc);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Takes the message out of its participants' statistics at once; its postings stay until compact.
+    private void tombstone(int doc) {
+        if (deleted.get(doc)) return;
+        deleted.set(doc);
+        ChatOperations.Message m = docs.get(doc);
+        Set<String> terms = new HashSet<>(tokenize(m.content));
+        dropStats(m.senderId, terms, docLength[doc]);
+        if (!Objects.equals(m.senderId, m.receiverId)) dropStats(m.receiverId, terms, docLength[doc]);
+    }
+
+    private void dropStats(String user, Set<String> terms, int length) {
+        UserTerms u = byUser.get(user);
+        u.docs--; u.tokens -= length;
+        for (String t : terms) u.terms.get(t).docs--;
+    }
+
+    /**
+     * Page of {@code userId}'s messages containing every token of {@code query}, best first; {@code otherUserId}
+     * restricts the search to the conversation with that user (null: all of the user's conversations).
+     */
+    public List<Hit> search(String userId, String query, String otherUserId, int limit, int offset) {
+        if (limit < 0 || offset < 0) throw new IllegalArgumentException("offset and limit must be >= 0");
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty() || limit == 0) return new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            UserTerms u = byUser.get(userId);
+            if (u == null) return new ArrayList<>();
+            int peer = -1;
+            if (otherUserId != null) {
+                UserTerms other = byUser.get(otherUserId);
+                if (other == null) return new ArrayList<>();
+                peer = other.id;
+            }
+            List<Postings> lists = new ArrayList<>(tokens.size());
+            for (String t : tokens) {
+                Postings p = u.terms.get(t);
+                if (p == null || p.docs == 0) return new ArrayList<>();
+                lists.add(p);
+            }
+            lists.sort(Comparator.comparingInt(p -> p.entries));
+
+            // Intersect from the shortest list, which alone is filtered by conversation and tombstones; every
+            // candidate keeps its running score.
+            double avgLength = u.tokens / (double) Math.max(1, u.docs);
+            int[] cand = null; double[] score = null; int n = 0;
+            for (Postings p : lists) {
+                double idf = Math.log(1.0 + (u.docs - p.docs + 0.5) / (p.docs + 0.5));
+                int[] nextCand = new int[cand == null ? p.entries : n];
+                double[] nextScore = new double[nextCand.length];
+                int m = 0, i = 0, doc = -1;
+                int[] cursor = new int[1];
+                for (int k = 0; k < p.entries && (cand == null || i < n); k++) {
+                    doc += getVarint(p.data, cursor);
+                    int tf = getVarint(p.data, cursor), docPeer = getVarint(p.data, cursor);
+                    if (cand == null) {
+                        if (peer >= 0 && docPeer != peer || deleted.get(doc)) continue;
+                    } else {
+                        while (i < n && cand[i] < doc) i++;
+                        if (i == n || cand[i] != doc) continue;
+                    }
+                    double len = docLength[doc];
+                    double s = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * len / avgLength));
+                    nextCand[m] = doc; nextScore[m] = (cand == null ? 0.0 : score[i]) + s; m++;
+                }
+                cand = nextCand; score = nextScore; n = m;
+                if (n == 0) return new ArrayList<>();
+            }
+
+            int want = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(want, 1024) + 1, HIT_ORDER.reversed());
+            for (int k = 0; k < n; k++) {
+                ChatOperations.Message m = docs.get(cand[k]);
+                if (m.deletedAt != null) continue;
+                top.add(new Hit(m, score[k]));
+                if (top.size() > want) top.poll();
+            }
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(HIT_ORDER);
+            return offset >= ranked.size() ? new ArrayList<>() : new ArrayList<>(ranked.subList(offset, ranked.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final Comparator<Hit> HIT_ORDER = Comparator.comparingDouble((Hit h) -> h.score).reversed()
+            .thenComparing((Hit h) -> h.message.createdAt, Comparator.reverseOrder())
+            .thenComparing(h -> h.message.id);
+
+    /**
+     * Drops tombstoned messages: live ones are renumbered in their existing order, so the document table shrinks and
+     * posting lists are rewritten without the dead entries, and users left without live messages are forgotten (no
+     * remaining posting names them as a peer).
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            int[] renumbered = new int[docs.size()];
+            int live = 0;
+            for (int doc = 0; doc < docs.size(); doc++) {
+                if (deleted.get(doc)) { renumbered[doc] = -1; continue; }
+                docs.set(live, docs.get(doc));
+                docLength[live] = docLength[doc];
+                renumbered[doc] = live++;
+            }
+            docs.subList(live, docs.size()).clear();
+            docLength = Arrays.copyOf(docLength, Math.max(64, live));
+            for (Map.Entry<String, Integer> e : docById.entrySet()) e.setValue(renumbered[e.getValue()]);
+            deleted.clear();
+
+            for (Iterator<UserTerms> users = byUser.values().iterator(); users.hasNext(); ) {
+                UserTerms u = users.next();
+                for (Iterator<Postings> it = u.terms.values().iterator(); it.hasNext(); ) {
+                    Postings p = it.next(), kept = new Postings();
+                    int[] cursor = new int[1];
+                    for (int k = 0, doc = -1; k < p.entries; k++) {
+                        doc += getVarint(p.data, cursor);
+                        int tf = getVarint(p.data, cursor), peer = getVarint(p.data, cursor);
+                        if (renumbered[doc] >= 0) kept.add(renumbered[doc], tf, peer);
+                    }
+                    if (kept.entries == 0) { it.remove(); continue; }
+                    kept.data = Arrays.copyOf(kept.data, kept.size);
+                    p.data = kept.data; p.size = kept.size; p.entries = kept.entries; p.docs = kept.docs; p.lastDoc = kept.lastDoc;
+                }
+                if (u.docs == 0) users.remove();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Documents held (live and tombstoned), bytes held by posting lists (encoded and allocated) and the number of postings. */
+    public long[] postingStats() {
+        lock.readLock().lock();
+        try {
+            long used = 0, allocated = 0, postings = 0;
+            for (UserTerms u : byUser.values()) for (Postings p : u.terms.values()) { used += p.size; allocated += p.data.length; postings += p.entries; }
+            return new long[]{docs.size(), used, allocated, postings};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null || text.isEmpty()) return out;
+        String s = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder cur = new StringBuilder();
+        for (int i = 0; i <= s.length(); i++) {
+            char c = i < s.length() ? s.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c)) { if (cur.length() < MAX_TOKEN_CHARS) cur.append(Character.toLowerCase(c)); }
+            else if (cur.length() > 0) { out.add(cur.toString()); cur.setLength(0); }
+        }
+        return out;
+    }
+
+    private static int putVarint(byte[] buf, int pos, int v) {
+        while ((v & ~0x7F) != 0) { buf[pos++] = (byte) ((v & 0x7F) | 0x80); v >>>= 7; }
+        buf[pos++] = (byte) v;
+        return pos;
+    }
+
+    private static int varintBytes(int v) {
+        int n = 1;
+        while ((v & ~0x7F) != 0) { n++; v >>>= 7; }
+        return n;
+    }
+
+    private static int getVarint(byte[] buf, int[] cursor) {
+        int pos = cursor[0], v = 0, shift = 0;
+        byte b;
+        do { b = buf[pos++]; v |= (b & 0x7F) << shift; shift += 7; } while (b < 0);
+        cursor[0] = pos;
+        return v;
+    }
+
+    public static void main(String[] args) {
+        System.out.println(tokenize("Is the CAF\u00c9 table still available?? 2 chairs-included"));
+        String[] words = new String[2_000];
+        for (int i = 0; i < words.length; i++) words[i] = "w" + Integer.toString(i, 36);
+        Instant t0 = Instant.parse("2025-01-01T00:00:00Z");
+        compactDemo(words, t0);
+
+        // Query latency for one user while total volume grows tenfold with the user's own history held fixed.
+        MessageSearchIndex index = new MessageSearchIndex();
+        int id = 0, hot = 0;
+        for (int scale : new int[]{100_000, 1_000_000}) {
+            Random r2 = new Random(8);
+            for (; id < scale; id++) index.index(randomMessage(r2, words, id, 50_000, t0));
+            for (int i = 0; i < 2_000; i++, hot++) index.index(new ChatOperations.Message("h" + hot, "hot", "u" + (i % 20), words[i % 100] + " " + words[(i * 7) % 300], t0.plusSeconds(hot)));
+            long best = Long.MAX_VALUE, bestConversation = Long.MAX_VALUE;
+            for (int rep = 0; rep < 200; rep++) {
+                long s = System.nanoTime();
+                index.search("hot", words[rep % 100], null, 20, 0);
+                long c = System.nanoTime();
+                index.search("hot", words[rep % 100], "u" + (rep % 20), 20, 0);
+                best = Math.min(best, c - s);
+                bestConversation = Math.min(bestConversation, System.nanoTime() - c);
+            }
+            System.out.printf("%,d messages (%,d of the user's): best query %d us, within one conversation %d us%n", id + hot, hot, best / 1_000, bestConversation / 1_000);
+        }
+    }
+
+    // What compaction reclaims after one message in twenty is deleted.
+    private static void compactDemo(String[] words, Instant t0) {
+        Random rnd = new Random(4);
+        ChatOperations.SearchableMessageRepo repo = new ChatOperations.SearchableMessageRepo(new ChatOperations.IndexedMessageRepo(), new MessageSearchIndex());
+        List<ChatOperations.Message> all = new ArrayList<>();
+        for (int i = 0; i < 60_000; i++) all.add(randomMessage(rnd, words, i, 300, t0));
+        for (ChatOperations.Message m : all) repo.save(m);
+        for (int i = 0; i < 3_000; i++) repo.softDelete(all.get(rnd.nextInt(all.size())).id, null);
+        long[] before = repo.index().postingStats();
+        repo.index().compact();
+        long[] after = repo.index().postingStats();
+        System.out.printf("compact: documents %d -> %d, postings %d -> %d, %.2f bytes/posting%n", before[0], after[0], before[3], after[3], after[1] / (double) after[3]);
+    }
+
+    private static ChatOperations.Message randomMessage(Random rnd, String[] words, int i, int users, Instant t0) {
+        StringBuilder sb = new StringBuilder();
+        for (int w = 1 + rnd.nextInt(12); w > 0; w--) sb.append(words[(int) Math.min(words.length - 1, Math.abs(rnd.nextGaussian()) * 200)]).append(rnd.nextInt(8) == 0 ? ", " : " ");
+        return new ChatOperations.Message("m" + i, "u" + rnd.nextInt(users), "u" + rnd.nextInt(users), sb.toString(), t0.plusSeconds(i));
+    }
+}
@@ -1,49 +1,206 @@
 package com.barterhaven.operations;
 
+import com.barterhaven.algorithms.Metrics;
+import com.barterhaven.algorithms.StripedLock;
+import com.barterhaven.algorithms.UnreadCounter;
+
 import java.time.*;
 import java.util.*;
-import java.util.stream.*;
+import java.util.concurrent.*;
 
 public final class NotificationOperations {
-    public static final class Notification { public final String id; public final String userId; public boolean read; public final Instant createdAt; public Notification(String id, String userId, boolean read){this.id=id; this.userId=userId; this.read=read; this.createdAt=Instant.now();} }
-    public static final class Message { public final String id; public final String senderId; public final String receiverId; public boolean read; public boolean deleted; public Message(String id,String s,String r,boolean read,boolean del){this.id=id; this.senderId=s; this.receiverId=r; this.read=read; this.deleted=del;} }
+    public static final class Notification { public final String id; public final String userId; public volatile boolean read; public final Instant createdAt; public Notification(String id, String userId, boolean read){this(id, userId, read, Instant.now());} public Notification(String id, String userId, boolean read, Instant createdAt){this.id=id; this.userId=userId; this.read=read; this.createdAt=createdAt;} }
+    public static final class Message { public final String id; public final String senderId; public final String receiverId; public volatile boolean read; public volatile boolean deleted; public Message(String id,String s,String r,boolean read,boolean del){this.id=id; this.senderId=s; this.receiverId=r; this.read=read; this.deleted=del;} }
     public interface NotificationRepository {
         void upsertPushToken(String userId, String token, String platform, String deviceType);
+        default Optional<String> findPushToken(String userId) { return Optional.empty(); }
         List<Notification> findByUser(String userId, int limit, int offset);
+        /** Up to {@code limit} notifications older than {@code before} in timeline order (null: from the newest). */
+        default List<Notification> findByUser(String userId, Cursor before, int limit) {
+            List<Notification> all = new ArrayList<>(findByUser(userId, Integer.MAX_VALUE, 0));
+            all.sort((a, b) -> TIMELINE_ORDER.compare(Cursor.of(a), Cursor.of(b)));
+            List<Notification> out = new ArrayList<>();
+            for (Notification n : all) {
+                if (out.size() >= limit) break;
+                if (before == null || TIMELINE_ORDER.compare(Cursor.of(n), before) > 0) out.add(n);
+            }
+            return out;
+        }
         void save(Notification n); void delete(String id); void markRead(String id); void markAllRead(String userId);
         long countUnread(String userId);
     }
     public interface MessageRepository { long countUnreadMessages(String userId); }
 
+    /** Keyset position in a user's timeline, newest first: a notification's createdAt plus its id to break ties. */
+    public static final class Cursor {
+        public final Instant createdAt; public final String notificationId;
+        public Cursor(Instant createdAt, String notificationId) { this.createdAt = createdAt; this.notificationId = notificationId; }
+        public static Cursor of(Notification n) { return new Cursor(n.createdAt, n.id); }
+    }
+
+    // Timeline order: newest first, ties by id.
+    private static final Comparator<Cursor> TIMELINE_ORDER = Comparator.comparing((Cursor c) -> c.createdAt).reversed().thenComparing(c -> c.notificationId);
+
+    /**
+     * Keeps a per-user timeline ordered by (createdAt desc, id) and a per-user set of unread ids, so pages are read
+     * straight off the user's timeline and markAllRead only touches that user's unread notifications.
+     */
     public static final class InMemoryNotifRepo implements NotificationRepository {
         private final Map<String, String> tokens = new HashMap<>();
-        private final Map<String, Notification> map = new LinkedHashMap<>();
+        private final Map<String, Notification> map = new HashMap<>();
+        private final Map<String, NavigableMap<Cursor, Notification>> timelines = new HashMap<>();
+        private final Map<String, Set<String>> unreadIds = new HashMap<>();
+        private final UnreadCounter unread = new UnreadCounter();
         public void upsertPushToken(String userId, String token, String platform, String deviceType) { tokens.put(userId, token); }
+        public Optional<String> findPushToken(String userId) { return Optional.ofNullable(tokens.get(userId)); }
+        public List<Notification> findByUser(String userId, int limit, int offset) {
+            return page(timelines.getOrDefault(userId, Collections.emptyNavigableMap()), offset, limit);
+        }
+        public List<Notification> findByUser(String userId, Cursor before, int limit) {
+            NavigableMap<Cursor, Notification> t = timelines.getOrDefault(userId, Collections.emptyNavigableMap());
+            return page(before == null ? t : t.tailMap(before, false), 0, limit);
+        }
+        public void save(Notification n) {
+            Notification old = map.put(n.id, n);
+            if (old != null) unindex(old);
+            timelines.computeIfAbsent(n.userId, k -> new TreeMap<>(TIMELINE_ORDER)).put(Cursor.of(n), n);
+            if (!n.read) { unreadIds.computeIfAbsent(n.userId, k -> new HashSet<>()).add(n.id); unread.increment(n.userId); }
+        }
+        public void delete(String id) { Notification old = map.remove(id); if (old != null) unindex(old); }
+        public void markRead(String id) {
+            Notification n = map.get(id);
+            if (n == null || n.read) return;
+            n.read = true; unread.decrement(n.userId);
+            Set<String> ids = unreadIds.get(n.userId);
+            if (ids != null) ids.remove(id);
+        }
+        public void markAllRead(String userId) {
+            Set<String> ids = unreadIds.remove(userId);
+            if (ids == null) return;
+            for (String id : ids) { Notification n = map.get(id); if (n != null && !n.read) { n.read = true; unread.decrement(userId); } }
+        }
+        public long countUnread(String userId) { return unread.get(userId); }
+        public Map<String, long[]> checkUnreadConsistency() {
+            Map<String, Long> actual = new HashMap<>();
+            for (Notification n : map.values()) if (!n.read) actual.merge(n.userId, 1L, Long::sum);
+            return unread.drift(actual);
+        }
+        private void unindex(Notification old) {
+            NavigableMap<Cursor, Notification> t = timelines.get(old.userId);
+            if (t != null) { t.remove(Cursor.of(old)); if (t.isEmpty()) timelines.remove(old.userId); }
+            if (!old.read) {
+                unread.decrement(old.userId);
+                Set<String> ids = unreadIds.get(old.userId);
+                if (ids != null) ids.remove(old.id);
+            }
+        }
+    }
+    /**
+     * Thread-safe counterpart of {@link InMemoryNotifRepo}: lock-free reads over concurrent skip-list timelines,
+     * per-id striped writes, and a notification flips to read at most once.
+     */
+    public static final class ConcurrentNotifRepo implements NotificationRepository {
+        private static final String NULL_USER = "\u0000";
+        private final ConcurrentHashMap<String, String> tokens = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Notification> map = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, ConcurrentSkipListMap<Cursor, Notification>> timelines = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Set<String>> unreadIds = new ConcurrentHashMap<>();
+        private final StripedLock locks = new StripedLock();
+        private final UnreadCounter unread = new UnreadCounter();
+        public void upsertPushToken(String userId, String token, String platform, String deviceType) { tokens.put(userKey(userId), token); }
+        public Optional<String> findPushToken(String userId) { return Optional.ofNullable(tokens.get(userKey(userId))); }
         public List<Notification> findByUser(String userId, int limit, int offset) {
-            return map.values().stream().filter(n -> Objects.equals(n.userId, userId))
-                    .sorted(Comparator.comparing((Notification n) -> n.createdAt).reversed())
-                    .skip(offset).limit(limit).collect(Collectors.toList());
+            return page(timelines.getOrDefault(userKey(userId), new ConcurrentSkipListMap<>(TIMELINE_ORDER)), offset, limit);
         }
-        public void save(Notification n) { map.put(n.id, n); }
-        public void delete(String id) { map.remove(id); }
-        public void markRead(String id) { Optional.ofNullable(map.get(id)).ifPresent(n -> n.read = true); }
-        public void markAllRead(String userId) { map.values().stream().filter(n->Objects.equals(n.userId,userId)).forEach(n->n.read=true); }
-        public long countUnread(String userId) { return map.values().stream().filter(n -> Objects.equals(n.userId,userId) && !n.read).count(); }
+        public List<Notification> findByUser(String userId, Cursor before, int limit) {
+            ConcurrentNavigableMap<Cursor, Notification> t = timelines.getOrDefault(userKey(userId), new ConcurrentSkipListMap<>(TIMELINE_ORDER));
+            return page(before == null ? t : t.tailMap(before, false), 0, limit);
+        }
+        public void save(Notification n) {
+            synchronized (locks.lockFor(n.id)) {
+                Notification old = map.put(n.id, n);
+                if (old != null) unindex(old);
+                timelines.computeIfAbsent(userKey(n.userId), k -> new ConcurrentSkipListMap<>(TIMELINE_ORDER)).put(Cursor.of(n), n);
+                if (!n.read) { unreadIds(n.userId).add(n.id); unread.increment(n.userId); }
+            }
+        }
+        public void delete(String id) {
+            synchronized (locks.lockFor(id)) {
+                Notification old = map.remove(id);
+                if (old != null) unindex(old);
+            }
+        }
+        public void markRead(String id) {
+            synchronized (locks.lockFor(id)) {
+                Notification n = map.get(id);
+                if (n == null || n.read) return;
+                n.read = true;
+                unread.decrement(n.userId);
+                unreadIds(n.userId).remove(id);
+            }
+        }
+        public void markAllRead(String userId) { for (String id : unreadIds(userId)) markRead(id); }
+        public long countUnread(String userId) { return unread.get(userId); }
+        public Map<String, long[]> checkUnreadConsistency() {
+            Map<String, Long> actual = new HashMap<>();
+            for (Notification n : map.values()) if (!n.read) actual.merge(n.userId, 1L, Long::sum);
+            return unread.drift(actual);
+        }
+        private void unindex(Notification old) {
+            ConcurrentSkipListMap<Cursor, Notification> t = timelines.get(userKey(old.userId));
+            if (t != null) t.remove(Cursor.of(old));
+            if (!old.read) { unread.decrement(old.userId); unreadIds(old.userId).remove(old.id); }
+        }
+        private Set<String> unreadIds(String userId) { return unreadIds.computeIfAbsent(userKey(userId), k -> ConcurrentHashMap.newKeySet()); }
+        private static String userKey(String userId) { return userId == null ? NULL_USER : userId; }
+    }
+
+    private static List<Notification> page(NavigableMap<Cursor, Notification> timeline, int offset, int limit) {
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("offset and limit must be >= 0");
+        List<Notification> out = new ArrayList<>(Math.min(limit, 64));
+        Iterator<Notification> it = timeline.values().iterator();
+        int skipped = 0;
+        for (; skipped < offset && it.hasNext(); skipped++) it.next();
+        while (out.size() < limit && it.hasNext()) out.add(it.next());
+        TIMELINE_SCANNED.add(skipped + out.size());
+        return out;
     }
+
     public static final class InMemoryMsgRepo implements MessageRepository {
-        private final List<Message> msgs = new ArrayList<>();
-        public long countUnreadMessages(String userId) { return msgs.stream().filter(m -> Objects.equals(m.receiverId, userId) && !m.read && !m.deleted).count(); }
-        public void add(Message m) { msgs.add(m); }
+        private final Map<String, Message> msgs = new LinkedHashMap<>();
+        private final UnreadCounter unread = new UnreadCounter();
+        public long countUnreadMessages(String userId) { return unread.get(userId); }
+        public void add(Message m) { uncount(msgs.put(m.id, m)); if (!m.read && !m.deleted) unread.increment(m.receiverId); }
+        public void markRead(String id) { Optional.ofNullable(msgs.get(id)).ifPresent(m -> { uncount(m); m.read = true; }); }
+        public void softDelete(String id) { Optional.ofNullable(msgs.get(id)).ifPresent(m -> { uncount(m); m.deleted = true; }); }
+        public void delete(String id) { uncount(msgs.remove(id)); }
+        public Map<String, long[]> checkUnreadConsistency() {
+            Map<String, Long> actual = new HashMap<>();
+            for (Message m : msgs.values()) if (!m.read && !m.deleted) actual.merge(m.receiverId, 1L, Long::sum);
+            return unread.drift(actual);
+        }
+        private void uncount(Message m) { if (m != null && !m.read && !m.deleted) unread.decrement(m.receiverId); }
     }
 
+    private static final Metrics.Timer BADGE_TIME = Metrics.timer("notifications.updateBadgeCount");
+    private static final Metrics.Counter TIMELINE_SCANNED = Metrics.counter("notifications.scanned");
+
     private NotificationOperations() {}
 
     public static int updateBadgeCount(String userId, NotificationRepository notifRepo, MessageRepository msgRepo) {
+        long t0 = BADGE_TIME.start();
         long unreadNotifs = notifRepo.countUnread(userId);
         long unreadMsgs = msgRepo.countUnreadMessages(userId);
+        BADGE_TIME.stop(t0);
         return Math.toIntExact(unreadNotifs + unreadMsgs);
     }
 
+    /** Stores the notification, then hands it to the push pipeline; returns false if the dispatcher's queue was full. */
+    public static boolean saveAndPush(NotificationRepository repo, PushDispatcher dispatcher, Notification n) {
+        repo.save(n);
+        return dispatcher.trySubmit(n);
+    }
+
     public static void main(String[] args) {
         InMemoryNotifRepo nRepo = new InMemoryNotifRepo();
         InMemoryMsgRepo mRepo = new InMemoryMsgRepo();
@@ -52,6 +209,14 @@ public final class NotificationOperations {
         System.out.println(updateBadgeCount("u1", nRepo, mRepo));
         nRepo.markAllRead("u1");
         System.out.println(updateBadgeCount("u1", nRepo, mRepo));
+        System.out.println("Drift: " + nRepo.checkUnreadConsistency().size() + " " + mRepo.checkUnreadConsistency().size());
+
+        for (int i = 0; i < 45; i++) nRepo.save(new Notification("p" + i, "u9", i % 3 == 0));
+        List<Notification> page = nRepo.findByUser("u9", null, 20);
+        int seen = page.size();
+        while (!page.isEmpty()) { page = nRepo.findByUser("u9", Cursor.of(page.get(page.size() - 1)), 20); seen += page.size(); }
+        nRepo.markAllRead("u9");
+        System.out.println("Timeline pages covered " + seen + " notifications, unread after markAllRead: " + nRepo.countUnread("u9"));
     }
 }
 
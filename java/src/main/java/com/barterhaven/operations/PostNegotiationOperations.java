@@ -1,24 +1,183 @@
 package com.barterhaven.operations;
 
+import com.barterhaven.algorithms.Metrics;
+import com.barterhaven.algorithms.StripedLock;
+
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class PostNegotiationOperations {
-    public static final class Trade { public String id; public String proposerId; public String receiverId; public String status; public Instant createdAt=Instant.now(); public Instant updatedAt=Instant.now(); public String offeredItemId; public String requestedItemId; }
+    private static final Metrics.Counter TRADES_SCANNED = Metrics.counter("trades.scanned");
+
+    public static final class Trade { public String id; public String proposerId; public String receiverId; public volatile String status; public Instant createdAt=Instant.now(); public volatile Instant updatedAt=Instant.now(); public String offeredItemId; public String requestedItemId; }
     public static final class TradeDetails { public String tradeId; public String deliveryMethod; public String meetupLocation; public Instant meetupDateTime; public String shippingAddress; public String trackingNumber; public Map<String,String> contactInfo; public String notes; public Double lat; public Double lon; }
     public static final class TradeReview { public String id; public String tradeId; public String reviewerId; public String reviewedUserId; public int rating; public String comment; public Instant createdAt=Instant.now(); }
     public static final class TradeDispute { public String id; public String tradeId; public String reportedBy; public String reason; public String description; public List<String> evidenceUrls = new ArrayList<>(); public String status="open"; public Instant createdAt=Instant.now(); }
 
-    public interface TradeRepo { Optional<Trade> find(String id); void save(Trade t); List<Trade> findByUser(String userId); }
+    public interface TradeRepo {
+        Optional<Trade> find(String id); void save(Trade t); List<Trade> findByUser(String userId);
+        /** Stores the trade keeping its updatedAt, for imports and fixtures; {@link #save} stamps the current time. */
+        void restore(Trade t);
+        /** The user's trades created within [start, end] (null: unbounded), newest first. */
+        default List<Trade> findByUser(String userId, Instant start, Instant end) {
+            return findByUser(userId).stream()
+                    .filter(t -> start == null || !t.createdAt.isBefore(start))
+                    .filter(t -> end == null || !t.createdAt.isAfter(end))
+                    .toList();
+        }
+        default TradeStats statsFor(String userId) {
+            TradeStats s = TradeStats.EMPTY;
+            for (Trade t : findByUser(userId)) s = s.plus(t.status, completionMs(t), 1);
+            return s;
+        }
+    }
+    /** Trade counts for one user by status, plus the summed createdAt-to-updatedAt time of completed trades. */
+    public static final class TradeStats {
+        public static final TradeStats EMPTY = new TradeStats(0, 0, 0, 0, 0);
+        public final long total, completed, pending, disputed, completionMsSum;
+        TradeStats(long total, long completed, long pending, long disputed, long completionMsSum) { this.total = total; this.completed = completed; this.pending = pending; this.disputed = disputed; this.completionMsSum = completionMsSum; }
+        /** Adds ({@code sign} 1) or removes ({@code sign} -1) one trade with the given status. */
+        TradeStats plus(String status, long completionMs, int sign) {
+            boolean done = "completed".equals(status);
+            return new TradeStats(total + sign, completed + (done ? sign : 0), pending + ("pending".equals(status) ? sign : 0),
+                    disputed + ("disputed".equals(status) ? sign : 0), completionMsSum + (done ? sign * completionMs : 0));
+        }
+        public TradeStats plus(TradeStats o) { return new TradeStats(total + o.total, completed + o.completed, pending + o.pending, disputed + o.disputed, completionMsSum + o.completionMsSum); }
+        public long averageCompletionMs() { return completed == 0 ? 0 : (long) ((double) completionMsSum / completed); }
+        public Map<String, Object> toMap() {
+            Map<String,Object> m = new LinkedHashMap<>();
+            m.put("total", total); m.put("completed", completed); m.put("pending", pending); m.put("disputed", disputed); m.put("averageCompletionMs", averageCompletionMs());
+            return m;
+        }
+    }
     public interface TradeDetailsRepo { Optional<TradeDetails> find(String tradeId); void upsert(TradeDetails d); }
-    public interface TradeReviewRepo { void save(TradeReview r); List<TradeReview> findByTrade(String tradeId); List<TradeReview> findByUser(String userId); }
+    public interface TradeReviewRepo {
+        void save(TradeReview r); List<TradeReview> findByTrade(String tradeId); List<TradeReview> findByUser(String userId);
+        /** One page of {@link #findByUser(String)}. */
+        default List<TradeReview> findByUser(String userId, int limit, int offset) {
+            List<TradeReview> all = findByUser(userId);
+            int from = Math.min(all.size(), Math.max(0, offset));
+            return all.subList(from, (int) Math.min(all.size(), (long) from + limit));
+        }
+        /** Summary of the reviews {@code userId} has received. */
+        default Reputation reputationOf(String userId) {
+            Reputation rep = Reputation.NONE;
+            int recent = 0; long recentSum = 0;
+            for (TradeReview r : findByUser(userId)) {
+                if (!Objects.equals(r.reviewedUserId, userId)) continue;
+                rep = rep.plus(r.rating);
+                if (recent < Reputation.RECENT_WINDOW) { recent++; recentSum += r.rating; }
+            }
+            return rep.withRecent(recent, recentSum);
+        }
+    }
+    /**
+     * Ratings a user has received: count, sum, a 1-5 star histogram (ratings outside that range count towards the
+     * mean only) and the mean of the {@value #RECENT_WINDOW} most recent reviews.
+     */
+    public static final class Reputation {
+        public static final int RECENT_WINDOW = 20;
+        public static final Reputation NONE = new Reputation(0, 0, new long[5], 0, 0);
+        public final long count, ratingSum; public final int recentCount; public final long recentSum;
+        private final long[] stars;
+        private Reputation(long count, long ratingSum, long[] stars, int recentCount, long recentSum) { this.count = count; this.ratingSum = ratingSum; this.stars = stars; this.recentCount = recentCount; this.recentSum = recentSum; }
+        Reputation plus(int rating) { return adjust(rating, 1); }
+        Reputation minus(int rating) { return adjust(rating, -1); }
+        private Reputation adjust(int rating, int sign) {
+            long[] s = stars.clone();
+            if (rating >= 1 && rating <= 5) s[rating - 1] += sign;
+            return new Reputation(count + sign, ratingSum + sign * (long) rating, s, recentCount, recentSum);
+        }
+        Reputation withRecent(int recentCount, long recentSum) { return new Reputation(count, ratingSum, stars, recentCount, recentSum); }
+        public double mean() { return count == 0 ? 0.0 : (double) ratingSum / count; }
+        public double recentMean() { return recentCount == 0 ? 0.0 : (double) recentSum / recentCount; }
+        public long stars(int star) { return stars[star - 1]; }
+        /** Mean rating for {@link MatchingEngine.Item#ownerRating}, or null when there are no reviews. */
+        public Double ratingSignal() { return count == 0 ? null : mean(); }
+        @Override public boolean equals(Object o) {
+            if (!(o instanceof Reputation)) return false;
+            Reputation r = (Reputation) o;
+            return count == r.count && ratingSum == r.ratingSum && recentCount == r.recentCount && recentSum == r.recentSum && Arrays.equals(stars, r.stars);
+        }
+        @Override public int hashCode() { return Objects.hash(count, ratingSum, recentCount, recentSum, Arrays.hashCode(stars)); }
+        @Override public String toString() { return "count=" + count + " mean=" + mean() + " stars=" + Arrays.toString(stars) + " recentMean=" + recentMean(); }
+    }
     public interface TradeDisputeRepo { void save(TradeDispute d); List<TradeDispute> findByTrade(String tradeId); List<TradeDispute> findByUser(String userId); }
 
     public static final class InMemoryTradeRepo implements TradeRepo {
-        private final Map<String, Trade> map = new HashMap<>();
+        private final Map<String, Trade> map = new LinkedHashMap<>();
         public Optional<Trade> find(String id) { return Optional.ofNullable(map.get(id)); }
         public void save(Trade t) { t.updatedAt=Instant.now(); map.put(t.id, t); }
-        public List<Trade> findByUser(String userId) { return map.values().stream().filter(t -> Objects.equals(t.proposerId,userId) || Objects.equals(t.receiverId,userId)).sorted(Comparator.comparing((Trade t)->t.createdAt).reversed()).toList(); }
+        public void restore(Trade t) { map.put(t.id, t); }
+        public List<Trade> findByUser(String userId) { TRADES_SCANNED.add(map.size()); return map.values().stream().filter(t -> Objects.equals(t.proposerId,userId) || Objects.equals(t.receiverId,userId)).sorted(Comparator.comparing((Trade t)->t.createdAt).reversed()).toList(); }
+    }
+    /** Thread-safe counterpart of {@link InMemoryTradeRepo}; saves of one trade are serialized on its lock stripe. */
+    public static final class ConcurrentTradeRepo implements TradeRepo {
+        private final ConcurrentHashMap<String, Trade> map = new ConcurrentHashMap<>();
+        private final StripedLock locks = new StripedLock();
+        public Optional<Trade> find(String id) { return Optional.ofNullable(map.get(id)); }
+        public void save(Trade t) { synchronized (locks.lockFor(t.id)) { t.updatedAt=Instant.now(); map.put(t.id, t); } }
+        public void restore(Trade t) { synchronized (locks.lockFor(t.id)) { map.put(t.id, t); } }
+        public List<Trade> findByUser(String userId) { TRADES_SCANNED.add(map.size()); return map.values().stream().filter(t -> Objects.equals(t.proposerId,userId) || Objects.equals(t.receiverId,userId)).sorted(Comparator.comparing((Trade t)->t.createdAt).reversed()).toList(); }
+    }
+    /**
+     * Trade repository with a per-user index ordered by createdAt and per-user {@link TradeStats} kept current on every
+     * save, so history ranges are map slices and stats are a lookup. Trades with equal createdAt keep first-save
+     * order, as in the scanning repo's stable sort. Each save replaces the trade's previous contribution, recorded at
+     * its last save; a trade changed in place must be saved again to be reflected.
+     */
+    public static final class IndexedTradeRepo implements TradeRepo {
+        private static final String NULL_USER = "\u0000";
+        // Newest first, then first-save order.
+        private static final class Key implements Comparable<Key> {
+            final Instant createdAt; final long seq;
+            Key(Instant createdAt, long seq) { this.createdAt = createdAt; this.seq = seq; }
+            public int compareTo(Key o) { int c = o.createdAt.compareTo(createdAt); return c != 0 ? c : Long.compare(seq, o.seq); }
+        }
+        // What a trade contributed to the indexes when it was last saved.
+        private static final class Indexed {
+            final Trade trade; final Key key; final Set<String> users; final String status; final long completionMs;
+            Indexed(Trade t, Key key) { trade = t; this.key = key; users = new HashSet<>(Arrays.asList(userKey(t.proposerId), userKey(t.receiverId))); status = t.status; completionMs = completionMs(t); }
+        }
+        private final ConcurrentHashMap<String, Indexed> byId = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, ConcurrentSkipListMap<Key, Trade>> byUser = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, TradeStats> stats = new ConcurrentHashMap<>();
+        private final StripedLock locks = new StripedLock();
+        private final AtomicLong nextSeq = new AtomicLong();
+        public Optional<Trade> find(String id) { return Optional.ofNullable(byId.get(id)).map(x -> x.trade); }
+        public void save(Trade t) { store(t, true); }
+        public void restore(Trade t) { store(t, false); }
+        private void store(Trade t, boolean stamp) {
+            synchronized (locks.lockFor(t.id)) {
+                if (stamp) t.updatedAt = Instant.now();
+                Indexed old = byId.get(t.id), now = new Indexed(t, new Key(t.createdAt, old != null ? old.key.seq : nextSeq.getAndIncrement()));
+                byId.put(t.id, now);
+                if (old != null) {
+                    for (String u : old.users) {
+                        byUser.get(u).remove(old.key);
+                        stats.compute(u, (k, s) -> s.plus(old.status, old.completionMs, -1));
+                    }
+                }
+                for (String u : now.users) {
+                    byUser.computeIfAbsent(u, k -> new ConcurrentSkipListMap<>()).put(now.key, t);
+                    stats.compute(u, (k, s) -> (s == null ? TradeStats.EMPTY : s).plus(now.status, now.completionMs, 1));
+                }
+            }
+        }
+        public List<Trade> findByUser(String userId) { return findByUser(userId, null, null); }
+        public List<Trade> findByUser(String userId, Instant start, Instant end) {
+            NavigableMap<Key, Trade> all = byUser.get(userKey(userId));
+            if (all == null || start != null && end != null && start.isAfter(end)) return List.of();
+            if (end != null) all = all.tailMap(new Key(end, Long.MIN_VALUE), true);
+            if (start != null) all = all.headMap(new Key(start, Long.MAX_VALUE), true);
+            List<Trade> out = List.copyOf(all.values());
+            TRADES_SCANNED.add(out.size());
+            return out;
+        }
+        public TradeStats statsFor(String userId) { return stats.getOrDefault(userKey(userId), TradeStats.EMPTY); }
+        private static String userKey(String userId) { return userId == null ? NULL_USER : userId; }
     }
     public static final class InMemoryDetailsRepo implements TradeDetailsRepo { private final Map<String, TradeDetails> map = new HashMap<>(); public Optional<TradeDetails> find(String tradeId){ return Optional.ofNullable(map.get(tradeId)); } public void upsert(TradeDetails d){ map.put(d.tradeId,d);} }
     public static final class InMemoryReviewRepo implements TradeReviewRepo {
@@ -27,6 +186,81 @@ public final class PostNegotiationOperations {
         public List<TradeReview> findByTrade(String tradeId){ return map.values().stream().filter(r->Objects.equals(r.tradeId,tradeId)).toList(); }
         public List<TradeReview> findByUser(String userId){ return map.values().stream().filter(r->Objects.equals(r.reviewerId,userId)||Objects.equals(r.reviewedUserId,userId)).sorted(Comparator.comparing((TradeReview r)->r.createdAt).reversed()).toList(); }
     }
+    /**
+     * Review repository with a per-user index (as reviewer or reviewed) in findByUser order and a {@link Reputation}
+     * per reviewed user updated on every save, so profiles page through the index and reputation is a lookup.
+     * Listeners hear every reputation change, inside the save that caused it, so they see changes in order.
+     */
+    public static final class IndexedReviewRepo implements TradeReviewRepo {
+        public interface ReputationListener { void onReputationChanged(String userId, Reputation reputation); }
+        // Newest first; equal timestamps in first-save order, like the scanning repo's stable sort.
+        private static final class Key implements Comparable<Key> {
+            final Instant createdAt; final long seq;
+            Key(Instant createdAt, long seq) { this.createdAt = createdAt; this.seq = seq; }
+            public int compareTo(Key o) { int c = o.createdAt.compareTo(createdAt); return c != 0 ? c : Long.compare(seq, o.seq); }
+        }
+        // What a review contributed when it was last saved.
+        private static final class Indexed {
+            final TradeReview review; final Key key; final String tradeId, reviewerId, reviewedUserId; final int rating;
+            Indexed(TradeReview r, Key key) { this.review = r; this.key = key; tradeId = r.tradeId; reviewerId = r.reviewerId; reviewedUserId = r.reviewedUserId; rating = r.rating; }
+        }
+        private final Map<String, Indexed> byId = new HashMap<>();
+        private final Map<String, Map<String, TradeReview>> byTrade = new HashMap<>();
+        private final Map<String, NavigableMap<Key, TradeReview>> byUser = new HashMap<>();
+        private final Map<String, NavigableMap<Key, Integer>> received = new HashMap<>();
+        private final Map<String, Reputation> reputations = new HashMap<>();
+        private long nextSeq;
+        private final List<ReputationListener> listeners = new CopyOnWriteArrayList<>();
+        public void addListener(ReputationListener listener) { listeners.add(listener); }
+        public synchronized void save(TradeReview r) {
+            Indexed old = byId.get(r.id);
+            Indexed now = new Indexed(r, new Key(r.createdAt, old != null ? old.key.seq : nextSeq++));
+            byId.put(r.id, now);
+            if (old != null) {
+                if (!Objects.equals(old.tradeId, r.tradeId)) { remove(byTrade, old.tradeId, old.review.id); }
+                for (String u : users(old)) remove(byUser, u, old.key);
+                remove(received, old.reviewedUserId, old.key);
+                reputations.computeIfPresent(key(old.reviewedUserId), (k, rep) -> rep.minus(old.rating));
+            }
+            byTrade.computeIfAbsent(key(r.tradeId), k -> new LinkedHashMap<>()).put(r.id, r);
+            for (String u : users(now)) byUser.computeIfAbsent(u, k -> new TreeMap<>()).put(now.key, r);
+            received.computeIfAbsent(key(r.reviewedUserId), k -> new TreeMap<>()).put(now.key, r.rating);
+            reputations.merge(key(r.reviewedUserId), Reputation.NONE.plus(r.rating), (a, b) -> a.plus(r.rating));
+            if (old != null && !Objects.equals(old.reviewedUserId, r.reviewedUserId)) notifyChanged(old.reviewedUserId);
+            notifyChanged(r.reviewedUserId);
+        }
+        public synchronized List<TradeReview> findByTrade(String tradeId) { return List.copyOf(byTrade.getOrDefault(key(tradeId), Map.of()).values()); }
+        public synchronized List<TradeReview> findByUser(String userId) { return List.copyOf(byUser.getOrDefault(key(userId), Collections.emptyNavigableMap()).values()); }
+        public synchronized List<TradeReview> findByUser(String userId, int limit, int offset) {
+            List<TradeReview> page = new ArrayList<>(Math.max(0, Math.min(limit, 64)));
+            Iterator<TradeReview> it = byUser.getOrDefault(key(userId), Collections.emptyNavigableMap()).values().iterator();
+            for (int i = 0; i < offset && it.hasNext(); i++) it.next();
+            while (page.size() < limit && it.hasNext()) page.add(it.next());
+            return page;
+        }
+        public synchronized Reputation reputationOf(String userId) { return reputations.getOrDefault(key(userId), Reputation.NONE); }
+        // Re-reads the recent window from the received index (at most RECENT_WINDOW entries, which also covers edits),
+        // then hands the user's reputation to the listeners.
+        private void notifyChanged(String userId) {
+            String k = key(userId);
+            Reputation rep = reputations.get(k);
+            if (rep == null) return;
+            int n = 0; long sum = 0;
+            for (int rating : received.getOrDefault(k, Collections.emptyNavigableMap()).values()) {
+                if (n == Reputation.RECENT_WINDOW) break;
+                n++; sum += rating;
+            }
+            rep = rep.withRecent(n, sum);
+            reputations.put(k, rep);
+            for (ReputationListener l : listeners) l.onReputationChanged(userId, rep);
+        }
+        private static Set<String> users(Indexed x) { return new HashSet<>(Arrays.asList(key(x.reviewerId), key(x.reviewedUserId))); }
+        private static <K> void remove(Map<String, ? extends Map<K, ?>> index, String user, K k) {
+            Map<K, ?> m = index.get(key(user));
+            if (m != null) { m.remove(k); if (m.isEmpty()) index.remove(key(user)); }
+        }
+        private static String key(String id) { return id == null ? "\u0000" : id; }
+    }
     public static final class InMemoryDisputeRepo implements TradeDisputeRepo {
         private final Map<String, TradeDispute> map = new LinkedHashMap<>();
         public void save(TradeDispute d){ map.put(d.id,d); }
@@ -41,31 +275,25 @@ public final class PostNegotiationOperations {
     public static TradeDetails updateDeliveryDetails(TradeDetailsRepo repo, String tradeId, TradeDetails updates) { updates.tradeId = tradeId; repo.upsert(updates); return updates; }
 
     public static TradeReview submitTradeReview(TradeReviewRepo repo, String tradeId, String reviewerId, String reviewedUserId, int rating, String comment) { TradeReview r = new TradeReview(); r.id = UUID.randomUUID().toString(); r.tradeId = tradeId; r.reviewerId = reviewerId; r.reviewedUserId = reviewedUserId; r.rating = rating; r.comment = comment; repo.save(r); return r; }
+    /** Keeps each reviewed user's mean rating on their catalog items current, whichever path saves the review. */
+    public static void propagateRatings(IndexedReviewRepo reviews, MatchCandidateIndex catalog) {
+        reviews.addListener((userId, rep) -> catalog.updateOwnerRating(userId, rep.ratingSignal()));
+    }
     public static List<TradeReview> getTradeReviews(TradeReviewRepo repo, String tradeId) { return repo.findByTrade(tradeId); }
     public static List<TradeReview> getUserReviews(TradeReviewRepo repo, String userId) { return repo.findByUser(userId); }
+    public static List<TradeReview> getUserReviews(TradeReviewRepo repo, String userId, int limit, int offset) { return repo.findByUser(userId, limit, offset); }
+    public static Reputation getUserReputation(TradeReviewRepo repo, String userId) { return repo.reputationOf(userId); }
 
     public static TradeDispute reportDispute(TradeDisputeRepo repo, String tradeId, String reportedBy, String reason, String description, List<String> evidenceUrls) { TradeDispute d = new TradeDispute(); d.id=UUID.randomUUID().toString(); d.tradeId=tradeId; d.reportedBy=reportedBy; d.reason=reason; d.description=description; if (evidenceUrls!=null) d.evidenceUrls=evidenceUrls; repo.save(d); return d; }
     public static List<TradeDispute> getTradeDisputes(TradeDisputeRepo repo, String tradeId){ return repo.findByTrade(tradeId); }
     public static List<TradeDispute> getUserDisputes(TradeDisputeRepo repo, String userId){ return repo.findByUser(userId); }
 
     public static List<Trade> getTradeHistory(TradeRepo repo, String userId, String status, Instant start, Instant end) {
-        return repo.findByUser(userId).stream()
-                .filter(t -> status == null || status.equals(t.status))
-                .filter(t -> start == null || !t.createdAt.isBefore(start))
-                .filter(t -> end == null || !t.createdAt.isAfter(end))
-                .toList();
-    }
-    public static Map<String, Object> getTradeStats(TradeRepo repo, String userId) {
-        List<Trade> trades = repo.findByUser(userId);
-        long total = trades.size();
-        long completed = trades.stream().filter(t -> "completed".equals(t.status)).count();
-        long pending = trades.stream().filter(t -> "pending".equals(t.status)).count();
-        long disputed = trades.stream().filter(t -> "disputed".equals(t.status)).count();
-        long avgMs = (long) trades.stream().filter(t -> "completed".equals(t.status)).mapToLong(t -> Duration.between(t.createdAt, t.updatedAt).toMillis()).average().orElse(0);
-        Map<String,Object> m = new LinkedHashMap<>();
-        m.put("total", total); m.put("completed", completed); m.put("pending", pending); m.put("disputed", disputed); m.put("averageCompletionMs", avgMs);
-        return m;
+        List<Trade> trades = repo.findByUser(userId, start, end);
+        return status == null ? trades : trades.stream().filter(t -> status.equals(t.status)).toList();
     }
+    public static Map<String, Object> getTradeStats(TradeRepo repo, String userId) { return repo.statsFor(userId).toMap(); }
+    static long completionMs(Trade t) { return Duration.between(t.createdAt, t.updatedAt).toMillis(); }
 
     public static void main(String[] args) {
         InMemoryTradeRepo tRepo = new InMemoryTradeRepo();
@@ -82,6 +310,26 @@ public final class PostNegotiationOperations {
         System.out.println(getTradeReviews(rRepo, t.id).size());
         System.out.println(getTradeDisputes(sRepo, t.id).size());
         System.out.println(getTradeStats(tRepo, "u1"));
+
+        IndexedTradeRepo indexed = new IndexedTradeRepo();
+        Trade t2 = new Trade(); t2.id = "T2"; t2.proposerId = "u2"; t2.receiverId = "u1"; t2.status = "completed";
+        indexed.save(t); indexed.save(t2);
+        System.out.println("indexed u1 " + getTradeStats(indexed, "u1") + " history " + getTradeHistory(indexed, "u1", null, null, null).size());
+
+        IndexedReviewRepo indexedReviews = new IndexedReviewRepo();
+        submitTradeReview(indexedReviews, "T1", "u2", "u1", 4, "Friendly");
+        submitTradeReview(indexedReviews, "T2", "u2", "u1", 5, "Fast");
+        System.out.println("u1 reputation " + getUserReputation(indexedReviews, "u1"));
+
+        MatchCandidateIndex catalog = new MatchCandidateIndex();
+        MatchingEngine.Item mine = new MatchingEngine.Item("iA"), theirs = new MatchingEngine.Item("iB");
+        mine.category = theirs.category = "Books"; mine.ownerId = "u1"; theirs.ownerId = "u2";
+        catalog.save(mine); catalog.save(theirs);
+        double beforeReview = catalog.findMatches(mine, 0.0, 1, null).get(0).matchScore;
+        IndexedReviewRepo propagating = new IndexedReviewRepo();
+        propagateRatings(propagating, catalog);
+        submitTradeReview(propagating, "T1", "u1", "u2", 5, "Smooth trade");
+        System.out.println("match score before/after owner review: " + beforeReview + " / " + catalog.findMatches(mine, 0.0, 1, null).get(0).matchScore);
     }
 }
 
@@ -0,0 +1,220 @@
+package com.barterhaven.operations;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * Push delivery stage behind {@link NotificationOperations}. Notifications go into a bounded queue (callers block or
+ * are refused when it is full); events for the same device token within {@code coalesceWindow} collapse into one push
+ * that carries the badge count at send time, and pushes leave in batches of at most {@code maxBatchSize} through a
+ * pluggable {@link PushSender}. At most {@code maxPending} tokens wait in their window; a new token beyond that sends
+ * the oldest waiting ones early. Failed batches are counted and dropped; retry policy belongs to the sender.
+ */
+public final class PushDispatcher implements AutoCloseable {
+    public static final class PushMessage {
+        public final String userId; public final String token; public final int badge; public final int coalescedEvents; public final String latestNotificationId;
+        public PushMessage(String userId, String token, int badge, int coalescedEvents, String latestNotificationId) {
+            this.userId = userId; this.token = token; this.badge = badge; this.coalescedEvents = coalescedEvents; this.latestNotificationId = latestNotificationId;
+        }
+        @Override public String toString() { return userId + " badge=" + badge + " events=" + coalescedEvents; }
+    }
+    public interface PushSender { void sendBatch(List<PushMessage> batch) throws Exception; }
+
+    /** Records batches instead of calling a provider; for tests and local runs. */
+    public static final class InMemoryPushSender implements PushSender {
+        private final List<List<PushMessage>> batches = new CopyOnWriteArrayList<>();
+        public void sendBatch(List<PushMessage> batch) { batches.add(List.copyOf(batch)); }
+        public List<List<PushMessage>> batches() { return batches; }
+    }
+
+    private static final class Event {
+        final String userId; final String notificationId; final long enqueuedNanos;
+        Event(String userId, String notificationId, long enqueuedNanos) { this.userId = userId; this.notificationId = notificationId; this.enqueuedNanos = enqueuedNanos; }
+    }
+    private static final class Pending {
+        final long firstNanos; String userId; int events; String latestId;
+        Pending(long firstNanos) { this.firstNanos = firstNanos; }
+    }
+
+    private final NotificationOperations.NotificationRepository notifications;
+    private final ToIntFunction<String> badgeCount;
+    private final PushSender sender;
+    private final BlockingQueue<Event> queue;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final int maxPending;
+    private final LongSupplier nanoClock;
+    // Keyed by device token, oldest first.
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    private final Object pumpLock = new Object();
+    private volatile boolean running;
+    private Thread worker;
+
+    private final LongAdder submitted = new LongAdder(), rejected = new LongAdder(), coalesced = new LongAdder(), noToken = new LongAdder(), earlyFlushes = new LongAdder();
+    private final LongAdder pushesSent = new LongAdder(), batchesSent = new LongAdder(), sendFailures = new LongAdder();
+    private final LongAdder latencySumNanos = new LongAdder();
+    private final AtomicLong maxBatch = new AtomicLong(), maxLatencyNanos = new AtomicLong();
+
+    public PushDispatcher(NotificationOperations.NotificationRepository notifications, ToIntFunction<String> badgeCount, PushSender sender,
+                          int queueCapacity, Duration coalesceWindow, int maxBatchSize) {
+        this(notifications, badgeCount, sender, queueCapacity, coalesceWindow, maxBatchSize, queueCapacity, System::nanoTime);
+    }
+
+    public PushDispatcher(NotificationOperations.NotificationRepository notifications, ToIntFunction<String> badgeCount, PushSender sender,
+                          int queueCapacity, Duration coalesceWindow, int maxBatchSize, int maxPending, LongSupplier nanoClock) {
+        if (maxBatchSize <= 0) throw new IllegalArgumentException("maxBatchSize must be > 0: " + maxBatchSize);
+        if (maxPending <= 0) throw new IllegalArgumentException("maxPending must be > 0: " + maxPending);
+        this.notifications = notifications; this.badgeCount = badgeCount; this.sender = sender;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.windowNanos = coalesceWindow.toNanos(); this.maxBatchSize = maxBatchSize; this.maxPending = maxPending; this.nanoClock = nanoClock;
+    }
+
+    /** Enqueues without waiting; returns false when the queue is full. */
+    public boolean trySubmit(NotificationOperations.Notification n) {
+        boolean ok = queue.offer(new Event(n.userId, n.id, nanoClock.getAsLong()));
+        (ok ? submitted : rejected).increment();
+        return ok;
+    }
+
+    /** Enqueues, waiting up to {@code timeout} for space; returns false if the queue stayed full. */
+    public boolean submit(NotificationOperations.Notification n, Duration timeout) throws InterruptedException {
+        boolean ok = queue.offer(new Event(n.userId, n.id, nanoClock.getAsLong()), timeout.toNanos(), TimeUnit.NANOSECONDS);
+        (ok ? submitted : rejected).increment();
+        return ok;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        worker = new Thread(this::runLoop, "push-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void runLoop() {
+        long pollNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), windowNanos / 4);
+        while (running) {
+            try {
+                Event first = queue.poll(pollNanos, TimeUnit.NANOSECONDS);
+                synchronized (pumpLock) { if (first != null) accept(first); }
+                pump(false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves queued events into the coalescing table and sends every token whose window has elapsed ({@code flushAll}:
+     * every pending token). Returns the number of pushes sent. Called by the worker thread, or directly when no worker
+     * is started.
+     */
+    public int pump(boolean flushAll) {
+        synchronized (pumpLock) {
+            int sent = 0;
+            for (Event e; (e = queue.poll()) != null; ) sent += accept(e);
+            long now = nanoClock.getAsLong();
+            return sent + flush(p -> flushAll || now - p.firstNanos >= windowNanos, Integer.MAX_VALUE);
+        }
+    }
+
+    // Sends and removes up to max pending tokens that satisfy due, oldest first, in batches of maxBatchSize.
+    private int flush(Predicate<Pending> due, int max) {
+        List<PushMessage> batch = new ArrayList<>(Math.min(maxBatchSize, Math.max(1, pending.size())));
+        List<Long> firsts = new ArrayList<>();
+        int sent = 0, taken = 0;
+        for (Iterator<Map.Entry<String, Pending>> it = pending.entrySet().iterator(); it.hasNext() && taken < max; ) {
+            Map.Entry<String, Pending> me = it.next();
+            Pending p = me.getValue();
+            if (!due.test(p)) continue;
+            it.remove(); taken++;
+            batch.add(new PushMessage(p.userId, me.getKey(), badgeCount.applyAsInt(p.userId), p.events, p.latestId));
+            firsts.add(p.firstNanos);
+            if (batch.size() == maxBatchSize) { sent += send(batch, firsts); batch.clear(); firsts.clear(); }
+        }
+        if (!batch.isEmpty()) sent += send(batch, firsts);
+        return sent;
+    }
+
+    // Coalesces under the user's current token; a token re-registered to another user pushes for the latest one.
+    private int accept(Event e) {
+        Optional<String> token = notifications.findPushToken(e.userId);
+        if (token.isEmpty()) { noToken.increment(); return 0; }
+        Pending p = pending.get(token.get());
+        int sent = 0;
+        if (p == null) {
+            if (pending.size() >= maxPending) { earlyFlushes.increment(); sent = flush(x -> true, maxBatchSize); }
+            p = new Pending(e.enqueuedNanos);
+            pending.put(token.get(), p);
+        } else {
+            coalesced.increment();
+        }
+        p.userId = e.userId; p.events++; p.latestId = e.notificationId;
+        return sent;
+    }
+
+    private int send(List<PushMessage> batch, List<Long> firstNanos) {
+        try {
+            sender.sendBatch(batch);
+        } catch (Exception ex) {
+            sendFailures.increment();
+            return 0;
+        }
+        long done = nanoClock.getAsLong();
+        for (long first : firstNanos) {
+            long latency = done - first;
+            latencySumNanos.add(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+        pushesSent.add(batch.size()); batchesSent.increment();
+        maxBatch.accumulateAndGet(batch.size(), Math::max);
+        return batch.size();
+    }
+
+    public int queueDepth() { return queue.size(); }
+
+    public int pendingTokens() { synchronized (pumpLock) { return pending.size(); } }
+
+    public Map<String, Long> metrics() {
+        long pushes = pushesSent.sum(), batches = batchesSent.sum();
+        Map<String, Long> m = new LinkedHashMap<>();
+        m.put("queueDepth", (long) queue.size());
+        m.put("submitted", submitted.sum()); m.put("rejected", rejected.sum()); m.put("coalesced", coalesced.sum()); m.put("noToken", noToken.sum());
+        m.put("earlyFlushes", earlyFlushes.sum());
+        m.put("pushesSent", pushes); m.put("batchesSent", batches); m.put("sendFailures", sendFailures.sum());
+        m.put("avgBatchSize", batches == 0 ? 0 : pushes / batches); m.put("maxBatchSize", maxBatch.get());
+        m.put("avgLatencyMicros", pushes == 0 ? 0 : latencySumNanos.sum() / pushes / 1_000); m.put("maxLatencyMicros", maxLatencyNanos.get() / 1_000);
+        return m;
+    }
+
+    /** Stops the worker and flushes everything still queued or pending. */
+    @Override public void close() {
+        Thread w;
+        synchronized (this) { running = false; w = worker; worker = null; }
+        if (w != null) {
+            w.interrupt();
+            try { w.join(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        }
+        pump(true);
+    }
+
+    public static void main(String[] args) {
+        NotificationOperations.InMemoryNotifRepo repo = new NotificationOperations.InMemoryNotifRepo();
+        NotificationOperations.InMemoryMsgRepo msgs = new NotificationOperations.InMemoryMsgRepo();
+        for (int u = 0; u < 30; u++) repo.upsertPushToken("u" + u, "token-" + u, "ios", "phone");
+        InMemoryPushSender sender = new InMemoryPushSender();
+        long[] now = {0};
+        PushDispatcher dispatcher = new PushDispatcher(repo, u -> NotificationOperations.updateBadgeCount(u, repo, msgs), sender,
+                1_000, Duration.ofMillis(200), 16, 1_000, () -> now[0]);
+        for (int i = 0; i < 300; i++) NotificationOperations.saveAndPush(repo, dispatcher, new NotificationOperations.Notification("n" + i, "u" + (i % 30), false));
+        dispatcher.pump(false);
+        now[0] += Duration.ofMillis(250).toNanos();
+        dispatcher.pump(false);
+        System.out.println(sender.batches().size() + " batches, first: " + sender.batches().get(0).get(0));
+        System.out.println(dispatcher.metrics());
+    }
+}
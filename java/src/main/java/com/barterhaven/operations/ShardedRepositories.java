@@ -0,0 +1,138 @@
+package com.barterhaven.operations;
+
+import com.barterhaven.algorithms.ConsistentHashRing;
+import com.barterhaven.algorithms.StripedLock;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Repository wrappers that partition data over independent instances with a {@link ConsistentHashRing}. Lookups
+ * keyed by the routing key go to one shard; lookups by record id alone, and aggregates over a user's records stored
+ * under other keys, fan out to every shard. Changing the ring re-routes keys but does not move stored records;
+ * callers adding a shard copy the records whose owner changed.
+ */
+public final class ShardedRepositories {
+    private ShardedRepositories() {}
+
+    /**
+     * Messages are routed by conversation (the canonical pair of user ids), so a chat and its pages come from one
+     * shard. Unread counts sum over shards; read marks and deletes by id are offered to every shard.
+     */
+    public static final class ShardedMessageRepo implements ChatOperations.MessageRepository {
+        private final ConsistentHashRing<ChatOperations.MessageRepository> ring;
+        public ShardedMessageRepo(ConsistentHashRing<ChatOperations.MessageRepository> ring) { this.ring = ring; }
+        private ChatOperations.MessageRepository shard(String a, String b) { return ring.route(ChatOperations.conversationKey(a, b)); }
+        public void save(ChatOperations.Message m) { shard(m.senderId, m.receiverId).save(m); }
+        public List<ChatOperations.Message> findConversation(String a, String b) { return shard(a, b).findConversation(a, b); }
+        public List<ChatOperations.Message> findConversationBefore(String a, String b, ChatOperations.Cursor before, int limit) { return shard(a, b).findConversationBefore(a, b, before, limit); }
+        public List<ChatOperations.Message> findConversationAfter(String a, String b, ChatOperations.Cursor after, int limit) { return shard(a, b).findConversationAfter(a, b, after, limit); }
+        public void markRead(List<String> ids) { for (ChatOperations.MessageRepository r : ring.nodes()) r.markRead(ids); }
+        public void softDelete(String messageId, String userId) { for (ChatOperations.MessageRepository r : ring.nodes()) r.softDelete(messageId, userId); }
+        public long countUnread(String userId) {
+            long total = 0;
+            for (ChatOperations.MessageRepository r : ring.nodes()) total += r.countUnread(userId);
+            return total;
+        }
+    }
+
+    /** Notifications and push tokens are routed by user, so a user's timeline, badge count and token live on one shard. */
+    public static final class ShardedNotificationRepo implements NotificationOperations.NotificationRepository {
+        private final ConsistentHashRing<NotificationOperations.NotificationRepository> ring;
+        public ShardedNotificationRepo(ConsistentHashRing<NotificationOperations.NotificationRepository> ring) { this.ring = ring; }
+        private NotificationOperations.NotificationRepository shard(String userId) { return ring.route(String.valueOf(userId)); }
+        public void upsertPushToken(String userId, String token, String platform, String deviceType) { shard(userId).upsertPushToken(userId, token, platform, deviceType); }
+        public Optional<String> findPushToken(String userId) { return shard(userId).findPushToken(userId); }
+        public List<NotificationOperations.Notification> findByUser(String userId, int limit, int offset) { return shard(userId).findByUser(userId, limit, offset); }
+        public List<NotificationOperations.Notification> findByUser(String userId, NotificationOperations.Cursor before, int limit) { return shard(userId).findByUser(userId, before, limit); }
+        public void save(NotificationOperations.Notification n) { shard(n.userId).save(n); }
+        public void delete(String id) { for (NotificationOperations.NotificationRepository r : ring.nodes()) r.delete(id); }
+        public void markRead(String id) { for (NotificationOperations.NotificationRepository r : ring.nodes()) r.markRead(id); }
+        public void markAllRead(String userId) { shard(userId).markAllRead(userId); }
+        public long countUnread(String userId) { return shard(userId).countUnread(userId); }
+    }
+
+    /**
+     * Trades are routed by user: a trade is stored on its proposer's shard and on its receiver's (once when they
+     * coincide), so a user's history and stats come from that user's shard alone, already newest first with equal
+     * createdAt in first-save order. Saves of one trade are serialized so both copies see the same sequence of
+     * states. A trade's two users must not change after its first save. Lookup by id alone fans out.
+     */
+    public static final class ShardedTradeRepo implements PostNegotiationOperations.TradeRepo {
+        private final ConsistentHashRing<PostNegotiationOperations.TradeRepo> ring;
+        private final StripedLock locks = new StripedLock();
+        public ShardedTradeRepo(ConsistentHashRing<PostNegotiationOperations.TradeRepo> ring) { this.ring = ring; }
+        private PostNegotiationOperations.TradeRepo shard(String userId) { return ring.route(String.valueOf(userId)); }
+        public Optional<PostNegotiationOperations.Trade> find(String id) {
+            for (PostNegotiationOperations.TradeRepo r : ring.nodes()) {
+                Optional<PostNegotiationOperations.Trade> t = r.find(id);
+                if (t.isPresent()) return t;
+            }
+            return Optional.empty();
+        }
+        public void save(PostNegotiationOperations.Trade t) { store(t, true); }
+        public void restore(PostNegotiationOperations.Trade t) { store(t, false); }
+        private void store(PostNegotiationOperations.Trade t, boolean stamp) {
+            synchronized (locks.lockFor(t.id)) {
+                PostNegotiationOperations.TradeRepo a = shard(t.proposerId), b = shard(t.receiverId);
+                if (stamp) a.save(t); else a.restore(t);
+                // restore keeps the updatedAt the first save stamped, so both copies agree.
+                if (b != a) b.restore(t);
+            }
+        }
+        public List<PostNegotiationOperations.Trade> findByUser(String userId) { return shard(userId).findByUser(userId); }
+        public List<PostNegotiationOperations.Trade> findByUser(String userId, Instant start, Instant end) { return shard(userId).findByUser(userId, start, end); }
+        public PostNegotiationOperations.TradeStats statsFor(String userId) { return shard(userId).statsFor(userId); }
+    }
+
+    public static void main(String[] args) {
+        ConsistentHashRing<ChatOperations.MessageRepository> messageShards = new ConsistentHashRing<>();
+        ConsistentHashRing<NotificationOperations.NotificationRepository> notificationShards = new ConsistentHashRing<>();
+        ConsistentHashRing<PostNegotiationOperations.TradeRepo> tradeShards = new ConsistentHashRing<>();
+        for (int s = 0; s < 4; s++) {
+            messageShards.add("shard-" + s, new ChatOperations.ConcurrentMessageRepo());
+            notificationShards.add("shard-" + s, new NotificationOperations.ConcurrentNotifRepo());
+            tradeShards.add("shard-" + s, new PostNegotiationOperations.IndexedTradeRepo());
+        }
+        ShardedMessageRepo messages = new ShardedMessageRepo(messageShards);
+        ShardedNotificationRepo notifications = new ShardedNotificationRepo(notificationShards);
+        ShardedTradeRepo trades = new ShardedTradeRepo(tradeShards);
+
+        // Same workload against a single repository and the sharded one must give the same answers.
+        ChatOperations.IndexedMessageRepo singleMessages = new ChatOperations.IndexedMessageRepo();
+        NotificationOperations.InMemoryNotifRepo singleNotifications = new NotificationOperations.InMemoryNotifRepo();
+        PostNegotiationOperations.InMemoryTradeRepo singleTrades = new PostNegotiationOperations.InMemoryTradeRepo();
+        Random rnd = new Random(11);
+        Instant t0 = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < 20_000; i++) {
+            String a = "u" + rnd.nextInt(200), b = "u" + rnd.nextInt(200);
+            ChatOperations.Message m = new ChatOperations.Message("m" + i, a, b, "hi", t0.plusSeconds(i));
+            messages.save(m);
+            singleMessages.save(new ChatOperations.Message("m" + i, a, b, "hi", t0.plusSeconds(i)));
+            if (i % 3 == 0) { messages.markRead(List.of("m" + (i / 2))); singleMessages.markRead(List.of("m" + (i / 2))); }
+            NotificationOperations.Notification n = new NotificationOperations.Notification("n" + i, a, i % 4 == 0);
+            notifications.save(n); singleNotifications.save(n);
+            PostNegotiationOperations.Trade t = new PostNegotiationOperations.Trade();
+            t.id = "t" + i; t.proposerId = a; t.receiverId = b; t.status = "pending"; t.createdAt = t0.plusSeconds(i);
+            trades.save(t); singleTrades.save(t);
+        }
+        int mismatches = 0;
+        for (int u = 0; u < 200; u++) {
+            String user = "u" + u, other = "u" + ((u * 7) % 200);
+            if (messages.countUnread(user) != singleMessages.countUnread(user)) mismatches++;
+            if (messages.findConversation(user, other).size() != singleMessages.findConversation(user, other).size()) mismatches++;
+            if (notifications.countUnread(user) != singleNotifications.countUnread(user)) mismatches++;
+            if (!ids(trades.findByUser(user)).equals(ids(singleTrades.findByUser(user)))) mismatches++;
+            if (!PostNegotiationOperations.getTradeStats(trades, user).equals(PostNegotiationOperations.getTradeStats(singleTrades, user))) mismatches++;
+        }
+        System.out.println("sharded vs single mismatches: " + mismatches);
+        for (PostNegotiationOperations.TradeRepo shard : tradeShards.nodes()) System.out.print(shard.findByUser("u1").size() + " ");
+        System.out.println("trades of u1 per shard");
+    }
+
+    private static List<String> ids(List<PostNegotiationOperations.Trade> trades) {
+        List<String> out = new ArrayList<>(trades.size());
+        for (PostNegotiationOperations.Trade t : trades) out.add(t.id);
+        return out;
+    }
+}
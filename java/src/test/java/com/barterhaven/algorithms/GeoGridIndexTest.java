@@ -0,0 +1,96 @@
+package com.barterhaven.algorithms;
+
+import com.barterhaven.operations.LocationOperations;
+import com.barterhaven.operations.MatchingEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoGridIndexTest {
+    private static final double[] BANDS_KM = {5, 20, 50, 100};
+
+    private static Set<String> bruteForce(Map<String, double[]> points, double lat, double lon, double radiusKm) {
+        Set<String> out = new TreeSet<>();
+        points.forEach((id, p) -> { if (HaversineDistanceCalculator.distanceKm(lat, lon, p[0], p[1]) <= radiusKm) out.add(id); });
+        return out;
+    }
+
+    @Test
+    void findWithinMatchesBruteForceAfterMoves() {
+        GeoGridIndex grid = new GeoGridIndex();
+        Map<String, double[]> points = new HashMap<>();
+        Random rnd = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            double lat = 37.0 + rnd.nextGaussian(), lon = -122.0 + rnd.nextGaussian();
+            grid.put("i" + i, lat, lon);
+            points.put("i" + i, new double[]{lat, lon});
+        }
+        for (int i = 0; i < 2_000; i++) {
+            String id = "i" + rnd.nextInt(20_000);
+            if (i % 10 == 0) { grid.remove(id); points.remove(id); continue; }
+            double lat = 37.0 + rnd.nextGaussian(), lon = -122.0 + rnd.nextGaussian();
+            grid.put(id, lat, lon);
+            points.put(id, new double[]{lat, lon});
+        }
+        assertEquals(points.size(), grid.size());
+        for (double r : BANDS_KM) {
+            for (int q = 0; q < 50; q++) {
+                double lat = 37.0 + rnd.nextGaussian(), lon = -122.0 + rnd.nextGaussian();
+                assertEquals(bruteForce(points, lat, lon, r), new TreeSet<>(grid.findWithin(lat, lon, r)), "radius " + r + " at " + lat + "," + lon);
+            }
+        }
+    }
+
+    @Test
+    void findWithinMatchesBruteForceNearPolesAndAntimeridian() {
+        GeoGridIndex grid = new GeoGridIndex();
+        Map<String, double[]> points = new HashMap<>();
+        Random rnd = new Random(7);
+        double[][] centers = {{89.9, 0}, {-89.9, 45}, {37.79, 179.99}, {-12.0, -179.95}};
+        for (int i = 0; i < 8_000; i++) {
+            double[] c = centers[i % centers.length];
+            double lat = Math.max(-90, Math.min(90, c[0] + rnd.nextGaussian() * 0.5));
+            double lon = c[1] + rnd.nextGaussian() * 0.5;
+            lon = lon > 180 ? lon - 360 : lon < -180 ? lon + 360 : lon;
+            grid.put("p" + i, lat, lon);
+            points.put("p" + i, new double[]{lat, lon});
+        }
+        for (double[] c : centers) {
+            for (double r : BANDS_KM) assertEquals(bruteForce(points, c[0], c[1], r), new TreeSet<>(grid.findWithin(c[0], c[1], r)));
+        }
+        assertEquals(points.size(), grid.findWithin(0, 0, 30_000).size());
+        assertTrue(grid.findWithin(0, 0, -1).isEmpty());
+    }
+
+    @Test
+    void gridRepoMatchesScanningRepo() {
+        LocationOperations.InMemoryItemRepo scanning = new LocationOperations.InMemoryItemRepo();
+        LocationOperations.GridIndexedItemRepo indexed = new LocationOperations.GridIndexedItemRepo();
+        Random rnd = new Random(3);
+        for (int i = 0; i < 20_000; i++) {
+            double lat = 37.0 + rnd.nextGaussian(), lon = -122.0 + rnd.nextGaussian();
+            LocationOperations.saveItemLocation(scanning, "i" + i, lat, lon);
+            LocationOperations.saveItemLocation(indexed, "i" + i, lat, lon);
+        }
+        for (int i = 0; i < 2_000; i++) {
+            String id = "i" + rnd.nextInt(20_000);
+            double lat = 37.0 + rnd.nextGaussian(), lon = -122.0 + rnd.nextGaussian();
+            LocationOperations.saveItemLocation(scanning, id, lat, lon);
+            LocationOperations.saveItemLocation(indexed, id, lat, lon);
+        }
+        for (double r : BANDS_KM) {
+            for (int q = 0; q < 50; q++) {
+                double lat = 37.0 + rnd.nextGaussian(), lon = -122.0 + rnd.nextGaussian();
+                Set<String> expected = ids(LocationOperations.findItemsWithinRadius(scanning, lat, lon, r));
+                assertEquals(expected, ids(LocationOperations.findItemsWithinRadius(indexed, lat, lon, r)));
+            }
+        }
+    }
+
+    private static Set<String> ids(List<MatchingEngine.Item> items) {
+        return items.stream().map(it -> it.id).collect(Collectors.toCollection(TreeSet::new));
+    }
+}
@@ -0,0 +1,64 @@
+package com.barterhaven.algorithms;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HaversineDistanceCalculatorTest {
+    private static final double MAX_ERROR_KM = 1e-9;
+
+    @Test
+    void batchDistancesStayWithinBoundOfScalar() {
+        Random rnd = new Random(7);
+        int n = 100_000;
+        double[] lats = new double[n], lons = new double[n], out = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = i % 10 == 0 ? rnd.nextDouble() * 180 - 90 : 37.0 + rnd.nextGaussian() * 2;
+            lons[i] = i % 10 == 0 ? rnd.nextDouble() * 360 - 180 : -122.0 + rnd.nextGaussian() * 2;
+        }
+        for (double[] o : new double[][]{{37.78825, -122.4324}, {89.99, 10}, {-45, 179.9}, {0, 0}}) {
+            HaversineDistanceCalculator.distancesKm(o[0], o[1], lats, lons, n, out);
+            for (int i = 0; i < n; i++) {
+                double scalar = HaversineDistanceCalculator.distanceKm(o[0], o[1], lats[i], lons[i]);
+                assertTrue(Math.abs(scalar - out[i]) <= MAX_ERROR_KM, "point " + i + ": " + scalar + " vs " + out[i]);
+            }
+        }
+    }
+
+    @Test
+    void radiusMaskAgreesWithScalarTestIncludingBoundary() {
+        Random rnd = new Random(11);
+        double oLat = 37.78825, oLon = -122.4324;
+        int n = 50_000;
+        double[] lats = new double[n], lons = new double[n];
+        for (int i = 0; i < n; i++) { lats[i] = oLat + rnd.nextGaussian(); lons[i] = oLon + rnd.nextGaussian(); }
+        // Put a batch of points exactly on a radius taken from the scalar method, so ties are exercised.
+        double radius = HaversineDistanceCalculator.distanceKm(oLat, oLon, lats[0], lons[0]);
+        for (int i = 1; i < 64; i++) { lats[i] = lats[0]; lons[i] = lons[0]; }
+        lats[64] = Double.NaN; lons[65] = Double.NaN;
+        long[] hits = new long[(n + 63) >>> 6];
+        Arrays.fill(hits, -1L);
+        for (double r : new double[]{radius, 5, 50, 500, 25_000}) {
+            int count = HaversineDistanceCalculator.withinRadius(oLat, oLon, lats, lons, n, r, hits);
+            int expected = 0;
+            for (int i = 0; i < n; i++) {
+                boolean scalar = HaversineDistanceCalculator.distanceKm(oLat, oLon, lats[i], lons[i]) <= r;
+                assertEquals(scalar, (hits[i >>> 6] & (1L << i)) != 0, "point " + i + " at radius " + r);
+                if (scalar) expected++;
+            }
+            assertEquals(expected, count);
+        }
+        assertEquals(0, HaversineDistanceCalculator.withinRadius(oLat, oLon, lats, lons, n, Double.NaN, hits));
+        for (long w : hits) assertEquals(0L, w);
+    }
+
+    @Test
+    void filterKeepsOnlyLocatedItemsInsideRadius() {
+        List<ItemsWithinRadiusFilter.GeoItem> items = Arrays.asList(new ItemsWithinRadiusFilter.GeoItem("A", 37.78, -122.43),
+                new ItemsWithinRadiusFilter.GeoItem("B", 37.50, -122.00), new ItemsWithinRadiusFilter.GeoItem("C", null, -122.43));
+        List<ItemsWithinRadiusFilter.GeoItem> out = ItemsWithinRadiusFilter.filter(items, 37.78, -122.43, 5.0);
+        assertEquals(List.of("A"), out.stream().map(it -> it.id).toList());
+    }
+}
@@ -0,0 +1,81 @@
+package com.barterhaven.algorithms;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    @Test
+    void bucketsTileTheLongRangeWithinOneEighth() {
+        for (long v = 0; v < 8; v++) { assertEquals(v, LatencyHistogram.bucket(v)); assertEquals(v, LatencyHistogram.upperBound((int) v)); }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.BUCKETS - 1));
+        for (int b = 1; b < LatencyHistogram.BUCKETS; b++) {
+            long lower = LatencyHistogram.upperBound(b - 1) + 1, upper = LatencyHistogram.upperBound(b);
+            assertEquals(b, LatencyHistogram.bucket(lower), "lower edge of " + b);
+            assertEquals(b, LatencyHistogram.bucket(upper), "upper edge of " + b);
+            assertTrue(upper - lower < Math.max(1, lower / 8), "width of " + b);
+        }
+    }
+
+    @Test
+    void quantilesAreUpperBucketEdgesWithinOneEighthOfExact() {
+        LatencyHistogram h = new LatencyHistogram(1);
+        Random rnd = new Random(1);
+        long[] all = new long[200_000];
+        for (int i = 0; i < all.length; i++) { all[i] = (long) Math.exp(6 + 2.5 * rnd.nextGaussian()); h.record(all[i]); }
+        Arrays.sort(all);
+        LatencyHistogram.Snapshot s = h.snapshot();
+        assertEquals(all.length, s.count);
+        assertEquals(all[all.length - 1], s.max);
+        assertEquals(Arrays.stream(all).sum(), s.sum);
+        for (double q : new double[]{0.0, 0.001, 0.1, 0.5, 0.9, 0.99, 0.999, 1.0}) {
+            long exact = all[Math.max(0, (int) Math.ceil(q * all.length) - 1)], approx = s.quantile(q);
+            assertTrue(approx >= exact && approx - exact <= exact / 8, q + ": " + approx + " vs " + exact);
+        }
+        assertEquals(s.max, s.quantile(1.0));
+        assertEquals(s.quantile(1.0), s.quantile(7.0));
+        assertEquals(s.quantile(0.0), s.quantile(-1.0));
+    }
+
+    @Test
+    void stripesRecordedFromManyThreadsMergeToOneHistogram() throws Exception {
+        LatencyHistogram striped = new LatencyHistogram(8), single = new LatencyHistogram(1);
+        int threads = 8, perThread = 50_000;
+        long[] all = new long[threads * perThread];
+        Random rnd = new Random(2);
+        for (int i = 0; i < all.length; i++) all[i] = rnd.nextInt(10) == 0 ? -rnd.nextInt(100) : (long) Math.exp(4 + 3 * rnd.nextGaussian());
+        Thread[] ts = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int from = t * perThread;
+            ts[t] = new Thread(() -> { for (int i = from; i < from + perThread; i++) striped.record(all[i]); });
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        for (long v : all) single.record(v);
+        LatencyHistogram.Snapshot a = striped.snapshot(), b = single.snapshot();
+        assertEquals(all.length, a.count);
+        assertEquals(b.toMap(), a.toMap());
+        assertEquals(b.sum, a.sum); // negative values count as 0
+        for (int q = 0; q <= 1_000; q++) assertEquals(b.quantile(q / 1_000.0), a.quantile(q / 1_000.0));
+    }
+
+    @Test
+    void resetStartsAnEmptyInterval() {
+        LatencyHistogram h = new LatencyHistogram(4);
+        LatencyHistogram.Snapshot empty = h.snapshot();
+        assertEquals(0, empty.count);
+        assertEquals(0, empty.p99());
+        assertEquals(0.0, empty.mean());
+        for (long v = 1; v <= 1_000; v++) h.record(v * 1_000);
+        LatencyHistogram.Snapshot before = h.snapshot();
+        assertEquals(1_000, before.count);
+        assertEquals(500_500.0, before.mean());
+        h.reset();
+        assertEquals(empty.toMap(), h.snapshot().toMap());
+        h.record(42);
+        assertEquals(Map.of("count", 1L, "mean", 42.0, "p50", 42L, "p99", 42L, "p999", 42L, "max", 42L), h.snapshot().toMap());
+    }
+}
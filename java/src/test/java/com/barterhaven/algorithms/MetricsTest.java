@@ -0,0 +1,64 @@
+package com.barterhaven.algorithms;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+    private boolean was;
+
+    @BeforeEach
+    void remember() { was = Metrics.enabled(); }
+
+    @AfterEach
+    void restore() { Metrics.setEnabled(was); }
+
+    @Test
+    void disabledHandlesRecordNothing() {
+        Metrics.Counter calls = Metrics.counter("test.disabled.calls");
+        Metrics.Timer timer = Metrics.timer("test.disabled.work");
+        Metrics.setEnabled(false);
+        long t = timer.start();
+        calls.increment(); calls.add(5);
+        timer.stop(t);
+        // Started while disabled: not recorded even though metrics are on when it stops.
+        long late = timer.start();
+        Metrics.setEnabled(true);
+        timer.stop(late);
+        assertEquals(0, calls.sum());
+        assertEquals(0, timer.snapshot().count);
+        assertSame(calls, Metrics.counter("test.disabled.calls"));
+        assertSame(timer, Metrics.timer("test.disabled.work"));
+    }
+
+    @Test
+    void snapshotReportsAndResetStartsOver() {
+        Metrics.Counter calls = Metrics.counter("test.snapshot.calls");
+        Metrics.Timer timer = Metrics.timer("test.snapshot.work");
+        Metrics.setEnabled(true);
+        Metrics.reset();
+        for (int i = 0; i < 100; i++) { long t = timer.start(); calls.add(2); timer.stop(t); }
+
+        Metrics.Snapshot kept = Metrics.snapshot();
+        assertEquals(200L, kept.counters.get("test.snapshot.calls"));
+        assertEquals(100, kept.timers.get("test.snapshot.work").count);
+        Map<String, Object> flat = kept.toMap();
+        assertEquals(200L, flat.get("test.snapshot.calls"));
+        assertEquals(100L, flat.get("test.snapshot.work.count"));
+        assertTrue((Long) flat.get("test.snapshot.work.p99") <= (Long) flat.get("test.snapshot.work.max"));
+        assertEquals(new ArrayList<>(new TreeSet<>(flat.keySet())), new ArrayList<>(flat.keySet()));
+
+        Metrics.Snapshot taken = Metrics.snapshot(true);
+        assertEquals(200L, taken.counters.get("test.snapshot.calls"));
+        assertEquals(100, taken.timers.get("test.snapshot.work").count);
+        Metrics.Snapshot after = Metrics.snapshot();
+        assertEquals(0L, after.counters.get("test.snapshot.calls"));
+        assertEquals(0, after.timers.get("test.snapshot.work").count);
+        calls.increment();
+        assertEquals(1L, Metrics.snapshot().counters.get("test.snapshot.calls"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.barterhaven.algorithms;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagDictionaryTest {
+    @Test
+    void fullDictionaryStopsGrowingAndComparesByString() {
+        TagDictionary dict = new TagDictionary(2);
+        assertEquals(0, dict.idOf("phone"));
+        assertEquals(1, dict.idOf("android"));
+        assertEquals(TagDictionary.UNINTERNED, dict.idOf("ios"));
+        assertEquals(2, dict.size());
+        assertEquals(TagDictionary.NONE, dict.lookup("ios"));
+
+        List<String> a = List.of("phone", "ios", "ios"), b = List.of("ios", "android", "phone");
+        int[] aIds = dict.sortedDistinctIds(a), bIds = dict.sortedDistinctIds(b);
+        assertNull(aIds);
+        assertEquals(2, TagDictionary.sharedTerms(aIds, a, bIds, b));
+        assertArrayEquals(new int[]{0, 1}, dict.sortedDistinctIds(List.of("android", "phone", "android")));
+        assertTrue(TagDictionary.sameTerm(dict.idOf("ios"), "ios", dict.idOf("ios"), "ios"));
+        assertFalse(TagDictionary.sameTerm(dict.idOf("ios"), "ios", dict.idOf("phone"), "phone"));
+    }
+
+    @Test
+    void scoresDoNotDependOnWhetherTermsWereInterned() {
+        Random rnd = new Random(9);
+        for (int i = 0; i < 2_000; i++) {
+            List<String> ta = randomTags(rnd), tb = randomTags(rnd);
+            String ca = "c" + rnd.nextInt(4), cb = "c" + rnd.nextInt(4);
+            // A one-term dictionary sends almost every pair through the string fallback.
+            TagDictionary shared = new TagDictionary(), tiny = new TagDictionary(1);
+            assertEquals(TagDictionary.sharedTerms(shared.sortedDistinctIds(ta), ta, shared.sortedDistinctIds(tb), tb),
+                    TagDictionary.sharedTerms(tiny.sortedDistinctIds(ta), ta, tiny.sortedDistinctIds(tb), tb));
+            assertEquals(TagDictionary.sameTerm(shared.idOf(ca), ca, shared.idOf(cb), cb),
+                    TagDictionary.sameTerm(tiny.idOf(ca), ca, tiny.idOf(cb), cb));
+        }
+    }
+
+    private static List<String> randomTags(Random rnd) {
+        List<String> out = new ArrayList<>();
+        for (int i = rnd.nextInt(5); i > 0; i--) out.add("t" + rnd.nextInt(6));
+        return out;
+    }
+}
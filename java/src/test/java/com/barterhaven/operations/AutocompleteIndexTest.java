@@ -0,0 +1,103 @@
+package com.barterhaven.operations;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutocompleteIndexTest {
+    private static final String[] ADJECTIVES = {"vintage", "leather", "brass", "wooden", "retro", "handmade", "antique", "modern", "classic", "rare"};
+    private static final String[] NOUNS = {"lamp", "guitar", "camera", "jacket", "chair", "table", "watch", "bicycle", "record", "novel"};
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Clothing", "Home", "Toys", null};
+    private static final double[][] METROS = {{40.71, -74.01}, {51.51, -0.13}};
+
+    private static MatchingEngine.Item item(Random rnd, int i) {
+        MatchingEngine.Item it = new MatchingEngine.Item("item-" + i);
+        it.category = CATEGORIES[rnd.nextInt(CATEGORIES.length)];
+        it.tags = it.category == null ? List.of() : List.of(it.category.toLowerCase(Locale.ROOT) + "-" + rnd.nextInt(60));
+        move(it, rnd);
+        it.popularity = (int) Math.floor(Math.pow(rnd.nextDouble(), 3) * 100);
+        it.title = ADJECTIVES[rnd.nextInt(ADJECTIVES.length)] + " " + (rnd.nextBoolean() ? ADJECTIVES[rnd.nextInt(ADJECTIVES.length)] + " " : "")
+                + NOUNS[rnd.nextInt(NOUNS.length)] + " " + Integer.toString(rnd.nextInt(500), 36);
+        return it;
+    }
+
+    private static void move(MatchingEngine.Item it, Random rnd) {
+        if (rnd.nextInt(20) == 0) { it.lat = it.lon = null; return; }
+        double[] m = METROS[rnd.nextInt(METROS.length)];
+        it.lat = m[0] + rnd.nextGaussian() * 0.15; it.lon = m[1] + rnd.nextGaussian() * 0.15;
+    }
+
+    // Every title word start, category and tag of the items (in the cell, if given) that starts with the prefix,
+    // once per text and kind at its best popularity; most popular first, then by text and kind.
+    private static List<String> bruteForce(Collection<MatchingEngine.Item> items, String prefix, int n, Long cell, AutocompleteIndex index) {
+        String p = AutocompleteIndex.normalize(prefix);
+        Map<String, Integer> best = new HashMap<>();
+        for (MatchingEngine.Item it : items) {
+            if (cell != null && (it.lat == null || it.lon == null || index.cellOf(it.lat, it.lon) != cell)) continue;
+            List<String[]> candidates = new ArrayList<>();
+            candidates.add(new String[]{"TITLE", AutocompleteIndex.normalize(it.title)});
+            candidates.add(new String[]{"CATEGORY", AutocompleteIndex.normalize(it.category)});
+            if (it.tags != null) for (String t : it.tags) candidates.add(new String[]{"TAG", AutocompleteIndex.normalize(t)});
+            for (String[] c : candidates) {
+                if (c[1].isEmpty()) continue;
+                boolean hit = c[1].startsWith(p);
+                if (!hit && c[0].equals("TITLE")) for (int i = c[1].indexOf(' '); i >= 0 && !hit; i = c[1].indexOf(' ', i + 1)) hit = c[1].startsWith(p, i + 1);
+                if (hit) best.merge(c[0] + ":" + c[1], it.popularity, Math::max);
+            }
+        }
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(best.entrySet());
+        sorted.sort((a, b) -> {
+            int c = Integer.compare(b.getValue(), a.getValue());
+            if (c != 0) return c;
+            String[] x = a.getKey().split(":", 2), y = b.getKey().split(":", 2);
+            c = x[1].compareTo(y[1]);
+            return c != 0 ? c : AutocompleteIndex.Kind.valueOf(x[0]).compareTo(AutocompleteIndex.Kind.valueOf(y[0]));
+        });
+        return sorted.stream().limit(n).map(e -> e.getKey() + ":" + e.getValue()).collect(Collectors.toList());
+    }
+
+    private static List<String> rows(List<AutocompleteIndex.Completion> completions) {
+        return completions.stream().map(c -> c.kind + ":" + c.text + ":" + c.popularity).collect(Collectors.toList());
+    }
+
+    @Test
+    void completionsMatchBruteForceThroughEditsMovesAndRemovals() {
+        Random rnd = new Random(12);
+        AutocompleteIndex index = new AutocompleteIndex();
+        List<MatchingEngine.Item> catalog = new ArrayList<>();
+        Map<String, MatchingEngine.Item> live = new LinkedHashMap<>();
+        for (int i = 0; i < 20_000; i++) { MatchingEngine.Item it = item(rnd, i); catalog.add(it); live.put(it.id, it); index.save(it); }
+        for (int i = 0; i < 4_000; i++) {
+            MatchingEngine.Item it = catalog.get(rnd.nextInt(catalog.size()));
+            switch (i % 4) {
+                case 0: index.remove(it.id); live.remove(it.id); break;
+                case 1: it.title = "edited " + it.title; index.save(it); live.put(it.id, it); break;
+                case 2: move(it, rnd); index.save(it); live.put(it.id, it); break;
+                default: it.popularity = rnd.nextInt(101); index.save(it); live.put(it.id, it);
+            }
+        }
+        List<String> prefixes = new ArrayList<>(List.of("v", "vin", "vintage l", "lamp", "ele", "electronics", "books-1", "s", "rare rare", "edited r",
+                "zz", "", "b", "Vintage B", "edited edited vintage leather lam", "edited edited vintage leather lamp x"));
+        List<MatchingEngine.Item> sample = new ArrayList<>(live.values());
+        for (int q = 0; q < 40; q++) {
+            String title = AutocompleteIndex.normalize(sample.get(rnd.nextInt(sample.size())).title);
+            int from = rnd.nextBoolean() ? 0 : title.indexOf(' ') + 1;
+            prefixes.add(title.substring(from, from + rnd.nextInt(title.length() - from + 1)));
+        }
+        Long[] cells = {null, index.cellOf(40.71, -74.01), index.cellOf(51.51, -0.13), index.cellOf(0.0, 0.0)};
+        for (String prefix : prefixes) {
+            for (Long cell : cells) {
+                List<String> expected = bruteForce(live.values(), prefix, 50, cell, index);
+                for (int n : new int[]{1, 10, 50}) {
+                    assertEquals(expected.subList(0, Math.min(n, expected.size())), rows(index.complete(prefix, n, cell)), "'" + prefix + "' in " + cell + ", n " + n);
+                }
+            }
+        }
+        for (MatchingEngine.Item it : sample) index.remove(it.id);
+        assertEquals(List.of(), index.complete("v", 10));
+        assertEquals(List.of(), index.complete("v", 10, cells[1]));
+    }
+}
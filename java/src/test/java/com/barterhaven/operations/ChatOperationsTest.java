@@ -0,0 +1,101 @@
+package com.barterhaven.operations;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatOperationsTest {
+    private static final Instant T0 = Instant.parse("2026-05-01T12:00:00Z");
+
+    private static List<ChatOperations.MessageRepository> repos() {
+        return List.of(new ChatOperations.InMemoryMessageRepo(), new ChatOperations.IndexedMessageRepo(), new ChatOperations.ConcurrentMessageRepo());
+    }
+
+    // Four messages per second, saved in shuffled order, so most cursors sit among createdAt ties. Returns them in
+    // conversation order: createdAt, then the order they were saved in.
+    private static List<ChatOperations.Message> fill(ChatOperations.MessageRepository repo) {
+        List<ChatOperations.Message> msgs = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            msgs.add(new ChatOperations.Message(String.format("m%02d", i), i % 2 == 0 ? "u1" : "u2", i % 2 == 0 ? "u2" : "u1", "msg " + i, T0.plusSeconds(i / 4)));
+        }
+        Collections.shuffle(msgs, new Random(1));
+        msgs.forEach(repo::save);
+        msgs.sort(Comparator.comparing(m -> m.createdAt)); // stable, so ties stay in save order
+        return msgs;
+    }
+
+    private static List<String> ids(List<ChatOperations.Message> msgs) { return msgs.stream().map(m -> m.id).collect(Collectors.toList()); }
+
+    @Test
+    void pagesFollowCreatedAtThenSaveOrderInEveryRepo() {
+        for (ChatOperations.MessageRepository repo : repos()) {
+            List<ChatOperations.Message> msgs = fill(repo);
+            assertEquals(ids(msgs), ids(repo.findConversation("u1", "u2")), repo.getClass().getSimpleName());
+            List<String> paged = new ArrayList<>();
+            List<ChatOperations.Message> page = repo.findConversationBefore("u1", "u2", null, 7);
+            while (!page.isEmpty()) {
+                paged.addAll(0, ids(page));
+                page = repo.findConversationBefore("u1", "u2", ChatOperations.Cursor.of(page.get(0)), 7);
+            }
+            assertEquals(ids(msgs), paged, repo.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void cursorOfMissingMessageKeepsItsPlaceAmongTies() {
+        for (ChatOperations.MessageRepository repo : repos()) {
+            String name = repo.getClass().getSimpleName();
+            List<String> order = ids(fill(repo));
+            // The tenth message sits inside the ties of its second; after deleting it, its cursor must still split the tie there.
+            ChatOperations.Message deleted = repo.findConversation("u1", "u2").get(9);
+            ChatOperations.Cursor gone = ChatOperations.Cursor.of(deleted);
+            repo.softDelete(deleted.id, "u2");
+            assertEquals(order.subList(6, 9), ids(repo.findConversationBefore("u1", "u2", gone, 3)), name);
+            assertEquals(order.subList(10, 13), ids(repo.findConversationAfter("u1", "u2", gone, 3)), name);
+            // A message never saved has no sequence yet, so its cursor sits ahead of every tie at its createdAt.
+            ChatOperations.Cursor never = ChatOperations.Cursor.of(new ChatOperations.Message("x", "u1", "u2", "draft", T0.plusSeconds(2)));
+            List<String> live = ids(repo.findConversation("u1", "u2"));
+            assertEquals(live.subList(6, 8), ids(repo.findConversationBefore("u1", "u2", never, 2)), name);
+            assertEquals(live.subList(8, 10), ids(repo.findConversationAfter("u1", "u2", never, 2)), name);
+        }
+    }
+
+    @Test
+    void messagesSentInOneTickKeepSendOrder() {
+        for (ChatOperations.MessageRepository repo : repos()) {
+            String name = repo.getClass().getSimpleName();
+            // Ids that sort against send order, as random UUIDs often do.
+            List<String> sent = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                String id = "z" + (99 - i);
+                repo.save(new ChatOperations.Message(id, i % 2 == 0 ? "u1" : "u2", i % 2 == 0 ? "u2" : "u1", "msg " + i, T0));
+                sent.add(id);
+            }
+            assertEquals(sent, ids(repo.findConversation("u1", "u2")), name);
+            // Saving a message again keeps its place.
+            repo.save(new ChatOperations.Message("z97", "u2", "u1", "edited", T0));
+            assertEquals(sent, ids(repo.findConversation("u1", "u2")), name);
+            List<ChatOperations.Message> first = repo.findConversationAfter("u1", "u2", null, 5);
+            assertEquals(sent.subList(0, 5), ids(first), name);
+            assertEquals(sent.subList(5, 10), ids(repo.findConversationAfter("u1", "u2", ChatOperations.Cursor.of(first.get(4)), 5)), name);
+            ChatOperations.Cursor eighth = ChatOperations.Cursor.of(repo.findConversation("u1", "u2").get(7));
+            assertEquals(sent.subList(2, 7), ids(repo.findConversationBefore("u1", "u2", eighth, 5)), name);
+        }
+    }
+
+    @Test
+    void plainSendMessageUpdatesConfiguredInboxes() {
+        ChatOperations.Inboxes inboxes = new ChatOperations.Inboxes(id -> "User " + id);
+        ChatOperations.MessageRepository repo = new ChatOperations.InboxMessageRepo(new ChatOperations.IndexedMessageRepo(), inboxes);
+        ChatOperations.sendMessage(repo, "u1", "u2", "Hi", null, null);
+        ChatOperations.sendMessage(repo, "u3", "u1", "Offer?", null, null);
+        ChatOperations.sendMessage(repo, inboxes, "u1", "u2", "Again", null, null); // recorded by both paths
+        assertEquals(List.of("u2", "u3"), inboxes.top("u1", 10).stream().map(u -> u.id).collect(Collectors.toList()));
+        assertEquals(List.of("u1"), inboxes.top("u3", 10).stream().map(u -> u.id).collect(Collectors.toList()));
+        assertEquals(3, repo.findConversation("u1", "u2").size() + repo.findConversation("u1", "u3").size());
+    }
+}
@@ -0,0 +1,134 @@
+package com.barterhaven.operations;
+
+import com.barterhaven.algorithms.EnhancedMatchScorer;
+import com.barterhaven.algorithms.HaversineDistanceCalculator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarCatalogTest {
+    private static final double[][] METROS = {{40.71, -74.01}, {34.05, -118.24}};
+
+    @TempDir Path dir;
+
+    private static List<MatchingEngine.Item> items(int n, Random rnd) {
+        String[] categories = {"Electronics", "Books", "Clothing", "Home", "Toys"};
+        List<MatchingEngine.Item> out = new ArrayList<>(n + 1);
+        for (int i = 0; i < n; i++) {
+            MatchingEngine.Item it = new MatchingEngine.Item("item-" + i);
+            it.category = categories[rnd.nextInt(categories.length)];
+            it.tags = List.of(it.category.toLowerCase(Locale.ROOT) + "-" + rnd.nextInt(10), it.category.toLowerCase(Locale.ROOT) + "-" + rnd.nextInt(40));
+            it.value = rnd.nextInt(10) == 0 ? null : 5.0 * (1 + rnd.nextInt(40));
+            if (rnd.nextInt(20) != 0) { double[] m = METROS[rnd.nextInt(METROS.length)]; it.lat = m[0] + rnd.nextGaussian() * 0.15; it.lon = m[1] + rnd.nextGaussian() * 0.15; }
+            it.condition = rnd.nextInt(10) == 0 ? null : EnhancedMatchScorer.Condition.values()[rnd.nextInt(5)];
+            it.popularity = rnd.nextInt(101);
+            it.createdAt = Instant.parse("2025-01-01T00:00:00Z").plusSeconds(rnd.nextInt(90 * 86_400));
+            it.ownerId = "user-" + rnd.nextInt(n / 5);
+            it.title = it.category + " item " + i;
+            if (rnd.nextInt(3) == 0) it.ownerRating = 1 + 4 * rnd.nextDouble();
+            out.add(it);
+        }
+        MatchingEngine.Item odd = new MatchingEngine.Item("odd");
+        odd.tags = List.of("books-1", "books-1", "zzz"); odd.title = "Caf\u00e9 t\u00eate-\u00e0-t\u00eate";
+        out.add(odd);
+        return out;
+    }
+
+    private static String row(MatchingEngine.Item it) {
+        return it.id + "|" + it.title + "|" + it.ownerId + "|" + it.category + "|" + it.tags + "|" + it.value + "|" + it.lat + "|" + it.lon
+                + "|" + it.condition + "|" + it.popularity + "|" + it.createdAt + "|" + it.ownerRating;
+    }
+
+    private static List<String> rows(List<MatchingEngine.MatchResult> results) {
+        return results.stream().map(r -> r.matchedItemId + "|" + r.matchScore + "|" + r.distanceKm + "|" + r.reasons + "|" + r.itemTitle).collect(Collectors.toList());
+    }
+
+    @Test
+    void reopenedCatalogWithTombstonesAnswersLikeTheItemList() throws Exception {
+        Random rnd = new Random(9);
+        List<MatchingEngine.Item> items = items(5_000, rnd);
+        // Mirrors the catalog: an update moves the item to the end, as it appends a new row.
+        LinkedHashMap<String, MatchingEngine.Item> reference = new LinkedHashMap<>();
+        try (ColumnarCatalog catalog = new ColumnarCatalog(dir)) {
+            for (MatchingEngine.Item it : items) { catalog.save(it); reference.put(it.id, it); }
+            for (int i = 0; i < 500; i++) {
+                MatchingEngine.Item it = items.get(rnd.nextInt(items.size() - 1));
+                if (i % 2 == 0) { catalog.delete(it.id); reference.remove(it.id); }
+                else { it.popularity = rnd.nextInt(100); catalog.save(it); reference.remove(it.id); reference.put(it.id, it); }
+            }
+        }
+        List<MatchingEngine.Item> live = new ArrayList<>(reference.values());
+        try (ColumnarCatalog catalog = new ColumnarCatalog(dir)) {
+            assertEquals(live.size(), catalog.liveRows());
+            assertEquals(live.stream().map(ColumnarCatalogTest::row).collect(Collectors.toList()), catalog.findAllItems().stream().map(ColumnarCatalogTest::row).collect(Collectors.toList()));
+            EnhancedMatchScorer.UserTradeStats stats = new EnhancedMatchScorer.UserTradeStats();
+            stats.categoryPreferences.put("Books", 2);
+            for (int q = 0; q < 20; q++) {
+                MatchingEngine.Item source = q == 0 ? reference.get("odd") : live.get(rnd.nextInt(live.size()));
+                EnhancedMatchScorer.UserTradeStats s = q % 2 == 0 ? stats : null;
+                assertEquals(rows(MatchingEngine.findPotentialMatches(source, live, 0.3, 20, s)), rows(catalog.findMatches(source, 0.3, 20, s)), source.id);
+            }
+            for (int q = 0; q < 20; q++) {
+                double[] m = METROS[rnd.nextInt(METROS.length)], p = {m[0] + rnd.nextGaussian() * 0.1, m[1] + rnd.nextGaussian() * 0.1};
+                Set<String> expected = new HashSet<>();
+                for (MatchingEngine.Item it : live) if (it.lat != null && it.lon != null && HaversineDistanceCalculator.distanceKm(p[0], p[1], it.lat, it.lon) <= 10.0) expected.add(it.id);
+                Set<String> actual = new HashSet<>();
+                for (MatchingEngine.Item it : LocationOperations.findItemsWithinRadius(catalog, p[0], p[1], 10.0)) actual.add(it.id);
+                assertEquals(expected, actual);
+            }
+            int liveRows = catalog.liveRows();
+            catalog.updateLocation("odd", 10.0, 10.0);
+            assertEquals(List.of("odd"), catalog.findItemsWithinRadius(10.0, 10.0, 1.0).stream().map(it -> it.id).collect(Collectors.toList()));
+            assertEquals(liveRows, catalog.liveRows());
+            MatchingEngine.Item moved = catalog.item(catalog.rowOf("odd"));
+            assertEquals(List.of(10.0, 10.0), Arrays.asList(moved.lat, moved.lon));
+            moved.lat = moved.lon = null;
+            assertEquals(row(reference.get("odd")), row(moved));
+        }
+    }
+
+    @Test
+    void uncommittedRowsAreDroppedWhenTheRowCountNeverReachedDisk() throws Exception {
+        List<MatchingEngine.Item> items = items(200, new Random(4));
+        List<String> before;
+        try (ColumnarCatalog catalog = new ColumnarCatalog(dir)) {
+            for (MatchingEngine.Item it : items) catalog.save(it);
+            before = catalog.findAllItems().stream().map(ColumnarCatalogTest::row).collect(Collectors.toList());
+        }
+        byte[] committedMeta = Files.readAllBytes(dir.resolve("catalog.meta"));
+        try (ColumnarCatalog catalog = new ColumnarCatalog(dir)) {
+            // A re-save tombstones the old row, and a new item brings dictionary terms the old meta does not cover.
+            MatchingEngine.Item changed = items.get(7);
+            changed.popularity = 3;
+            catalog.save(changed);
+            MatchingEngine.Item fresh = new MatchingEngine.Item("fresh");
+            fresh.category = "Kites"; fresh.tags = List.of("kite-1");
+            catalog.save(fresh);
+        }
+        // Torn at the commit: every column, mark and term reached disk, the row count did not.
+        Files.write(dir.resolve("catalog.meta"), committedMeta);
+        try (ColumnarCatalog catalog = new ColumnarCatalog(dir)) {
+            assertEquals(items.size(), catalog.rows());
+            assertEquals(items.size(), catalog.liveRows());
+            assertEquals(before, catalog.findAllItems().stream().map(ColumnarCatalogTest::row).collect(Collectors.toList()));
+            assertEquals(-1, catalog.rowOf("fresh"));
+            // Later writes reuse the space and dictionary offsets of the lost rows.
+            MatchingEngine.Item kite = new MatchingEngine.Item("kite");
+            kite.category = "Gliders"; kite.tags = List.of("glider-1", "books-1");
+            catalog.save(kite);
+        }
+        try (ColumnarCatalog catalog = new ColumnarCatalog(dir)) {
+            assertEquals(items.size() + 1, catalog.liveRows());
+            MatchingEngine.Item kite = catalog.item(catalog.rowOf("kite"));
+            assertEquals("Gliders", kite.category);
+            assertEquals(List.of("glider-1", "books-1"), kite.tags);
+            assertEquals(before.get(7), row(catalog.item(catalog.rowOf(items.get(7).id))));
+        }
+    }
+}
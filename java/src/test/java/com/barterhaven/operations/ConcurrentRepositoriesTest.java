@@ -0,0 +1,87 @@
+package com.barterhaven.operations;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentRepositoriesTest {
+    private static final int THREADS = 8;
+
+    // Runs body(threadId) on THREADS threads released together and rethrows the first failure.
+    private interface Body { void run(int tid) throws Exception; }
+    private static void race(Body body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int tid = t;
+                futures.add(pool.submit(() -> { start.await(); body.run(tid); return null; }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentChatKeepsUnreadCountsAndLosesNoMessage() throws Exception {
+        ChatOperations.ConcurrentMessageRepo repo = new ChatOperations.ConcurrentMessageRepo();
+        int perThread = 5_000;
+        race(tid -> {
+            Random rnd = new Random(tid);
+            for (int i = 0; i < perThread; i++) {
+                String s = "u" + rnd.nextInt(10), r = "u" + rnd.nextInt(10);
+                ChatOperations.Message m = ChatOperations.sendMessage(repo, s, r, "m", null, "text");
+                if (rnd.nextInt(3) == 0) ChatOperations.getMessages(repo, r, s);
+                if (rnd.nextInt(10) == 0) repo.softDelete(m.id, s);
+            }
+        });
+        assertEquals(THREADS * perThread, repo.size());
+        assertEquals(Map.of(), repo.checkUnreadConsistency());
+    }
+
+    @Test
+    void concurrentNotificationsKeepUnreadCounts() throws Exception {
+        NotificationOperations.ConcurrentNotifRepo repo = new NotificationOperations.ConcurrentNotifRepo();
+        race(tid -> {
+            Random rnd = new Random(tid);
+            for (int i = 0; i < 5_000; i++) {
+                String user = "u" + rnd.nextInt(5), id = "n" + tid + "-" + i;
+                repo.save(new NotificationOperations.Notification(id, user, false));
+                switch (rnd.nextInt(4)) {
+                    case 0: repo.markRead("n" + rnd.nextInt(THREADS) + "-" + rnd.nextInt(i + 1)); break;
+                    case 1: repo.delete("n" + rnd.nextInt(THREADS) + "-" + rnd.nextInt(i + 1)); break;
+                    case 2: if (rnd.nextInt(50) == 0) repo.markAllRead(user); break;
+                    default: repo.findByUser(user, 20, 0);
+                }
+            }
+        });
+        assertEquals(Map.of(), repo.checkUnreadConsistency());
+    }
+
+    @Test
+    void itemLocationsAreNeverReadTorn() throws Exception {
+        LocationOperations.ConcurrentItemRepo repo = new LocationOperations.ConcurrentItemRepo();
+        for (int i = 0; i < 64; i++) repo.updateLocation("i" + i, 0.0, 0.0);
+        List<MatchingEngine.Item> items = repo.findAllItems();
+        // Writers always store lat == lon, so a reader seeing them differ saw half an update.
+        race(tid -> {
+            Random rnd = new Random(tid);
+            for (int i = 0; i < 200_000; i++) {
+                if (tid % 2 == 0) {
+                    double v = rnd.nextInt(80);
+                    repo.updateLocation("i" + rnd.nextInt(64), v, v);
+                } else {
+                    double[] p = items.get(rnd.nextInt(items.size())).location();
+                    assertNotNull(p);
+                    assertEquals(p[0], p[1]);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package com.barterhaven.operations;
+
+import com.barterhaven.algorithms.EnhancedMatchScorer;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchCacheTest {
+    private static MatchingEngine.Item item(String id, Random rnd) {
+        MatchingEngine.Item it = new MatchingEngine.Item(id);
+        it.category = "c" + rnd.nextInt(8); it.tags = List.of("t" + rnd.nextInt(40), "t" + rnd.nextInt(40)); it.value = 10.0 + rnd.nextInt(50);
+        it.lat = 37.0 + rnd.nextGaussian() * 3; it.lon = -122.0 + rnd.nextGaussian() * 3; it.popularity = rnd.nextInt(30);
+        return it;
+    }
+
+    private static List<String> rows(List<MatchingEngine.MatchResult> results) {
+        List<String> out = new ArrayList<>(results.size());
+        for (MatchingEngine.MatchResult r : results) out.add(r.matchedItemId + "|" + r.matchScore + "|" + r.distanceKm + "|" + r.reasons);
+        return out;
+    }
+
+    @Test
+    void cachedResultsEqualFreshRankingAcrossEdits() {
+        MatchCandidateIndex index = new MatchCandidateIndex();
+        Random rnd = new Random(3);
+        for (int i = 0; i < 3_000; i++) index.save(item("i" + i, rnd));
+        MatchCache cache = new MatchCache(index, 200, Duration.ofMinutes(5));
+        EnhancedMatchScorer.UserTradeStats stats = new EnhancedMatchScorer.UserTradeStats();
+        stats.categoryPreferences.put("c1", 3);
+        for (int round = 0; round < 1_500; round++) {
+            String sourceId = "i" + rnd.nextInt(100);
+            double minScore = rnd.nextBoolean() ? 0.3 : 0.5;
+            int limit = rnd.nextInt(4) * 5;
+            EnhancedMatchScorer.UserTradeStats s = rnd.nextBoolean() ? stats : null;
+            List<MatchingEngine.MatchResult> cached = cache.findMatches(sourceId, minScore, limit, s);
+            List<MatchingEngine.MatchResult> direct = MatchingEngine.findPotentialMatches(index.find(sourceId).orElseThrow(), index.findAllItems(), minScore, limit, s);
+            assertEquals(rows(direct), rows(cached), "round " + round);
+
+            String target = "i" + rnd.nextInt(3_000);
+            switch (rnd.nextInt(4)) {
+                case 0 -> LocationOperations.saveItemLocation(index, target, 37.0 + rnd.nextGaussian() * 3, -122.0 + rnd.nextGaussian() * 3);
+                case 1 -> index.save(item(target, rnd));
+                case 2 -> { if (index.find(target).isPresent() && Integer.parseInt(target.substring(1)) >= 100) index.remove(target); }
+                default -> index.find(target).ifPresent(it -> { it.popularity = rnd.nextInt(30); index.save(it); });
+            }
+        }
+        Map<String, Long> st = cache.stats();
+        assertTrue(st.get("hits") > 0, st.toString());
+        // Each write checks only the entries posted under the changed item, not the whole cache.
+        assertTrue(st.get("invalidations") + st.get("revalidations") < 1_500L * st.get("entries"), st.toString());
+    }
+
+    @Test
+    void itemLosingItsCategoryReachesNullCategorySources() {
+        MatchCandidateIndex index = new MatchCandidateIndex();
+        Instant t = Instant.parse("2026-05-01T12:00:00Z");
+        MatchingEngine.Item source = new MatchingEngine.Item("src"), other = new MatchingEngine.Item("other");
+        source.tags = List.of("t1"); source.value = 20.0; source.condition = EnhancedMatchScorer.Condition.GOOD; source.createdAt = t;
+        other.category = "Toys"; other.tags = List.of("t2"); other.value = 20.0; other.condition = EnhancedMatchScorer.Condition.GOOD; other.createdAt = t;
+        index.save(source);
+        index.save(other);
+        MatchCache cache = new MatchCache(index, 10, Duration.ofMinutes(5));
+        assertEquals(0, cache.findMatches("src", 0.5, 10, null).size());
+        other.category = null; // now shares the source's (null) category
+        index.save(other);
+        List<MatchingEngine.MatchResult> direct = MatchingEngine.findPotentialMatches(source, index.findAllItems(), 0.5, 10, null);
+        assertEquals(1, direct.size());
+        assertEquals(rows(direct), rows(cache.findMatches("src", 0.5, 10, null)));
+    }
+
+    @Test
+    void callersCannotCorruptCachedResults() {
+        MatchCandidateIndex index = new MatchCandidateIndex();
+        Random rnd = new Random(5);
+        for (int i = 0; i < 500; i++) index.save(item("i" + i, rnd));
+        MatchCache cache = new MatchCache(index, 10, Duration.ofMinutes(5));
+        List<String> expected = rows(cache.findMatches("i0", 0.2, 5, null));
+        List<MatchingEngine.MatchResult> first = cache.findMatches("i0", 0.2, 5, null);
+        first.get(0).matchScore = -1; first.get(0).reasons.clear(); first.remove(1);
+        assertEquals(expected, rows(cache.findMatches("i0", 0.2, 5, null)));
+        assertEquals(Long.valueOf(2), cache.stats().get("hits"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.barterhaven.operations;
+
+import com.barterhaven.algorithms.EnhancedMatchScorer;
+import com.barterhaven.algorithms.Metrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchCandidateIndexTest {
+    private static final Instant LISTED = Instant.parse("2026-01-01T00:00:00Z");
+
+    // Mostly unique categories and tags, so few candidates share a term and the rest walks decide the results.
+    private static MatchCandidateIndex sparseCatalog(int n, long seed, boolean located, boolean valued) {
+        Random rnd = new Random(seed);
+        MatchCandidateIndex index = new MatchCandidateIndex();
+        for (int i = 0; i < n; i++) {
+            MatchingEngine.Item it = new MatchingEngine.Item("i" + i);
+            it.category = "c" + rnd.nextInt(n / 2); it.tags = List.of("t" + rnd.nextInt(n));
+            if (valued && rnd.nextInt(20) > 0) it.value = 1.0 + rnd.nextInt(500);
+            if (located && rnd.nextInt(10) > 0) { it.lat = 37.0 + rnd.nextGaussian() * 4; it.lon = -122.0 + rnd.nextGaussian() * 4; }
+            it.condition = rnd.nextInt(8) > 0 ? EnhancedMatchScorer.Condition.values()[rnd.nextInt(5)] : null; it.popularity = rnd.nextInt(60);
+            it.createdAt = LISTED.plusSeconds(rnd.nextInt(120 * 86_400)); it.ownerRating = rnd.nextBoolean() ? 1.0 + rnd.nextInt(5) : null;
+            index.save(it);
+        }
+        return index;
+    }
+
+    private static List<String> rows(List<MatchingEngine.MatchResult> results) {
+        List<String> out = new ArrayList<>(results.size());
+        for (MatchingEngine.MatchResult r : results) out.add(r.matchedItemId + "|" + r.matchScore + "|" + r.distanceKm);
+        return out;
+    }
+
+    @Test
+    void indexedMatchesEqualExhaustiveRanking() {
+        EnhancedMatchScorer.UserTradeStats stats = new EnhancedMatchScorer.UserTradeStats();
+        stats.categoryPreferences.put("c1", 2);
+        for (boolean located : new boolean[]{true, false}) {
+            for (boolean valued : new boolean[]{true, false}) {
+                MatchCandidateIndex index = sparseCatalog(4_000, located ? 1 : 2, located, valued);
+                List<MatchingEngine.Item> all = index.findAllItems();
+                Random rnd = new Random(4);
+                for (int q = 0; q < 40; q++) {
+                    MatchingEngine.Item source = all.get(rnd.nextInt(all.size()));
+                    for (double minScore : new double[]{0.0, 0.3, 0.6}) {
+                        for (int limit : new int[]{1, 10, 200}) {
+                            EnhancedMatchScorer.UserTradeStats s = q % 2 == 0 ? stats : null;
+                            assertEquals(rows(MatchingEngine.findPotentialMatches(source, all, minScore, limit, s)), rows(index.findMatches(source, minScore, limit, s)),
+                                    "located " + located + ", valued " + valued + ", source " + source.id + ", minScore " + minScore + ", limit " + limit);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void boundsKeepQueriesFromVisitingTheCatalog() {
+        MatchCandidateIndex index = sparseCatalog(20_000, 3, true, true);
+        List<MatchingEngine.Item> all = index.findAllItems();
+        Random rnd = new Random(5);
+        boolean was = Metrics.enabled();
+        Metrics.setEnabled(true);
+        try {
+            Metrics.snapshot(true);
+            for (int q = 0; q < 20; q++) index.findMatches(all.get(rnd.nextInt(all.size())), 0.3, 10, null);
+            Map<String, Long> c = Metrics.snapshot(true).counters;
+            // Each query examines under 5% of the catalog; the rest is cut off by bound.
+            assertTrue(c.get("matching.index.visited") < 20 * all.size() / 20, c.toString());
+            assertTrue(c.get("matching.index.scored") <= c.get("matching.index.visited") - c.get("matching.index.pruned"), c.toString());
+            assertEquals(200, c.get("matching.candidates.returned"), c.toString());
+        } finally {
+            Metrics.setEnabled(was);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.barterhaven.operations;
+
+import com.barterhaven.algorithms.EnhancedMatchScorer;
+import com.barterhaven.algorithms.HaversineDistanceCalculator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchingEngineTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+    private static final Instant LISTED = Instant.parse("2026-03-01T00:00:00Z");
+
+    @AfterAll
+    static void shutdown() { POOL.shutdown(); }
+
+    private static MatchingEngine.Item source() {
+        MatchingEngine.Item a = new MatchingEngine.Item("src");
+        a.category = "Books"; a.tags = List.of("classic"); a.value = 20.0; a.lat = 37.78; a.lon = -122.43;
+        a.condition = EnhancedMatchScorer.Condition.GOOD; a.popularity = 50; a.createdAt = LISTED;
+        return a;
+    }
+
+    // Few distinct values and only a handful of shared positions, so most scores and many distances tie.
+    private static List<MatchingEngine.Item> candidates(int n, long seed) {
+        double[][] spots = {{37.78, -122.43}, {37.80, -122.41}, {37.90, -122.30}, {38.30, -121.90}, {39.50, -120.00}};
+        Random rnd = new Random(seed);
+        List<MatchingEngine.Item> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            MatchingEngine.Item it = new MatchingEngine.Item("i" + i);
+            it.category = rnd.nextBoolean() ? "Books" : "Toys"; it.tags = List.of("t" + rnd.nextInt(3), "classic");
+            it.value = 10.0 * (1 + rnd.nextInt(3)); it.condition = EnhancedMatchScorer.Condition.GOOD;
+            it.popularity = 10 * rnd.nextInt(3); it.createdAt = LISTED;
+            if (rnd.nextInt(10) > 0) { double[] p = spots[rnd.nextInt(spots.length)]; it.lat = p[0]; it.lon = p[1]; }
+            out.add(it);
+        }
+        out.add(source());
+        Collections.shuffle(out, rnd);
+        return out;
+    }
+
+    private static List<String> rows(List<MatchingEngine.MatchResult> results) {
+        List<String> out = new ArrayList<>(results.size());
+        for (MatchingEngine.MatchResult r : results) out.add(r.matchedItemId + "|" + r.matchScore + "|" + r.distanceKm + "|" + r.reasons);
+        return out;
+    }
+
+    @Test
+    void parallelRankingEqualsSequentialIncludingTies() {
+        List<MatchingEngine.Item> many = candidates(60_000, 5);
+        MatchingEngine.Item src = source();
+        for (int limit : new int[]{0, 1, 50, 5_000}) {
+            for (double minScore : new double[]{0.0, 0.3, 0.6}) {
+                List<MatchingEngine.MatchResult> seq = MatchingEngine.findPotentialMatches(src, many, minScore, limit, null);
+                List<MatchingEngine.MatchResult> par = MatchingEngine.findPotentialMatches(src, many, minScore, limit, null, POOL);
+                assertEquals(rows(seq), rows(par), "limit " + limit + ", minScore " + minScore);
+            }
+        }
+    }
+
+    @Test
+    void tiesAreBrokenByDistanceThenInputOrder() {
+        List<MatchingEngine.Item> many = candidates(20_000, 8);
+        List<MatchingEngine.MatchResult> par = MatchingEngine.findPotentialMatches(source(), many, 0.0, 2_000, null, POOL);
+        Map<String, Integer> position = new HashMap<>();
+        for (int i = 0; i < many.size(); i++) position.put(many.get(i).id, i);
+        boolean sawDistanceTie = false;
+        for (int i = 1; i < par.size(); i++) {
+            MatchingEngine.MatchResult prev = par.get(i - 1), cur = par.get(i);
+            assertFalse(prev.matchedItemId.equals("src") || cur.matchedItemId.equals("src"));
+            assertTrue(prev.matchScore >= cur.matchScore);
+            if (prev.matchScore != cur.matchScore) continue;
+            double dp = prev.distanceKm != null ? prev.distanceKm : Double.MAX_VALUE, dc = cur.distanceKm != null ? cur.distanceKm : Double.MAX_VALUE;
+            assertTrue(dp <= dc);
+            if (dp == dc) {
+                sawDistanceTie = true;
+                assertTrue(position.get(prev.matchedItemId) < position.get(cur.matchedItemId));
+            }
+        }
+        assertTrue(sawDistanceTie);
+    }
+
+    // EnhancedMatchScorer.score as it was before scoreOnly/explain split it, term for term and in the same order, plus
+    // the owner-rating term added since. The fast paths must reproduce it exactly.
+    private static EnhancedMatchScorer.ScoreWithReasons baselineScore(EnhancedMatchScorer.Item a, EnhancedMatchScorer.Item b, EnhancedMatchScorer.UserTradeStats statsOrNull) {
+        double total = 0.0; Map<String, String> reasons = new LinkedHashMap<>();
+        if (Objects.equals(a.category, b.category)) { total += 0.25; reasons.put("category", "Items are in the same category"); }
+        double tagScore = 0.0;
+        if (!a.tags.isEmpty() && !b.tags.isEmpty()) {
+            Set<String> A = new HashSet<>(a.tags), B = new HashSet<>(b.tags);
+            A.retainAll(B);
+            int denom = Math.max(a.tags.size(), b.tags.size());
+            if (denom > 0) tagScore = (A.size() / (double) denom) * 0.15;
+            if (tagScore > 0.0) reasons.put("tags", "Items share " + Math.round((tagScore / 0.15) * 100) + "% of tags");
+        }
+        total += tagScore;
+        if (a.estimatedValue != null && b.estimatedValue != null && a.estimatedValue > 0 && b.estimatedValue > 0) {
+            double diff = Math.abs(a.estimatedValue - b.estimatedValue);
+            double maxV = Math.max(a.estimatedValue, b.estimatedValue);
+            double v = (1.0 - (diff / maxV)) * 0.15; total += v;
+            if (v > 0.10) reasons.put("value", "Items have similar estimated values");
+        }
+        if (a.lat != null && a.lon != null && b.lat != null && b.lon != null) {
+            double km = HaversineDistanceCalculator.distanceKm(a.lat, a.lon, b.lat, b.lon);
+            double loc = 0.0; String desc = null;
+            if (km <= 5) { loc = 0.10; desc = "Items are very close (within 5km)"; }
+            else if (km <= 20) { loc = 0.07; desc = "Items are nearby (within 20km)"; }
+            else if (km <= 50) { loc = 0.05; desc = "Items are in the same region"; }
+            else if (km <= 100) { loc = 0.02; desc = "Items are within 100km"; }
+            total += loc; if (desc != null) reasons.put("location", desc);
+        }
+        if (a.condition != null && b.condition != null) {
+            Set<EnhancedMatchScorer.Condition> high = EnumSet.of(EnhancedMatchScorer.Condition.NEW, EnhancedMatchScorer.Condition.LIKE_NEW);
+            Set<EnhancedMatchScorer.Condition> mid = EnumSet.of(EnhancedMatchScorer.Condition.GOOD, EnhancedMatchScorer.Condition.FAIR);
+            if (a.condition == b.condition) { total += 0.10; reasons.put("condition", "Items are in similar condition"); }
+            else if ((high.contains(a.condition) && high.contains(b.condition)) || (mid.contains(a.condition) && mid.contains(b.condition))) { total += 0.05; reasons.put("condition", "Items are in comparable condition"); }
+        }
+        int popA = Optional.ofNullable(a.popularityScore).orElse(0);
+        int popB = Optional.ofNullable(b.popularityScore).orElse(0);
+        double pop = Math.min((popA + popB) / 100.0, 0.10); total += pop;
+        if (pop > 0.05) reasons.put("popularity", "Both items are popular");
+        if (a.createdAt != null && b.createdAt != null) {
+            long days = Math.abs(Duration.between(a.createdAt, b.createdAt).toDays());
+            if (days <= 30) { total += 0.05; reasons.put("age", "Items were listed around the same time"); }
+        }
+        if (statsOrNull != null && b.category != null && statsOrNull.categoryPreferences.containsKey(b.category)) {
+            total += 0.05; reasons.put("preference", "Matches your trading preferences");
+        }
+        if (b.ownerRating != null) {
+            double rep = EnhancedMatchScorer.reputationTerm(b.ownerRating); total += rep;
+            if (rep >= 0.75 * EnhancedMatchScorer.MAX_REPUTATION_TERM) reasons.put("reputation", "Owner is highly rated");
+        }
+        return new EnhancedMatchScorer.ScoreWithReasons(total, reasons);
+    }
+
+    // Pairs drawn from few values so categories, tags, conditions and ages collide often, with every field sometimes absent.
+    private static EnhancedMatchScorer.Item randomScorerItem(Random rnd, int i) {
+        String[] categories = {"Books", "Toys", "Games", null};
+        List<String> tags = new ArrayList<>();
+        for (int k = rnd.nextInt(5); k > 0; k--) tags.add("t" + rnd.nextInt(4)); // repeats give duplicate tags
+        Double value = rnd.nextInt(6) == 0 ? null : rnd.nextInt(8) == 0 ? 0.0 : 5.0 * (1 + rnd.nextInt(6));
+        Double lat = rnd.nextInt(5) == 0 ? null : 37.0 + rnd.nextDouble(), lon = rnd.nextInt(5) == 0 ? null : -122.5 + rnd.nextDouble();
+        EnhancedMatchScorer.Condition[] conditions = EnhancedMatchScorer.Condition.values();
+        EnhancedMatchScorer.Condition condition = rnd.nextInt(6) == 0 ? null : conditions[rnd.nextInt(conditions.length)];
+        Integer popularity = rnd.nextInt(4) == 0 ? null : rnd.nextInt(80);
+        // Within a second or a nanosecond of the 30-day edge on either side, so the floor of daysBetween decides the age term.
+        Instant createdAt = rnd.nextInt(8) == 0 ? null : LISTED.plus(Duration.ofDays(rnd.nextInt(3) == 0 ? 0 : (rnd.nextBoolean() ? 30 : -30) + rnd.nextInt(3) - 1))
+                .plusSeconds(rnd.nextInt(3) - 1).plusNanos(rnd.nextInt(3) - 1);
+        Double rating = rnd.nextInt(3) == 0 ? 1.0 + 4.0 * rnd.nextDouble() : null;
+        return new EnhancedMatchScorer.Item("s" + i, categories[rnd.nextInt(categories.length)], tags, value, lat, lon, condition, popularity, createdAt, rating);
+    }
+
+    @Test
+    void scoreOnlyAndExplainMatchTheBaselineFormula() {
+        Random rnd = new Random(13);
+        EnhancedMatchScorer.UserTradeStats stats = new EnhancedMatchScorer.UserTradeStats();
+        stats.categoryPreferences.put("Books", 2);
+        stats.categoryPreferences.put("Games", 1);
+        for (int i = 0; i < 20_000; i++) {
+            EnhancedMatchScorer.Item a = randomScorerItem(rnd, 2 * i), b = randomScorerItem(rnd, 2 * i + 1);
+            EnhancedMatchScorer.UserTradeStats s = rnd.nextBoolean() ? stats : null;
+            EnhancedMatchScorer.ScoreWithReasons expected = baselineScore(a, b, s);
+            EnhancedMatchScorer.ScoreWithReasons explained = EnhancedMatchScorer.explain(a, b, s);
+            String pair = a.category + a.tags + a.createdAt + " / " + b.category + b.tags + b.createdAt;
+            assertEquals(expected.score, explained.score, pair);
+            assertEquals(expected.reasons, explained.reasons, pair);
+            assertEquals(expected.score, EnhancedMatchScorer.scoreOnly(a, b, s), pair);
+            boolean located = a.lat != null && a.lon != null && b.lat != null && b.lon != null;
+            double km = located ? HaversineDistanceCalculator.distanceKm(a.lat, a.lon, b.lat, b.lon) : Double.NaN;
+            assertEquals(expected.score, EnhancedMatchScorer.scoreOnly(a, b, km, s), pair);
+            assertTrue(EnhancedMatchScorer.upperBound(a, b, s) >= expected.score, pair);
+        }
+    }
+
+    @Test
+    void smallInputsAndNegativeLimits() {
+        List<MatchingEngine.Item> few = candidates(100, 3);
+        assertEquals(rows(MatchingEngine.findPotentialMatches(source(), few, 0.3, 10, null)),
+                rows(MatchingEngine.findPotentialMatches(source(), few, 0.3, 10, null, POOL)));
+        assertThrows(IllegalArgumentException.class, () -> MatchingEngine.findPotentialMatches(source(), candidates(10_000, 1), 0.3, -1, null, POOL));
+    }
+}
@@ -0,0 +1,117 @@
+package com.barterhaven.operations;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageLogRepoTest {
+    private static final Instant T0 = Instant.parse("2026-05-01T12:00:00Z");
+    private static final int SEGMENT_BYTES = 1 << 16;
+
+    @TempDir Path dir;
+
+    private static ChatOperations.Message message(int i) {
+        return new ChatOperations.Message("m" + i, "u" + (i % 7), "u" + (i % 5), "message body " + i, T0.plusMillis(i / 3));
+    }
+
+    // Every message with its send sequence, read and delete times, plus each conversation in stored order.
+    private static List<String> state(MessageLogRepo log, int messages) {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            ChatOperations.Message m = log.findById("m" + i);
+            out.add(m == null ? "m" + i + " missing" : m.id + "|" + m.seq + "|" + m.senderId + "|" + m.receiverId + "|" + m.createdAt + "|" + m.readAt + "|" + m.deletedAt);
+        }
+        for (int a = 0; a < 7; a++) {
+            for (int b = 0; b < 5; b++) out.add(log.findConversation("u" + a, "u" + b).stream().map(m -> m.id).collect(Collectors.joining(",")));
+        }
+        return out;
+    }
+
+    private List<Long> segments() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString()).filter(n -> n.startsWith("segment-"))
+                    .map(n -> Long.parseLong(n.substring(8, n.length() - 4))).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void tornFinalRecordIsDroppedAndTheLogContinues() throws Exception {
+        long end;
+        try (MessageLogRepo log = new MessageLogRepo(dir, SEGMENT_BYTES, false, Long.MAX_VALUE)) {
+            for (int i = 0; i < 999; i++) log.save(message(i));
+            log.markRead(List.of("m1", "m2"));
+            log.softDelete("m3", message(3).senderId);
+            log.save(message(999));
+            end = log.position();
+        }
+        Path last = dir.resolve(String.format("segment-%08d.log", (end - 1) / SEGMENT_BYTES));
+        try (FileChannel ch = FileChannel.open(last, StandardOpenOption.WRITE)) { ch.truncate((end - 1) % SEGMENT_BYTES + 1 - 10); }
+
+        try (MessageLogRepo log = new MessageLogRepo(dir, SEGMENT_BYTES, false, Long.MAX_VALUE)) {
+            assertEquals(999, log.size());
+            assertNull(log.findById("m999"));
+            assertNotNull(log.findById("m1").readAt);
+            assertNotNull(log.findById("m2").readAt);
+            assertNotNull(log.findById("m3").deletedAt);
+            assertTrue(log.checkUnreadConsistency().isEmpty());
+            log.save(message(999));
+        }
+        try (MessageLogRepo log = new MessageLogRepo(dir, SEGMENT_BYTES, false, Long.MAX_VALUE)) {
+            assertEquals(1_000, log.size());
+            assertNotNull(log.findById("m999"));
+            assertTrue(log.checkUnreadConsistency().isEmpty());
+        }
+    }
+
+    @Test
+    void snapshotPlusTailRestoresTheSameState() throws Exception {
+        List<String> before;
+        try (MessageLogRepo log = new MessageLogRepo(dir, SEGMENT_BYTES, false, Long.MAX_VALUE)) {
+            for (int i = 0; i < 3_000; i++) log.save(message(i));
+            for (int i = 0; i < 3_000; i += 4) log.markRead(List.of("m" + i));
+            log.softDelete("m10", message(10).senderId);
+            log.snapshot();
+            assertEquals(1, segments().size());
+            for (int i = 3_000; i < 3_100; i++) log.save(message(i));
+            log.markRead(List.of("m1", "m3001"));
+            log.softDelete("m3002", message(3002).senderId);
+            before = state(log, 3_100);
+        }
+        try (MessageLogRepo log = new MessageLogRepo(dir, SEGMENT_BYTES, false, Long.MAX_VALUE)) {
+            assertEquals(103, log.replayedRecords()); // 100 sends, a read record per id, one delete
+            assertEquals(before, state(log, 3_100));
+            assertTrue(log.checkUnreadConsistency().isEmpty());
+        }
+    }
+
+    @Test
+    void backgroundSnapshotsKeepStateAndDropOldSegments() throws Exception {
+        List<String> before;
+        long written;
+        try (MessageLogRepo log = new MessageLogRepo(dir, SEGMENT_BYTES, false, 500)) {
+            for (int i = 0; i < 5_000; i++) {
+                log.save(message(i));
+                if (i % 3 == 0) log.markRead(List.of("m" + (i / 2)));
+            }
+            before = state(log, 5_000);
+            written = log.position();
+            log.close();
+            assertTrue(log.snapshotsWritten() > 0);
+            assertEquals(0, log.snapshotFailures());
+        }
+        assertTrue(segments().get(0) > 0, "segments covered by a snapshot are deleted");
+        try (MessageLogRepo log = new MessageLogRepo(dir, SEGMENT_BYTES, false, Long.MAX_VALUE)) {
+            assertTrue(log.replayedRecords() < 5_000 + 5_000 / 3);
+            assertEquals(written, log.position());
+            assertEquals(before, state(log, 5_000));
+            assertTrue(log.checkUnreadConsistency().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.barterhaven.operations;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageSearchIndexTest {
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+    private static final int USERS = 150;
+    private static final String[] WORDS = new String[600];
+    static { for (int i = 0; i < WORDS.length; i++) WORDS[i] = "w" + Integer.toString(i, 36); }
+
+    // Skewed vocabulary with punctuation, a few messages a user sends to themself.
+    private static ChatOperations.Message message(Random rnd, int i) {
+        StringBuilder sb = new StringBuilder();
+        for (int w = 1 + rnd.nextInt(12); w > 0; w--) sb.append(WORDS[(int) Math.min(WORDS.length - 1, Math.abs(rnd.nextGaussian()) * 120)]).append(rnd.nextInt(8) == 0 ? ", " : " ");
+        return new ChatOperations.Message("m" + i, "u" + rnd.nextInt(USERS), "u" + rnd.nextInt(USERS), sb.toString(), T0.plusSeconds(i / 3));
+    }
+
+    private static List<String> ids(List<MessageSearchIndex.Hit> hits) { return hits.stream().map(h -> h.message.id).collect(Collectors.toList()); }
+
+    private static List<String> ranked(List<MessageSearchIndex.Hit> hits) { return hits.stream().map(h -> h.message.id + "|" + h.score).collect(Collectors.toList()); }
+
+    // Every query's hits are exactly the user's live messages holding all its tokens, best first, and pages agree.
+    private static void assertMatchesScan(ChatOperations.SearchableMessageRepo repo, List<ChatOperations.Message> all, Random rnd) {
+        for (int q = 0; q < 200; q++) {
+            String user = "u" + rnd.nextInt(USERS), other = q % 3 == 0 ? "u" + rnd.nextInt(USERS) : null;
+            String query = WORDS[(int) Math.min(WORDS.length - 1, Math.abs(rnd.nextGaussian()) * 40)] + (q % 2 == 0 ? " " + WORDS[rnd.nextInt(30)].toUpperCase(Locale.ROOT) : "");
+            List<String> tokens = MessageSearchIndex.tokenize(query);
+            Set<String> expected = new HashSet<>();
+            for (ChatOperations.Message m : all) {
+                boolean mine = user.equals(m.senderId) || user.equals(m.receiverId);
+                boolean inConversation = other == null || other.equals(user.equals(m.senderId) ? m.receiverId : m.senderId);
+                if (mine && inConversation && m.deletedAt == null && MessageSearchIndex.tokenize(m.content).containsAll(tokens)) expected.add(m.id);
+            }
+            List<MessageSearchIndex.Hit> hits = ChatOperations.searchMessages(repo, user, query, other, Integer.MAX_VALUE, 0);
+            assertEquals(expected, new HashSet<>(ids(hits)), query + " for " + user);
+            for (int i = 1; i < hits.size(); i++) {
+                MessageSearchIndex.Hit a = hits.get(i - 1), b = hits.get(i);
+                assertTrue(a.score > b.score || a.score == b.score && (a.message.createdAt.isAfter(b.message.createdAt)
+                        || a.message.createdAt.equals(b.message.createdAt) && a.message.id.compareTo(b.message.id) < 0), query + " for " + user);
+            }
+            assertEquals(ids(hits.subList(Math.min(5, hits.size()), Math.min(10, hits.size()))), ids(ChatOperations.searchMessages(repo, user, query, other, 5, 5)));
+        }
+    }
+
+    // Same hits with the same scores as an index built from the live messages alone.
+    private static void assertScoresMatch(MessageSearchIndex index, MessageSearchIndex fresh) {
+        for (int u = 0; u < USERS; u += 7) {
+            for (int w = 0; w < 30; w++) {
+                String other = w % 2 == 0 ? null : "u" + (u + 1);
+                assertEquals(ranked(fresh.search("u" + u, WORDS[w], other, 50, 0)), ranked(index.search("u" + u, WORDS[w], other, 50, 0)), "u" + u + " " + WORDS[w]);
+            }
+        }
+    }
+
+    @Test
+    void searchMatchesAScanAcrossDeletesAndCompaction() {
+        Random rnd = new Random(4);
+        ChatOperations.SearchableMessageRepo repo = new ChatOperations.SearchableMessageRepo(new ChatOperations.IndexedMessageRepo(), new MessageSearchIndex());
+        List<ChatOperations.Message> all = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) all.add(message(rnd, i));
+        all.forEach(repo::save);
+        for (int i = 0; i < 2_000; i++) repo.softDelete(all.get(rnd.nextInt(all.size())).id, null);
+        int live = (int) all.stream().filter(m -> m.deletedAt == null).count();
+
+        MessageSearchIndex fresh = new MessageSearchIndex();
+        for (ChatOperations.Message m : all) if (m.deletedAt == null) fresh.index(m);
+        assertMatchesScan(repo, all, rnd);
+        assertScoresMatch(repo.index(), fresh);
+
+        long[] before = repo.index().postingStats();
+        repo.index().compact();
+        long[] after = repo.index().postingStats();
+        assertEquals(all.size(), before[0]);
+        assertEquals(live, after[0]);
+        assertEquals(fresh.postingStats()[3], after[3]);
+        assertMatchesScan(repo, all, rnd);
+        assertScoresMatch(repo.index(), fresh);
+
+        // The compacted index keeps taking writes and deletes.
+        for (int i = 20_000; i < 25_000; i++) { ChatOperations.Message m = message(rnd, i); all.add(m); repo.save(m); fresh.index(m); }
+        for (int i = 0; i < 500; i++) {
+            ChatOperations.Message m = all.get(rnd.nextInt(all.size()));
+            if (m.deletedAt == null) { repo.softDelete(m.id, null); fresh.remove(m.id); }
+        }
+        assertMatchesScan(repo, all, rnd);
+        assertScoresMatch(repo.index(), fresh);
+    }
+}
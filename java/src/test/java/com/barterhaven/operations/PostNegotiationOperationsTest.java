@@ -0,0 +1,89 @@
+package com.barterhaven.operations;
+
+import com.barterhaven.algorithms.EnhancedMatchScorer;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostNegotiationOperationsTest {
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void indexedTradeRepoAnswersLikeTheScanningRepoThroughStatusChanges() {
+        PostNegotiationOperations.IndexedTradeRepo indexed = new PostNegotiationOperations.IndexedTradeRepo();
+        PostNegotiationOperations.InMemoryTradeRepo scanning = new PostNegotiationOperations.InMemoryTradeRepo();
+        Random rnd = new Random(5);
+        String[] statuses = {"pending", "accepted", "completed", "disputed", "cancelled"};
+        List<PostNegotiationOperations.Trade> all = new ArrayList<>();
+        for (int i = 0; i < 30_000; i++) {
+            PostNegotiationOperations.Trade x;
+            if (all.isEmpty() || rnd.nextInt(3) == 0) {
+                x = new PostNegotiationOperations.Trade(); x.id = "T" + i; x.proposerId = "u" + rnd.nextInt(50); x.receiverId = "u" + rnd.nextInt(50);
+                x.createdAt = T0.plusSeconds(rnd.nextInt(2_000)); all.add(x); // narrow range, so createdAt ties are common
+            } else {
+                x = all.get(rnd.nextInt(all.size()));
+            }
+            x.status = statuses[rnd.nextInt(statuses.length)];
+            scanning.save(x);
+            indexed.save(x); // last, so the live updatedAt the scanning repo reads is the one indexed recorded
+            if (i % 500 != 0) continue;
+            for (int u = 0; u < 50; u++) {
+                String user = "u" + u;
+                assertEquals(PostNegotiationOperations.getTradeStats(scanning, user), PostNegotiationOperations.getTradeStats(indexed, user), user + " after " + i);
+                Instant from = T0.plusSeconds(rnd.nextInt(1_000)), to = from.plusSeconds(rnd.nextInt(1_000));
+                String st = rnd.nextBoolean() ? null : "completed";
+                assertEquals(PostNegotiationOperations.getTradeHistory(scanning, user, st, from, to),
+                        PostNegotiationOperations.getTradeHistory(indexed, user, st, from, to), user + " after " + i);
+            }
+        }
+        assertEquals(PostNegotiationOperations.getTradeHistory(scanning, "u1", null, null, null), PostNegotiationOperations.getTradeHistory(indexed, "u1", null, null, null));
+        assertEquals(List.of(), indexed.findByUser("u1", T0.plusSeconds(10), T0));
+        assertEquals(PostNegotiationOperations.TradeStats.EMPTY, indexed.statsFor("nobody"));
+    }
+
+    @Test
+    void indexedReviewRepoKeepsReputationAndPagesThroughEdits() {
+        PostNegotiationOperations.IndexedReviewRepo indexed = new PostNegotiationOperations.IndexedReviewRepo();
+        PostNegotiationOperations.InMemoryReviewRepo scanning = new PostNegotiationOperations.InMemoryReviewRepo();
+        Random rnd = new Random(7);
+        List<PostNegotiationOperations.TradeReview> reviews = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            PostNegotiationOperations.TradeReview rv;
+            if (reviews.isEmpty() || rnd.nextInt(5) > 0) {
+                rv = new PostNegotiationOperations.TradeReview(); rv.id = "R" + i; rv.tradeId = "T" + rnd.nextInt(3_000);
+                rv.createdAt = T0.plusSeconds(rnd.nextInt(50_000)); reviews.add(rv);
+            } else {
+                rv = reviews.get(rnd.nextInt(reviews.size())); // an edit: new parties and rating, same id
+            }
+            rv.reviewerId = "u" + rnd.nextInt(40); rv.reviewedUserId = "u" + rnd.nextInt(40); rv.rating = 1 + rnd.nextInt(5);
+            scanning.save(rv); indexed.save(rv);
+            if (i % 1_000 != 0) continue;
+            for (int u = 0; u < 40; u++) {
+                String user = "u" + u;
+                assertEquals(PostNegotiationOperations.getUserReputation(scanning, user), PostNegotiationOperations.getUserReputation(indexed, user), user + " after " + i);
+                int offset = rnd.nextInt(50), limit = 1 + rnd.nextInt(30);
+                assertEquals(PostNegotiationOperations.getUserReviews(scanning, user, limit, offset),
+                        PostNegotiationOperations.getUserReviews(indexed, user, limit, offset), user + " after " + i);
+            }
+            String trade = "T" + rnd.nextInt(3_000);
+            assertEquals(PostNegotiationOperations.getTradeReviews(scanning, trade), PostNegotiationOperations.getTradeReviews(indexed, trade), trade);
+        }
+        assertEquals(PostNegotiationOperations.Reputation.NONE, indexed.reputationOf("nobody"));
+    }
+
+    @Test
+    void ownerReviewsReachMatchScores() {
+        MatchCandidateIndex catalog = new MatchCandidateIndex();
+        MatchingEngine.Item mine = new MatchingEngine.Item("iA"), theirs = new MatchingEngine.Item("iB");
+        mine.category = theirs.category = "Books"; mine.ownerId = "u1"; theirs.ownerId = "u2";
+        catalog.save(mine); catalog.save(theirs);
+        double before = catalog.findMatches(mine, 0.0, 1, null).get(0).matchScore;
+        PostNegotiationOperations.IndexedReviewRepo reviews = new PostNegotiationOperations.IndexedReviewRepo();
+        PostNegotiationOperations.propagateRatings(reviews, catalog);
+        PostNegotiationOperations.submitTradeReview(reviews, "T1", "u1", "u2", 5, "Smooth trade");
+        assertEquals(before + EnhancedMatchScorer.reputationTerm(5.0), catalog.findMatches(mine, 0.0, 1, null).get(0).matchScore, 1e-12);
+    }
+}
@@ -0,0 +1,71 @@
+package com.barterhaven.operations;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PushDispatcherTest {
+    private static NotificationOperations.InMemoryNotifRepo repoWithTokens(int users) {
+        NotificationOperations.InMemoryNotifRepo repo = new NotificationOperations.InMemoryNotifRepo();
+        for (int u = 0; u < users; u++) repo.upsertPushToken("u" + u, "token-" + u, "ios", "phone");
+        return repo;
+    }
+
+    private static long events(PushDispatcher.InMemoryPushSender sender) {
+        long events = 0;
+        for (List<PushDispatcher.PushMessage> b : sender.batches()) for (PushDispatcher.PushMessage m : b) events += m.coalescedEvents;
+        return events;
+    }
+
+    @Test
+    void burstThroughSmallQueueLosesNothing() throws InterruptedException {
+        NotificationOperations.InMemoryNotifRepo repo = repoWithTokens(30);
+        PushDispatcher.InMemoryPushSender sender = new PushDispatcher.InMemoryPushSender();
+        PushDispatcher d = new PushDispatcher(repo, u -> 0, sender, 64, Duration.ofMillis(20), 16);
+        d.start();
+        int refused = 0;
+        for (int i = 0; i < 5_000; i++) if (!d.submit(new NotificationOperations.Notification("x" + i, "u" + (i % 30), false), Duration.ofSeconds(5))) refused++;
+        d.close();
+        assertEquals(0, refused);
+        assertEquals(5_000, events(sender));
+        assertEquals(0, d.queueDepth());
+        assertEquals(0, d.pendingTokens());
+    }
+
+    @Test
+    void coalescesPerDeviceToken() {
+        NotificationOperations.InMemoryNotifRepo repo = repoWithTokens(3);
+        repo.upsertPushToken("u1", "token-0", "ios", "phone"); // u0 and u1 are signed in on the same device
+        PushDispatcher.InMemoryPushSender sender = new PushDispatcher.InMemoryPushSender();
+        long[] now = {0};
+        PushDispatcher d = new PushDispatcher(repo, u -> 0, sender, 100, Duration.ofMillis(200), 16, 100, () -> now[0]);
+        for (String user : new String[]{"u0", "u1", "u1", "u2", "u9"}) d.trySubmit(new NotificationOperations.Notification(UUID.randomUUID().toString(), user, false));
+        assertEquals(0, d.pump(false));
+        now[0] += Duration.ofMillis(250).toNanos();
+        assertEquals(2, d.pump(false));
+        Map<String, PushDispatcher.PushMessage> byToken = new HashMap<>();
+        for (PushDispatcher.PushMessage m : sender.batches().get(0)) byToken.put(m.token, m);
+        assertEquals(Set.of("token-0", "token-2"), byToken.keySet());
+        assertEquals(3, byToken.get("token-0").coalescedEvents);
+        assertEquals("u1", byToken.get("token-0").userId);
+        assertEquals(1L, d.metrics().get("noToken")); // u9 never registered a device
+    }
+
+    @Test
+    void pendingTableStaysWithinBound() {
+        NotificationOperations.InMemoryNotifRepo repo = repoWithTokens(100);
+        PushDispatcher.InMemoryPushSender sender = new PushDispatcher.InMemoryPushSender();
+        PushDispatcher d = new PushDispatcher(repo, u -> 0, sender, 1_000, Duration.ofHours(1), 4, 10, () -> 0L);
+        for (int i = 0; i < 1_000; i++) {
+            d.trySubmit(new NotificationOperations.Notification("n" + i, "u" + (i % 100), false));
+            if (i % 50 == 49) { d.pump(false); assertTrue(d.pendingTokens() <= 10); }
+        }
+        d.pump(true);
+        assertEquals(1_000, events(sender));
+        assertTrue(d.metrics().get("earlyFlushes") > 0);
+        for (List<PushDispatcher.PushMessage> b : sender.batches()) assertTrue(b.size() <= 4);
+    }
+}
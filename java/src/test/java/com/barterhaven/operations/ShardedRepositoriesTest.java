@@ -0,0 +1,68 @@
+package com.barterhaven.operations;
+
+import com.barterhaven.algorithms.ConsistentHashRing;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedRepositoriesTest {
+    private static final Instant T0 = Instant.parse("2026-05-01T12:00:00Z");
+    private static final int USERS = 30;
+
+    // Counts per-user reads so a test can see which shards a query touched.
+    private static final class CountingTradeRepo implements PostNegotiationOperations.TradeRepo {
+        final PostNegotiationOperations.IndexedTradeRepo delegate = new PostNegotiationOperations.IndexedTradeRepo();
+        int userReads;
+        public Optional<PostNegotiationOperations.Trade> find(String id) { return delegate.find(id); }
+        public void save(PostNegotiationOperations.Trade t) { delegate.save(t); }
+        public void restore(PostNegotiationOperations.Trade t) { delegate.restore(t); }
+        public List<PostNegotiationOperations.Trade> findByUser(String userId) { userReads++; return delegate.findByUser(userId); }
+        public List<PostNegotiationOperations.Trade> findByUser(String userId, Instant start, Instant end) { userReads++; return delegate.findByUser(userId, start, end); }
+        public PostNegotiationOperations.TradeStats statsFor(String userId) { userReads++; return delegate.statsFor(userId); }
+    }
+
+    private static List<String> ids(List<PostNegotiationOperations.Trade> trades) { return trades.stream().map(t -> t.id).collect(Collectors.toList()); }
+
+    @Test
+    void tradesWithEqualCreatedAtKeepFirstSaveOrderAcrossShards() {
+        ConsistentHashRing<PostNegotiationOperations.TradeRepo> ring = new ConsistentHashRing<>();
+        List<CountingTradeRepo> shards = new ArrayList<>();
+        for (int s = 0; s < 4; s++) { CountingTradeRepo r = new CountingTradeRepo(); shards.add(r); ring.add("shard-" + s, r); }
+        ShardedRepositories.ShardedTradeRepo sharded = new ShardedRepositories.ShardedTradeRepo(ring);
+        PostNegotiationOperations.InMemoryTradeRepo single = new PostNegotiationOperations.InMemoryTradeRepo();
+
+        // Ten trades per second, with ids that sort against save order, so every user's history is full of ties.
+        Random rnd = new Random(5);
+        List<PostNegotiationOperations.Trade> trades = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            PostNegotiationOperations.Trade t = new PostNegotiationOperations.Trade();
+            t.id = "t" + (1_000 - i); t.proposerId = "u" + rnd.nextInt(USERS); t.receiverId = "u" + rnd.nextInt(USERS);
+            t.status = "pending"; t.createdAt = T0.plusSeconds(rnd.nextInt(60));
+            trades.add(t);
+            sharded.save(t); single.restore(t); // restore keeps the updatedAt the sharded save stamped
+        }
+        // Later saves change state but not position.
+        for (int i = 0; i < 200; i++) {
+            PostNegotiationOperations.Trade t = trades.get(rnd.nextInt(trades.size()));
+            t.status = rnd.nextBoolean() ? "completed" : "disputed";
+            sharded.save(t); single.restore(t);
+        }
+
+        for (int u = 0; u < USERS; u++) {
+            String user = "u" + u;
+            shards.forEach(s -> s.userReads = 0);
+            assertEquals(ids(single.findByUser(user)), ids(sharded.findByUser(user)), user);
+            Instant start = T0.plusSeconds(10), end = T0.plusSeconds(40);
+            assertEquals(ids(single.findByUser(user, start, end)), ids(sharded.findByUser(user, start, end)), user);
+            assertEquals(single.statsFor(user).toMap(), sharded.statsFor(user).toMap(), user);
+            // All three reads went to the user's own shard.
+            assertEquals(List.of(3), shards.stream().map(s -> s.userReads).filter(n -> n > 0).collect(Collectors.toList()), user);
+        }
+        for (PostNegotiationOperations.Trade t : trades) assertSame(t, sharded.find(t.id).orElseThrow());
+        assertTrue(sharded.find("missing").isEmpty());
+    }
+}
@@ -0,0 +1,44 @@
+package com.barterhaven.testdata;
+
+import com.barterhaven.operations.MatchingEngine;
+import com.barterhaven.operations.PostNegotiationOperations;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketplaceDataGeneratorTest {
+    private static String describe(MatchingEngine.Item it) {
+        return it.id + "|" + it.category + "|" + it.tags + "|" + it.value + "|" + it.lat + "|" + it.lon + "|" + it.condition + "|" + it.popularity + "|" + it.createdAt + "|" + it.ownerId;
+    }
+
+    @Test
+    void sameSeedSameData() {
+        List<MatchingEngine.Item> a = new MarketplaceDataGenerator(42).items(20_000, 4_000), b = new MarketplaceDataGenerator(42).items(20_000, 4_000);
+        for (int i = 0; i < a.size(); i++) assertEquals(describe(a.get(i)), describe(b.get(i)));
+        Map<String, Integer> byOwner = new HashMap<>();
+        for (MatchingEngine.Item it : a) byOwner.merge(it.ownerId, 1, Integer::sum);
+        assertTrue(Collections.max(byOwner.values()) > 20, "owners are skewed towards a few very active users");
+    }
+
+    @Test
+    void restoredTradesKeepTheirGeneratedUpdatedAt() {
+        PostNegotiationOperations.IndexedTradeRepo repo = new PostNegotiationOperations.IndexedTradeRepo();
+        List<PostNegotiationOperations.Trade> trades = new MarketplaceDataGenerator(7).trades(1_000, 50);
+        long completionMs = 0, completed = 0;
+        for (PostNegotiationOperations.Trade t : trades) {
+            repo.restore(t);
+            assertTrue(t.updatedAt.isBefore(MarketplaceDataGenerator.EPOCH.plus(java.time.Duration.ofDays(200))));
+        }
+        for (PostNegotiationOperations.Trade t : trades) {
+            if (!"completed".equals(t.status)) continue;
+            completed++;
+            completionMs += java.time.Duration.between(t.createdAt, t.updatedAt).toMillis();
+        }
+        PostNegotiationOperations.TradeStats all = PostNegotiationOperations.TradeStats.EMPTY;
+        for (int u = 0; u < 50; u++) all = all.plus(repo.statsFor("user-" + u));
+        assertEquals(2 * completed, all.completed); // each trade counts for both users
+        assertEquals(2 * completionMs, all.completionMsSum);
+    }
+}
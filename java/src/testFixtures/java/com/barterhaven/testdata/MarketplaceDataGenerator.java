@@ -0,0 +1,151 @@
+package com.barterhaven.testdata;
+
+import com.barterhaven.algorithms.BasicMatchScorer;
+import com.barterhaven.algorithms.EnhancedMatchScorer;
+import com.barterhaven.algorithms.ItemsWithinRadiusFilter;
+import com.barterhaven.operations.ChatOperations;
+import com.barterhaven.operations.MatchingEngine;
+import com.barterhaven.operations.NotificationOperations;
+import com.barterhaven.operations.PostNegotiationOperations;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Seeded synthetic marketplace for benchmarks and load tests: the same seed always yields the same items and
+ * histories. Items cluster around a handful of metro areas, categories and tags follow Zipf distributions (a few
+ * dominate), values are log-normal, and owners, chat partners and notification recipients are skewed towards a
+ * small set of very active users. Timestamps count forward from a fixed epoch, never from the wall clock; load
+ * trades with {@link PostNegotiationOperations.TradeRepo#restore} to keep their generated updatedAt.
+ *
+ * <p>Lives in the test-fixtures source set, shared by the tests and the JMH benchmarks, and uses only public API.
+ */
+public final class MarketplaceDataGenerator {
+    public static final Instant EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Clothing", "Home", "Toys", "Sports", "Music",
+            "Garden", "Art", "Tools", "Collectibles", "Games", "Baby", "Beauty", "Automotive", "Crafts"};
+    // lat, lon, relative weight
+    private static final double[][] METROS = {
+            {40.71, -74.01, 20}, {34.05, -118.24, 14}, {41.88, -87.63, 9}, {29.76, -95.37, 7}, {37.77, -122.42, 8},
+            {47.61, -122.33, 5}, {51.51, -0.13, 12}, {48.86, 2.35, 8}, {52.52, 13.40, 6}, {19.08, 72.88, 10},
+            {35.68, 139.69, 11}, {-33.87, 151.21, 4}, {-23.55, -46.63, 7}, {1.35, 103.82, 3}};
+    private static final int TAGS_PER_CATEGORY = 300;
+    private static final double METRO_SPREAD_KM = 15.0;
+
+    private final SplittableRandom rnd;
+    private final Zipf categoryDist = new Zipf(CATEGORIES.length, 1.1);
+    private final Zipf tagDist = new Zipf(TAGS_PER_CATEGORY, 1.2);
+    private final double[] metroCdf;
+
+    public MarketplaceDataGenerator(long seed) {
+        rnd = new SplittableRandom(seed);
+        metroCdf = new double[METROS.length];
+        double sum = 0;
+        for (int i = 0; i < METROS.length; i++) metroCdf[i] = sum += METROS[i][2];
+        for (int i = 0; i < METROS.length; i++) metroCdf[i] /= sum;
+    }
+
+    public List<MatchingEngine.Item> items(int n, int owners) {
+        Zipf ownerDist = new Zipf(owners, 0.9);
+        List<MatchingEngine.Item> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            MatchingEngine.Item it = new MatchingEngine.Item("item-" + i);
+            int cat = categoryDist.next(rnd);
+            it.category = CATEGORIES[cat];
+            int tagCount = 1 + rnd.nextInt(5);
+            Set<String> tags = new LinkedHashSet<>();
+            for (int t = 0; t < tagCount; t++) tags.add(CATEGORIES[cat].toLowerCase(Locale.ROOT) + "-" + tagDist.next(rnd));
+            it.tags = List.copyOf(tags);
+            it.value = Math.round(Math.exp(3.5 + 1.1 * rnd.nextGaussian()) * 100.0) / 100.0;
+            if (rnd.nextInt(50) != 0) { double[] p = location(); it.lat = p[0]; it.lon = p[1]; } // about 2% unlocated
+            it.condition = EnhancedMatchScorer.Condition.values()[Math.min(4, (int) Math.abs(rnd.nextGaussian() * 1.5))];
+            it.popularity = (int) Math.min(100, Math.floor(Math.pow(rnd.nextDouble(), 3) * 100));
+            it.createdAt = EPOCH.plusSeconds(rnd.nextLong(180L * 86_400));
+            it.ownerId = "user-" + ownerDist.next(rnd);
+            it.title = it.category + " item " + i;
+            out.add(it);
+        }
+        return out;
+    }
+
+    /** Point near a metro picked by weight, with a Gaussian spread of about 15 km. */
+    public double[] location() {
+        double[] m = METROS[metro()];
+        double dLat = rnd.nextGaussian() * METRO_SPREAD_KM / 111.0;
+        double dLon = rnd.nextGaussian() * METRO_SPREAD_KM / (111.0 * Math.cos(Math.toRadians(m[0])));
+        return new double[]{m[0] + dLat, m[1] + dLon};
+    }
+
+    /** Messages in time order; conversations pair users drawn from a skewed activity distribution. */
+    public List<ChatOperations.Message> messages(int n, int users) {
+        Zipf userDist = new Zipf(users, 1.0);
+        List<ChatOperations.Message> out = new ArrayList<>(n);
+        long t = 0;
+        for (int i = 0; i < n; i++) {
+            int a = userDist.next(rnd), b = userDist.next(rnd);
+            if (a == b) b = (b + 1) % users;
+            boolean aSends = rnd.nextBoolean();
+            t += 1 + rnd.nextInt(30);
+            ChatOperations.Message m = new ChatOperations.Message("msg-" + i, "user-" + (aSends ? a : b), "user-" + (aSends ? b : a), "message " + i, EPOCH.plusSeconds(t));
+            if (rnd.nextInt(10) < 7) m.readAt = m.createdAt.plusSeconds(60);
+            out.add(m);
+        }
+        return out;
+    }
+
+    public List<NotificationOperations.Notification> notifications(int n, int users) {
+        Zipf userDist = new Zipf(users, 1.0);
+        List<NotificationOperations.Notification> out = new ArrayList<>(n);
+        long t = 0;
+        for (int i = 0; i < n; i++) {
+            t += 1 + rnd.nextInt(30);
+            out.add(new NotificationOperations.Notification("notif-" + i, "user-" + userDist.next(rnd), rnd.nextInt(10) < 6, EPOCH.plusSeconds(t)));
+        }
+        return out;
+    }
+
+    public List<PostNegotiationOperations.Trade> trades(int n, int users) {
+        Zipf userDist = new Zipf(users, 1.0);
+        String[] statuses = {"pending", "pending", "accepted", "completed", "completed", "completed", "cancelled", "disputed"};
+        List<PostNegotiationOperations.Trade> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            PostNegotiationOperations.Trade t = new PostNegotiationOperations.Trade();
+            int a = userDist.next(rnd), b = userDist.next(rnd);
+            t.id = "trade-" + i; t.proposerId = "user-" + a; t.receiverId = "user-" + (a == b ? (b + 1) % users : b);
+            t.status = statuses[rnd.nextInt(statuses.length)];
+            t.createdAt = EPOCH.plusSeconds(rnd.nextLong(180L * 86_400));
+            t.updatedAt = t.createdAt.plusSeconds(rnd.nextLong(14L * 86_400));
+            t.offeredItemId = "item-" + rnd.nextInt(Math.max(1, n)); t.requestedItemId = "item-" + rnd.nextInt(Math.max(1, n));
+            out.add(t);
+        }
+        return out;
+    }
+
+    public static BasicMatchScorer.Item basicItem(MatchingEngine.Item it) { return new BasicMatchScorer.Item(it.id, it.category, it.tags, it.value, it.lat, it.lon); }
+
+    public static EnhancedMatchScorer.Item enhancedItem(MatchingEngine.Item it) {
+        return new EnhancedMatchScorer.Item(it.id, it.category, it.tags, it.value, it.lat, it.lon, it.condition, it.popularity, it.createdAt, it.ownerRating);
+    }
+
+    public static ItemsWithinRadiusFilter.GeoItem geoItem(MatchingEngine.Item it) { return new ItemsWithinRadiusFilter.GeoItem(it.id, it.lat, it.lon); }
+
+    private int metro() {
+        int i = Arrays.binarySearch(metroCdf, rnd.nextDouble());
+        return Math.min(METROS.length - 1, i < 0 ? -i - 1 : i);
+    }
+
+    // Rank sampler with P(k) proportional to 1/(k+1)^s.
+    private static final class Zipf {
+        final double[] cdf;
+        Zipf(int n, double s) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) cdf[k] = sum += 1.0 / Math.pow(k + 1, s);
+            for (int k = 0; k < n; k++) cdf[k] /= sum;
+        }
+        int next(SplittableRandom rnd) {
+            int i = Arrays.binarySearch(cdf, rnd.nextDouble());
+            return Math.min(cdf.length - 1, i < 0 ? -i - 1 : i);
+        }
+    }
+}